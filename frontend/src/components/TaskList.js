@@ -10,7 +10,8 @@ import {
   Typography,
   Card,
   Input,
-  Tooltip
+  Tooltip,
+  Spin
 } from 'antd';
 import { 
   ReloadOutlined, 
@@ -62,6 +63,7 @@ const TaskList = () => {
   const [loading, setLoading] = useState(false);
   const [selectedTask, setSelectedTask] = useState(null);
   const [modalVisible, setModalVisible] = useState(false);
+  const [detailsLoading, setDetailsLoading] = useState(false);
   const [searchText, setSearchText] = useState('');
 
   const loadTasks = useCallback(async () => {
@@ -86,11 +88,30 @@ const TaskList = () => {
     loadTasks();
   }, [loadTasks]);
 
+  // Apply pushed lifecycle events instead of refetching the whole list
+  useEffect(() => {
+    return taskAPI.subscribeTaskEvents((events) => {
+      setTasks((current) => {
+        const byId = new Map(current.map((task) => [task.id, task]));
+        events.forEach((event) => {
+          const existing = byId.get(event.taskId) || { id: event.taskId };
+          byId.set(event.taskId, {
+            ...existing,
+            tenant: event.tenant,
+            status: event.status,
+            priority: event.priority,
+            scheduledAt: event.scheduledAt,
+          });
+        });
+        return Array.from(byId.values());
+      });
+    });
+  }, []);
+
   const handleCancel = async (taskId) => {
     try {
       await taskAPI.cancelTask(taskId);
       message.success('Task cancelled successfully');
-      loadTasks();
     } catch (error) {
       console.error('Error cancelling task:', error);
       message.error('Failed to cancel task');
@@ -128,9 +149,20 @@ const TaskList = () => {
     });
   };
 
-  const showTaskDetails = (task) => {
+  // The list only holds summary columns, the details modal loads the full task
+  const showTaskDetails = async (task) => {
     setSelectedTask(task);
     setModalVisible(true);
+    setDetailsLoading(true);
+    try {
+      const response = await taskAPI.getTask(task.id);
+      setSelectedTask(response.data);
+    } catch (error) {
+      console.error('Error loading task details:', error);
+      message.error('Failed to load task details');
+    } finally {
+      setDetailsLoading(false);
+    }
   };
 
   const getStatusColor = (status) => {
@@ -165,17 +197,6 @@ const TaskList = () => {
       key: 'tenant',
       width: 120,
     },
-    {
-      title: 'Payload',
-      dataIndex: 'payload',
-      key: 'payload',
-      width: 200,
-      render: (payload) => (
-        <Tooltip placement="topLeft" title={payload}>
-          {payload}
-        </Tooltip>
-      ),
-    },
     {
       title: 'Scheduled At',
       dataIndex: 'scheduledAt',
@@ -197,17 +218,6 @@ const TaskList = () => {
       width: 180,
       render: (updatedAt) => updatedAt ? dayjs(updatedAt).format('YYYY-MM-DD HH:mm:ss') : 'N/A',
     },
-    {
-      title: 'Parameters',
-      dataIndex: 'parameters',
-      key: 'parameters',
-      width: 200,
-      render: (parameters) => (
-        <Tooltip placement="topLeft" title={JSON.stringify(parameters)}>
-          {parameters ? JSON.stringify(parameters) : 'N/A'}
-        </Tooltip>
-      ),
-    },
     {
       title: 'Created By',
       dataIndex: 'createdBy',
@@ -226,12 +236,6 @@ const TaskList = () => {
       key: 'priority',
       width: 100,
     },
-    {
-      title: 'Retry Count',
-      dataIndex: 'retryCount',
-      key: 'retryCount',
-      width: 100,
-    },
     {
       title: 'Current Retries',
       dataIndex: 'currentRetries',
@@ -244,24 +248,6 @@ const TaskList = () => {
       key: 'maxRetries',
       width: 100,
     },
-    {
-      title: 'Retry Delay (ms)',
-      dataIndex: 'retryDelayMs',
-      key: 'retryDelayMs',
-      width: 120,
-    },
-    {
-      title: 'Execution Result',
-      dataIndex: 'executionResult',
-      key: 'executionResult',
-      width: 120,
-    },
-    {
-      title: 'Error Message',
-      dataIndex: 'errorMessage',
-      key: 'errorMessage',
-      width: 200,
-    },
     {
       title: 'Status',
       dataIndex: 'status',
@@ -354,63 +340,65 @@ const TaskList = () => {
         className="task-details-modal"
       >
         {selectedTask && (
-          <Descriptions bordered column={2}>
-            <Descriptions.Item label="ID" span={2}>
-              {selectedTask.id}
-            </Descriptions.Item>
-            <Descriptions.Item label="Tenant">
-              {selectedTask.tenant || 'N/A'}
-            </Descriptions.Item>
-            <Descriptions.Item label="Payload">
-              <div className="json-preview">{selectedTask.payload || 'N/A'}</div>
-            </Descriptions.Item>
-            <Descriptions.Item label="Scheduled At">
-              {selectedTask.scheduledAt ? dayjs(selectedTask.scheduledAt).format('YYYY-MM-DD HH:mm:ss') : 'N/A'}
-            </Descriptions.Item>
-            <Descriptions.Item label="Created At">
-              {selectedTask.createdAt ? dayjs(selectedTask.createdAt).format('YYYY-MM-DD HH:mm:ss') : 'N/A'}
-            </Descriptions.Item>
-            <Descriptions.Item label="Updated At">
-              {selectedTask.updatedAt ? dayjs(selectedTask.updatedAt).format('YYYY-MM-DD HH:mm:ss') : 'N/A'}
-            </Descriptions.Item>
-            <Descriptions.Item label="Parameters" span={2}>
-              <div className="json-preview">
-                {selectedTask.parameters ? JSON.stringify(selectedTask.parameters, null, 2) : 'N/A'}
-              </div>
-            </Descriptions.Item>
-            <Descriptions.Item label="Created By">
-              {selectedTask.createdBy}
-            </Descriptions.Item>
-            <Descriptions.Item label="Assigned To">
-              {selectedTask.assignedTo || 'Not assigned'}
-            </Descriptions.Item>
-            <Descriptions.Item label="Priority">
-              {selectedTask.priority || 'N/A'}
-            </Descriptions.Item>
-            <Descriptions.Item label="Retry Count">
-              {selectedTask.retryCount}
-            </Descriptions.Item>
-            <Descriptions.Item label="Current Retries">
-              {selectedTask.currentRetries}
-            </Descriptions.Item>
-            <Descriptions.Item label="Max Retries">
-              {selectedTask.maxRetries}
-            </Descriptions.Item>
-            <Descriptions.Item label="Retry Delay (ms)">
-              {selectedTask.retryDelayMs}
-            </Descriptions.Item>
-            <Descriptions.Item label="Execution Result">
-              {selectedTask.executionResult || 'N/A'}
-            </Descriptions.Item>
-            <Descriptions.Item label="Error Message" span={2}>
-              {selectedTask.errorMessage || 'None'}
-            </Descriptions.Item>
-            <Descriptions.Item label="Status">
-              <Tag color={getStatusColor(selectedTask.status)}>
-                {selectedTask.status}
-              </Tag>
-            </Descriptions.Item>
-          </Descriptions>
+          <Spin spinning={detailsLoading}>
+            <Descriptions bordered column={2}>
+              <Descriptions.Item label="ID" span={2}>
+                {selectedTask.id}
+              </Descriptions.Item>
+              <Descriptions.Item label="Tenant">
+                {selectedTask.tenant || 'N/A'}
+              </Descriptions.Item>
+              <Descriptions.Item label="Payload">
+                <div className="json-preview">{selectedTask.payload || 'N/A'}</div>
+              </Descriptions.Item>
+              <Descriptions.Item label="Scheduled At">
+                {selectedTask.scheduledAt ? dayjs(selectedTask.scheduledAt).format('YYYY-MM-DD HH:mm:ss') : 'N/A'}
+              </Descriptions.Item>
+              <Descriptions.Item label="Created At">
+                {selectedTask.createdAt ? dayjs(selectedTask.createdAt).format('YYYY-MM-DD HH:mm:ss') : 'N/A'}
+              </Descriptions.Item>
+              <Descriptions.Item label="Updated At">
+                {selectedTask.updatedAt ? dayjs(selectedTask.updatedAt).format('YYYY-MM-DD HH:mm:ss') : 'N/A'}
+              </Descriptions.Item>
+              <Descriptions.Item label="Parameters" span={2}>
+                <div className="json-preview">
+                  {selectedTask.parameters ? JSON.stringify(selectedTask.parameters, null, 2) : 'N/A'}
+                </div>
+              </Descriptions.Item>
+              <Descriptions.Item label="Created By">
+                {selectedTask.createdBy}
+              </Descriptions.Item>
+              <Descriptions.Item label="Assigned To">
+                {selectedTask.assignedTo || 'Not assigned'}
+              </Descriptions.Item>
+              <Descriptions.Item label="Priority">
+                {selectedTask.priority || 'N/A'}
+              </Descriptions.Item>
+              <Descriptions.Item label="Retry Count">
+                {selectedTask.retryCount}
+              </Descriptions.Item>
+              <Descriptions.Item label="Current Retries">
+                {selectedTask.currentRetries}
+              </Descriptions.Item>
+              <Descriptions.Item label="Max Retries">
+                {selectedTask.maxRetries}
+              </Descriptions.Item>
+              <Descriptions.Item label="Retry Delay (ms)">
+                {selectedTask.retryDelayMs}
+              </Descriptions.Item>
+              <Descriptions.Item label="Execution Result">
+                {selectedTask.executionResult || 'N/A'}
+              </Descriptions.Item>
+              <Descriptions.Item label="Error Message" span={2}>
+                {selectedTask.errorMessage || 'None'}
+              </Descriptions.Item>
+              <Descriptions.Item label="Status">
+                <Tag color={getStatusColor(selectedTask.status)}>
+                  {selectedTask.status}
+                </Tag>
+              </Descriptions.Item>
+            </Descriptions>
+          </Spin>
         )}
       </Modal>
     </div>
@@ -20,9 +20,9 @@ export const taskAPI = {
     return apiClient.get(`/tasks/${taskId}`);
   },
 
-  // Get all tasks (if endpoint exists)
-  getAllTasks: () => {
-    return apiClient.get('/tasks');
+  // Get all tasks (if endpoint exists) - summary columns only, payload and parameters are not fetched
+  getAllTasks: (fields = 'summary') => {
+    return apiClient.get(`/tasks?fields=${encodeURIComponent(fields)}`);
   },
 
   // Cancel a task
@@ -61,6 +61,17 @@ export const taskAPI = {
     }
     return apiClient.get(url);
   },
+
+  // Subscribe to live task lifecycle events; onEvents receives coalesced batches of events
+  subscribeTaskEvents: (onEvents, tenant = null) => {
+    let url = `${API_BASE_URL}/tasks/stream`;
+    if (tenant && tenant.trim()) {
+      url += `?tenant=${encodeURIComponent(tenant)}`;
+    }
+    const source = new EventSource(url);
+    source.addEventListener('tasks', (event) => onEvents(JSON.parse(event.data)));
+    return () => source.close();
+  },
 };
 
 export default apiClient;
@@ -2,6 +2,7 @@ package com.taskscheduler.SchedulerCron;
 
 import com.taskscheduler.model.TaskMetaData;
 import com.taskscheduler.repository.TaskMetaDataRepository;
+import com.taskscheduler.service.TimerSegmentStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -18,13 +19,16 @@ public class DailyTaskScheduler {
 
     private final TaskMetaDataRepository taskMetaDataRepository;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TimerSegmentStore timerSegmentStore;
     private final String taskRequestsTopic;
 
     public DailyTaskScheduler(TaskMetaDataRepository taskMetaDataRepository,
                              KafkaTemplate<String, Object> kafkaTemplate,
+                             TimerSegmentStore timerSegmentStore,
                              @Value("${kafka.topics.task-requests}") String taskRequestsTopic) {
         this.taskMetaDataRepository = taskMetaDataRepository;
         this.kafkaTemplate = kafkaTemplate;
+        this.timerSegmentStore = timerSegmentStore;
         this.taskRequestsTopic = taskRequestsTopic;
     }
 
@@ -97,7 +101,14 @@ public class DailyTaskScheduler {
                     }
                     
                     try {
-                        kafkaTemplate.send(taskRequestsTopic, taskMetaData.getId(), taskMetaData);
+                        kafkaTemplate.send(taskRequestsTopic, taskMetaData.getId(), taskMetaData)
+                                .whenComplete((result, e) -> {
+                                    // Only a timer the broker took is persisted, so a failed send
+                                    // is not replayed later as if it had been registered
+                                    if (e == null && taskMetaData.getScheduledAt() != null) {
+                                        persistTimer(taskMetaData);
+                                    }
+                                });
                         log.debug("Published task {} (bucketId: {}) to Kafka topic: {}", 
                                 taskMetaData.getId(), taskMetaData.getBucketId(), taskRequestsTopic);
                         successCount++;
@@ -127,4 +138,12 @@ public class DailyTaskScheduler {
             log.error("Error in daily task scheduler: {}", e.getMessage(), e);
         }
     }
+
+    private void persistTimer(TaskMetaData taskMetaData) {
+        try {
+            timerSegmentStore.upsert(taskMetaData.getId(), taskMetaData.getTenant(), taskMetaData.getScheduledAt());
+        } catch (Exception e) {
+            log.warn("Timer of task {} not persisted: {}", taskMetaData.getId(), e.getMessage());
+        }
+    }
 }
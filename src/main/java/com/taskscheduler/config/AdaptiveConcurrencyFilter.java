@@ -0,0 +1,179 @@
+package com.taskscheduler.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit in front of the intake endpoints. Requests beyond the current limit
+ * are shed at once with 503 and Retry-After instead of queueing on Tomcat threads behind a slow
+ * Cassandra. The limit is adjusted from the mean of taskscheduler_database_save_duration_seconds
+ * over each interval: above the latency SLO it is cut multiplicatively, below it grows by one
+ * when the limit was actually being reached. Flink backpressure (flink_backpressure_level) at
+ * or above its threshold cuts the limit the same way, since the timer job falling behind means
+ * new tasks would only queue up in task-requests. Only the configured endpoints are limited, so
+ * health and actuator endpoints always get through.
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+
+    private static final String SAVE_TIMER = "taskscheduler_database_save_duration_seconds";
+    private static final String FLINK_BACKPRESSURE = "flink_backpressure_level";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final List<String[]> limitedEndpoints = new ArrayList<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencySloMs;
+    private final double backoffRatio;
+    private final long minSamples;
+    private final double backpressureThreshold;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private volatile int limit;
+    private long lastCount;
+    private double lastTotalNanos;
+
+    private final Counter shed;
+
+    public AdaptiveConcurrencyFilter(MeterRegistry meterRegistry,
+                                     @Value("${adaptive-concurrency.enabled:false}") boolean enabled,
+                                     @Value("${adaptive-concurrency.endpoints:POST /api/tasks,GET /api/tasks/search/**}") String endpoints,
+                                     @Value("${adaptive-concurrency.initial-limit:100}") int initialLimit,
+                                     @Value("${adaptive-concurrency.min-limit:4}") int minLimit,
+                                     @Value("${adaptive-concurrency.max-limit:400}") int maxLimit,
+                                     @Value("${adaptive-concurrency.latency-slo-ms:100}") double latencySloMs,
+                                     @Value("${adaptive-concurrency.backoff-ratio:0.8}") double backoffRatio,
+                                     @Value("${adaptive-concurrency.min-samples:20}") long minSamples,
+                                     @Value("${adaptive-concurrency.backpressure-threshold:50}") double backpressureThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        for (String endpoint : endpoints.split(",")) {
+            String[] parts = endpoint.trim().split("\\s+", 2);
+            if (parts.length == 2) {
+                limitedEndpoints.add(parts);
+            }
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencySloMs = latencySloMs;
+        this.backoffRatio = backoffRatio;
+        this.minSamples = minSamples;
+        this.backpressureThreshold = backpressureThreshold;
+        this.shed = Counter.builder("taskscheduler_intake_shed_total")
+                .description("Requests rejected by the adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_intake_concurrency_limit", this, filter -> filter.limit)
+                .description("Current adaptive concurrency limit of the intake endpoints")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_intake_in_flight", inFlight, AtomicInteger::get)
+                .description("Intake requests currently being processed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        for (String[] endpoint : limitedEndpoints) {
+            if (endpoint[0].equalsIgnoreCase(request.getMethod()) && pathMatcher.match(endpoint[1], path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int current = inFlight.incrementAndGet();
+        if (current > limit) {
+            inFlight.decrementAndGet();
+            shed.increment();
+            reject(response);
+            return;
+        }
+        peakInFlight.accumulateAndGet(current, Math::max);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${adaptive-concurrency.adjust-interval-ms:1000}")
+    public void adjustLimit() {
+        if (!enabled) {
+            return;
+        }
+        // Successful saves only, quick rejections (e.g. admission quotas) would mask a slow database
+        long count = 0;
+        double totalNanos = 0;
+        for (Timer saves : meterRegistry.find(SAVE_TIMER).tag("exception", "none").timers()) {
+            count += saves.count();
+            totalNanos += saves.totalTime(TimeUnit.NANOSECONDS);
+        }
+        long samples = count - lastCount;
+        double backpressure = flinkBackpressure();
+        boolean backpressured = backpressure >= backpressureThreshold;
+        if (samples < minSamples && !backpressured) {
+            return;
+        }
+        double meanMs = samples > 0 ? (totalNanos - lastTotalNanos) / samples / 1_000_000 : 0;
+        lastCount = count;
+        lastTotalNanos = totalNanos;
+        int peak = peakInFlight.getAndSet(0);
+
+        int previous = limit;
+        if (meanMs > latencySloMs || backpressured) {
+            limit = Math.max(minLimit, (int) (previous * backoffRatio));
+        } else if (peak >= previous * 0.8) {
+            limit = Math.min(maxLimit, previous + 1);
+        }
+        if (limit != previous) {
+            log.info("Intake concurrency limit {} -> {} (mean save latency {} ms, Flink backpressure {}%, peak in flight {})",
+                    previous, limit, String.format("%.1f", meanMs), (int) backpressure, peak);
+        }
+    }
+
+    private double flinkBackpressure() {
+        Gauge gauge = meterRegistry.find(FLINK_BACKPRESSURE).gauge();
+        return gauge != null ? gauge.value() : 0;
+    }
+
+    private static void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"timestamp\":\"" + Instant.now() + "\",\"status\":503,"
+                + "\"error\":\"Service Unavailable\",\"message\":\"Intake is over its concurrency limit, retry shortly\"}");
+    }
+}
@@ -0,0 +1,65 @@
+package com.taskscheduler.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived thread pools shared by the services, sized from configuration
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Range workers of all token range scans. Each scan runs at most its own concurrency of
+     * workers here, so the pool bounds the scan threads of the whole node.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService tokenRangeScanExecutor(@Value("${task-scan.executor-threads:16}") int threads) {
+        return Executors.newFixedThreadPool(threads, daemonThreads("token-range-scan-"));
+    }
+
+    /**
+     * Search index rebuilds, one at a time whether started at startup or from the API
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService searchIndexRebuildExecutor() {
+        return Executors.newSingleThreadExecutor(daemonThreads("task-index-rebuild-"));
+    }
+
+    /**
+     * Bulk cancel and reschedule jobs: max-running at a time, up to max-queued waiting, and a
+     * submit beyond that is rejected rather than queued without bound
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService bulkTaskJobExecutor(@Value("${bulk-jobs.max-running:2}") int maxRunning,
+                                               @Value("${bulk-jobs.max-queued:10}") int maxQueued) {
+        return new ThreadPoolExecutor(maxRunning, maxRunning, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxQueued), daemonThreads("bulk-task-job-"));
+    }
+
+    /**
+     * The one-off replay of recovered timers after startup
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService timerStoreReplayExecutor() {
+        return Executors.newSingleThreadExecutor(daemonThreads("timer-store-replay-"));
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
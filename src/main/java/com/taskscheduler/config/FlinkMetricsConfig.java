@@ -132,6 +132,10 @@ public class FlinkMetricsConfig {
             flinkTasksProcessed.increment();
         }
 
+        public void incrementTasksProcessed(long count) {
+            flinkTasksProcessed.increment(count);
+        }
+
         public void incrementTasksFailed() {
             flinkTasksFailed.increment();
         }
@@ -141,6 +145,11 @@ public class FlinkMetricsConfig {
             processedRecords.incrementAndGet();
         }
 
+        public void incrementRecordsProcessed(long count) {
+            flinkRecordsProcessed.increment(count);
+            processedRecords.addAndGet(count);
+        }
+
         public void incrementFailedRecords() {
             failedRecords.incrementAndGet();
         }
@@ -159,14 +168,28 @@ public class FlinkMetricsConfig {
             checkpointDuration.set(durationMs.toMillis());
         }
 
+        public void incrementCheckpointsCompleted(long count, Duration latestDuration) {
+            flinkCheckpointsCompleted.increment(count);
+            flinkCheckpointDuration.record(latestDuration);
+            checkpointDuration.set(latestDuration.toMillis());
+        }
+
         public void incrementCheckpointsFailed() {
             flinkCheckpointsFailed.increment();
         }
 
+        public void incrementCheckpointsFailed(long count) {
+            flinkCheckpointsFailed.increment(count);
+        }
+
         public void incrementJobRestarts() {
             flinkRestarts.increment();
         }
 
+        public void incrementJobRestarts(long count) {
+            flinkRestarts.increment(count);
+        }
+
         public void setActiveJobs(int count) {
             activeFlinkJobs.set(count);
         }
@@ -175,6 +198,10 @@ public class FlinkMetricsConfig {
             backpressureLevel.set(level);
         }
 
+        public int getBackpressureLevel() {
+            return backpressureLevel.get();
+        }
+
         public void setTaskManagerCount(int count) {
             taskManagerCount.set(count);
         }
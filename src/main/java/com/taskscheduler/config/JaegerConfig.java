@@ -10,6 +10,7 @@ import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.resources.Resource;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
 import io.opentelemetry.semconv.ResourceAttributes;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -27,6 +28,9 @@ public class JaegerConfig {
     @Value("${otel.exporter.otlp.endpoint:http://localhost:4317}")
     private String otlpEndpoint;
 
+    @Value("${management.tracing.sampling.probability:0.1}")
+    private double samplingProbability;
+
     /**
      * Configure OpenTelemetry SDK with OTLP exporter for Jaeger
      */
@@ -43,9 +47,11 @@ public class JaegerConfig {
                         Attributes.of(ResourceAttributes.SERVICE_NAME, serviceName)
                 ));
 
-        // Create tracer provider with batch span processor
+        // Create tracer provider with batch span processor; root spans are sampled by ratio and
+        // children follow their parent, so the decision is made once, before any attributes exist
         SdkTracerProvider sdkTracerProvider = SdkTracerProvider.builder()
                 .addSpanProcessor(BatchSpanProcessor.builder(spanExporter).build())
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(samplingProbability)))
                 .setResource(resource)
                 .build();
 
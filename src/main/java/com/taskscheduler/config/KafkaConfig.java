@@ -1,7 +1,7 @@
 package com.taskscheduler.config;
 
+import com.taskscheduler.dto.ScheduledTaskRef;
 import com.taskscheduler.model.Task;
-import com.taskscheduler.model.TaskMetaData;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -11,8 +11,10 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -23,19 +25,64 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // Topics whose TaskMetaData records are written in the compact binary format, JSON otherwise
+    @Value("${kafka.serialization.binary-topics:}")
+    private String binaryTopics;
+
+    @Value("${kafka.producer.linger-ms:5}")
+    private int producerLingerMs;
+
+    @Value("${kafka.producer.batch-size:65536}")
+    private int producerBatchSize;
+
+    // Starting values, ConsumerFlowController adjusts poll size and concurrency at runtime
+    @Value("${kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${kafka.consumer.fetch-min-bytes:1024}")
+    private int fetchMinBytes;
+
+    @Value("${kafka.consumer.fetch-max-wait-ms:500}")
+    private int fetchMaxWaitMs;
+
+    @Value("${kafka.consumer.concurrency:1}")
+    private int consumerConcurrency;
+
+    // Exactly-once mode for the scheduled-tasks listener, see ScheduledTaskListener
+    @Value("${kafka.transactions.enabled:false}")
+    private boolean transactionsEnabled;
+
+    @Value("${kafka.transactions.id-prefix:task-scheduler-tx-}")
+    private String transactionIdPrefix;
+
 
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, TaskMetaDataSerializer.class);
+        configProps.put(TaskMetaDataSerializer.BINARY_TOPICS_CONFIG, binaryTopics);
+        // Idempotent producer: retries after a lost ack neither duplicate nor reorder records,
+        // which the outbox relay relies on when it deletes rows on ack
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, producerLingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize);
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(configProps);
+        if (transactionsEnabled) {
+            factory.setTransactionIdPrefix(transactionIdPrefix);
+        }
+        return factory;
     }
 
     @Bean
     public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory());
+        // Sends outside a listener transaction (task intake, outbox relay) stay non-transactional
+        template.setAllowNonTransactional(true);
+        return template;
     }
 
     @Bean
@@ -47,10 +94,11 @@ public class KafkaConfig {
         configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         
+        // A record that fails to decode reaches the container's error handler instead of failing every poll
         return new DefaultKafkaConsumerFactory<>(
                 configProps,
                 new StringDeserializer(),
-                new JsonDeserializer<>(Task.class, false));
+                new ErrorHandlingDeserializer<>(new JsonDeserializer<>(Task.class, false)));
     }
 
     @Bean
@@ -61,33 +109,55 @@ public class KafkaConfig {
         return factory;
     }
     
-    // Batch listener configuration for TaskMetaData
+    // Batch listener configuration for TaskMetaData, records are decoded as routing-only refs
     @Bean
-    public ConsumerFactory<String, TaskMetaData> batchTaskMetaDataConsumerFactory() {
+    public ConsumerFactory<String, ScheduledTaskRef> batchTaskMetaDataConsumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "task-scheduler-platform");
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, TaskMetaData.class.getName());
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ScheduledTaskRefDeserializer.class);
         // Batch configuration
-        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500); // Fetch up to 500 records per poll
-        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1024); // Wait for at least 1KB of data
-        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 500); // Wait max 500ms before returning
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords); // Records per poll
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes); // Wait for at least this much data
+        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs); // but no longer than this
+        if (transactionsEnabled) {
+            configProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        }
         
+        // Reads binary and JSON records alike and only decodes the routing fields up front. A record
+        // that fails to decode arrives with a null value and the exception in a header, see
+        // ScheduledTaskListener, instead of failing every poll of its partition.
         return new DefaultKafkaConsumerFactory<>(
                 configProps,
                 new StringDeserializer(),
-                new JsonDeserializer<>(TaskMetaData.class, false));
+                new ErrorHandlingDeserializer<>(new ScheduledTaskRefDeserializer()));
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, TaskMetaData> batchKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, TaskMetaData> factory = 
+    public ConcurrentKafkaListenerContainerFactory<String, ScheduledTaskRef> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, ScheduledTaskRef> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(batchTaskMetaDataConsumerFactory());
         factory.setBatchListener(true); // Enable batch listening
+        factory.setConcurrency(consumerConcurrency);
+        if (transactionsEnabled) {
+            // One Kafka transaction per poll batch: deliveries and the offset commit land together.
+            // Deliberately not a bean, so @Transactional service methods do not start Kafka transactions.
+            factory.getContainerProperties().setKafkaAwareTransactionManager(
+                    listenerTransactionManager(producerFactory()));
+        }
         return factory;
     }
+
+    /**
+     * Transaction manager for the listener's poll batch transactions. KafkaTransactionManager turns
+     * transaction synchronization off by default; the listener needs it on, to see the transaction
+     * and to defer its status updates and envelope flushes to the commit.
+     */
+    public static KafkaTransactionManager<String, Object> listenerTransactionManager(ProducerFactory<String, Object> producerFactory) {
+        KafkaTransactionManager<String, Object> transactionManager = new KafkaTransactionManager<>(producerFactory);
+        transactionManager.setTransactionSynchronization(AbstractPlatformTransactionManager.SYNCHRONIZATION_ON_ACTUAL_TRANSACTION);
+        return transactionManager;
+    }
 }
@@ -0,0 +1,84 @@
+package com.taskscheduler.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskscheduler.dto.ScheduledTaskRef;
+import com.taskscheduler.model.TaskMetaData;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Deserializer for scheduled-tasks that extracts only the routing fields (id, tenant, scheduledAt).
+ * Binary records are read with the wire format cursor; JSON records are read with a streaming
+ * parser that stops as soon as all three are found, without building an object tree.
+ * The full {@link TaskMetaData} is only decoded if the listener asks for it.
+ */
+public class ScheduledTaskRefDeserializer implements Deserializer<ScheduledTaskRef> {
+
+    // Parsers are per record, their read and text buffers are not: each consumer thread keeps its
+    // own set in the thread-local pool and every record on that thread reuses it. Field names are
+    // canonicalized by the factory, so the routing field names are not re-allocated per record either.
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .recyclerPool(JsonRecyclerPools.threadLocalPool())
+            .build();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper(JSON_FACTORY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Override
+    public ScheduledTaskRef deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (TaskMetaDataWireFormat.isBinary(data)) {
+            return TaskMetaDataWireFormat.decodeRef(data);
+        }
+        return decodeJsonRef(data);
+    }
+
+    private static ScheduledTaskRef decodeJsonRef(byte[] data) {
+        String id = null;
+        String tenant = null;
+        Long scheduledAt = null;
+        boolean idSeen = false;
+        boolean tenantSeen = false;
+        boolean scheduledAtSeen = false;
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new SerializationException("Expected a JSON object for TaskMetaData");
+            }
+            while (!(idSeen && tenantSeen && scheduledAtSeen) && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("id".equals(field)) {
+                    id = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    idSeen = true;
+                } else if ("tenant".equals(field)) {
+                    tenant = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    tenantSeen = true;
+                } else if ("scheduledAt".equals(field)) {
+                    scheduledAt = value == JsonToken.VALUE_NULL ? null : parser.getLongValue();
+                    scheduledAtSeen = true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Cannot read TaskMetaData routing fields", e);
+        }
+        return new ScheduledTaskRef(id, tenant, scheduledAt, data, ScheduledTaskRefDeserializer::decodeJson);
+    }
+
+    private static TaskMetaData decodeJson(byte[] data) {
+        try {
+            return OBJECT_MAPPER.readValue(data, TaskMetaData.class);
+        } catch (IOException e) {
+            throw new SerializationException("Cannot deserialize TaskMetaData", e);
+        }
+    }
+}
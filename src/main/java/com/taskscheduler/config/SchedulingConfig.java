@@ -0,0 +1,55 @@
+package com.taskscheduler.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Schedulers for the @Scheduled jobs. The short periodic jobs share {@code taskScheduler}, sized
+ * by spring.task.scheduling.pool.size. Jobs that block for seconds (a throttled table scan,
+ * waiting on broker acks, rewriting a snapshot, a round of REST calls to Flink) each get a single-thread scheduler of their own
+ * through {@code @Scheduled(scheduler = ...)}, so they neither delay the others nor overlap
+ * with their own previous run.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    public static final String ADMISSION_RECONCILE_SCHEDULER = "admissionReconcileScheduler";
+    public static final String OUTBOX_RELAY_SCHEDULER = "outboxRelayScheduler";
+    public static final String TIMER_COMPACTION_SCHEDULER = "timerCompactionScheduler";
+    public static final String FLINK_TELEMETRY_SCHEDULER = "flinkTelemetryScheduler";
+
+    /**
+     * Default scheduler of every job without its own. Declared here because defining any
+     * other TaskScheduler bean turns off the one Spring Boot would create.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(ADMISSION_RECONCILE_SCHEDULER)
+    public ThreadPoolTaskScheduler admissionReconcileScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return dedicated(builder, "admission-reconcile-");
+    }
+
+    @Bean(OUTBOX_RELAY_SCHEDULER)
+    public ThreadPoolTaskScheduler outboxRelayScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return dedicated(builder, "outbox-relay-");
+    }
+
+    @Bean(TIMER_COMPACTION_SCHEDULER)
+    public ThreadPoolTaskScheduler timerCompactionScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return dedicated(builder, "timer-compaction-");
+    }
+
+    @Bean(FLINK_TELEMETRY_SCHEDULER)
+    public ThreadPoolTaskScheduler flinkTelemetryScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return dedicated(builder, "flink-telemetry-");
+    }
+
+    private static ThreadPoolTaskScheduler dedicated(ThreadPoolTaskSchedulerBuilder builder, String threadNamePrefix) {
+        return builder.poolSize(1).threadNamePrefix(threadNamePrefix).build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.taskscheduler.config;
+
+import com.taskscheduler.model.TaskMetaData;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Consumer value deserializer that accepts both the binary wire format and JSON.
+ * The format is detected per record from the leading magic byte, so producers can switch
+ * a topic to binary while records written as JSON are still being consumed.
+ */
+public class TaskMetaDataDeserializer implements Deserializer<TaskMetaData> {
+
+    private final JsonDeserializer<TaskMetaData> jsonDeserializer = new JsonDeserializer<>(TaskMetaData.class, false);
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public TaskMetaData deserialize(String topic, byte[] data) {
+        if (TaskMetaDataWireFormat.isBinary(data)) {
+            return TaskMetaDataWireFormat.decode(data);
+        }
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public TaskMetaData deserialize(String topic, Headers headers, byte[] data) {
+        if (TaskMetaDataWireFormat.isBinary(data)) {
+            return TaskMetaDataWireFormat.decode(data);
+        }
+        return jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
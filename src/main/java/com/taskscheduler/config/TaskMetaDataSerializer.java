@@ -0,0 +1,57 @@
+package com.taskscheduler.config;
+
+import com.taskscheduler.model.TaskMetaData;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Producer value serializer that writes {@link TaskMetaData} in the compact binary wire format
+ * on the topics listed in {@link #BINARY_TOPICS_CONFIG} and JSON everywhere else, so the binary
+ * format can be enabled topic by topic once every consumer of a topic understands it.
+ */
+public class TaskMetaDataSerializer implements Serializer<Object> {
+
+    public static final String BINARY_TOPICS_CONFIG = "taskscheduler.serializer.binary.topics";
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private Set<String> binaryTopics = Set.of();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+        Object topics = configs.get(BINARY_TOPICS_CONFIG);
+        if (topics != null) {
+            binaryTopics = Arrays.stream(topics.toString().split(","))
+                    .map(String::trim)
+                    .filter(topic -> !topic.isEmpty())
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data instanceof TaskMetaData metaData && binaryTopics.contains(topic)) {
+            return TaskMetaDataWireFormat.encode(metaData);
+        }
+        return jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data instanceof TaskMetaData metaData && binaryTopics.contains(topic)) {
+            return TaskMetaDataWireFormat.encode(metaData);
+        }
+        return jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
@@ -0,0 +1,238 @@
+package com.taskscheduler.config;
+
+import com.taskscheduler.dto.ScheduledTaskRef;
+import com.taskscheduler.model.TaskMetaData;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact versioned binary encoding of {@link TaskMetaData}.
+ *
+ * <pre>
+ * byte    MAGIC (0x00, a JSON document can never start with it)
+ * byte    VERSION
+ * byte    presence flags: bucketId, id, tenant, scheduledAt, status
+ * varlong bucketId     (zigzag)
+ * string  id           (varint length + UTF-8)
+ * string  tenant
+ * varlong scheduledAt  (zigzag, epoch millis)
+ * byte    status code  (0 = custom, followed by a string)
+ * </pre>
+ */
+public final class TaskMetaDataWireFormat {
+
+    public static final byte MAGIC = 0x00;
+    public static final byte VERSION = 1;
+
+    static final int HAS_BUCKET_ID = 1;
+    static final int HAS_ID = 1 << 1;
+    static final int HAS_TENANT = 1 << 2;
+    static final int HAS_SCHEDULED_AT = 1 << 3;
+    static final int HAS_STATUS = 1 << 4;
+
+    private static final String[] STATUS_CODES = {null, "CREATED", "DELIVERED", "CANCELLED"};
+
+    private TaskMetaDataWireFormat() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 2 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(TaskMetaData metaData) {
+        byte[] id = utf8(metaData.getId());
+        byte[] tenant = utf8(metaData.getTenant());
+        int statusCode = statusCode(metaData.getStatus());
+        byte[] status = statusCode == 0 ? utf8(metaData.getStatus()) : null;
+
+        // Upper bound: header, two varlongs, three length-prefixed strings, status code
+        int capacity = 3 + 10 + 10 + 1 + lengthOf(id) + lengthOf(tenant) + lengthOf(status);
+        Writer writer = new Writer(capacity);
+        int flags = (metaData.getBucketId() != null ? HAS_BUCKET_ID : 0)
+                | (id != null ? HAS_ID : 0)
+                | (tenant != null ? HAS_TENANT : 0)
+                | (metaData.getScheduledAt() != null ? HAS_SCHEDULED_AT : 0)
+                | (metaData.getStatus() != null ? HAS_STATUS : 0);
+        writer.writeByte(MAGIC);
+        writer.writeByte(VERSION);
+        writer.writeByte(flags);
+        if (metaData.getBucketId() != null) {
+            writer.writeVarLong(zigzag(metaData.getBucketId()));
+        }
+        if (id != null) {
+            writer.writeBytes(id);
+        }
+        if (tenant != null) {
+            writer.writeBytes(tenant);
+        }
+        if (metaData.getScheduledAt() != null) {
+            writer.writeVarLong(zigzag(metaData.getScheduledAt()));
+        }
+        if (metaData.getStatus() != null) {
+            writer.writeByte(statusCode);
+            if (statusCode == 0) {
+                writer.writeBytes(status);
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    public static TaskMetaData decode(byte[] data) {
+        Reader reader = new Reader(data);
+        reader.header();
+        int flags = reader.readByte();
+        TaskMetaData metaData = new TaskMetaData();
+        if ((flags & HAS_BUCKET_ID) != 0) {
+            metaData.setBucketId(unzigzag(reader.readVarLong()));
+        }
+        if ((flags & HAS_ID) != 0) {
+            metaData.setId(reader.readString());
+        }
+        if ((flags & HAS_TENANT) != 0) {
+            metaData.setTenant(reader.readString());
+        }
+        if ((flags & HAS_SCHEDULED_AT) != 0) {
+            metaData.setScheduledAt(unzigzag(reader.readVarLong()));
+        }
+        if ((flags & HAS_STATUS) != 0) {
+            int code = reader.readByte();
+            metaData.setStatus(code == 0 ? reader.readString() : statusOf(code));
+        }
+        return metaData;
+    }
+
+    /**
+     * Decode only the routing fields of a record (id, tenant, scheduledAt), skipping the rest
+     */
+    public static ScheduledTaskRef decodeRef(byte[] data) {
+        Reader reader = new Reader(data);
+        reader.header();
+        int flags = reader.readByte();
+        if ((flags & HAS_BUCKET_ID) != 0) {
+            reader.readVarLong();
+        }
+        String id = (flags & HAS_ID) != 0 ? reader.readString() : null;
+        String tenant = (flags & HAS_TENANT) != 0 ? reader.readString() : null;
+        Long scheduledAt = (flags & HAS_SCHEDULED_AT) != 0 ? unzigzag(reader.readVarLong()) : null;
+        return new ScheduledTaskRef(id, tenant, scheduledAt, data, TaskMetaDataWireFormat::decode);
+    }
+
+    static int statusCode(String status) {
+        for (int code = 1; code < STATUS_CODES.length; code++) {
+            if (STATUS_CODES[code].equals(status)) {
+                return code;
+            }
+        }
+        return 0;
+    }
+
+    static String statusOf(int code) {
+        if (code <= 0 || code >= STATUS_CODES.length) {
+            throw new SerializationException("Unknown TaskMetaData status code: " + code);
+        }
+        return STATUS_CODES[code];
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes != null ? bytes.length + 5 : 0;
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private byte[] toByteArray() {
+            return position == buffer.length ? buffer : Arrays.copyOf(buffer, position);
+        }
+    }
+
+    /**
+     * Cursor over an encoded record
+     */
+    static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        void header() {
+            if (!isBinary(data)) {
+                throw new SerializationException("Not a binary TaskMetaData record");
+            }
+            if (data[1] != VERSION) {
+                throw new SerializationException("Unsupported TaskMetaData wire format version: " + data[1]);
+            }
+            position = 2;
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw new SerializationException("Truncated TaskMetaData record");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (shift > 63) {
+                    throw new SerializationException("Malformed varint in TaskMetaData record");
+                }
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > data.length) {
+                throw new SerializationException("Truncated TaskMetaData record");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
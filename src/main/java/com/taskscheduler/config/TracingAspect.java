@@ -1,6 +1,7 @@
 package com.taskscheduler.config;
 
 import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.context.Scope;
@@ -10,20 +11,60 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
 /**
- * Aspect for automatic distributed tracing of service layer methods
+ * Aspect for automatic distributed tracing of service layer methods.
+ *
+ * Everything that does not depend on the call (span name, opt-out, which arguments become
+ * attributes) is resolved once per method and cached. Attributes are only built for spans the
+ * sampler kept, and under an unsampled parent no service span is started at all. Arguments are
+ * recorded only when their parameter name is on tracing.attributes.allowlist and their type is
+ * a scalar, collections contribute their size, and values are cut at max-value-length, so a
+ * Task with its payload or a batch of TaskMetaData is never stringified. Methods marked
+ * {@link Untraced}, or listed in tracing.excluded-methods, are not traced.
  */
 @Aspect
 @Component
 public class TracingAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(TracingAspect.class);
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
     private final Tracer tracer;
+    private final Set<String> attributeAllowlist;
+    private final int maxAttributes;
+    private final int maxValueLength;
+    private final Set<String> excludedMethods;
+    private final Map<Method, MethodTrace> methods = new ConcurrentHashMap<>();
 
-    public TracingAspect(Tracer tracer) {
+    public TracingAspect(Tracer tracer,
+                         @Value("${tracing.attributes.allowlist:id,taskId,tenant,priority,status,jobId,recipient}") String attributeAllowlist,
+                         @Value("${tracing.attributes.max-attributes:8}") int maxAttributes,
+                         @Value("${tracing.attributes.max-value-length:128}") int maxValueLength,
+                         @Value("${tracing.excluded-methods:}") String excludedMethods) {
         this.tracer = tracer;
+        this.attributeAllowlist = parseList(attributeAllowlist);
+        this.maxAttributes = maxAttributes;
+        this.maxValueLength = maxValueLength;
+        this.excludedMethods = parseList(excludedMethods);
     }
 
     /**
@@ -31,37 +72,37 @@ public class TracingAspect {
      */
     @Around("execution(* com.taskscheduler.service..*(..))")
     public Object traceServiceMethods(ProceedingJoinPoint joinPoint) throws Throwable {
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        String className = signature.getDeclaringType().getSimpleName();
-        String methodName = signature.getName();
-        String spanName = className + "." + methodName;
+        MethodTrace trace = methodTrace(joinPoint, "");
+        if (!trace.traced() || isUnsampledChild()) {
+            // Nested calls under an unsampled parent would only produce non-recording spans
+            return joinPoint.proceed();
+        }
 
-        Span span = tracer.spanBuilder(spanName)
+        Span span = tracer.spanBuilder(trace.spanName())
                 .setSpanKind(SpanKind.INTERNAL)
                 .startSpan();
+        boolean recording = span.isRecording();
 
         try (Scope scope = span.makeCurrent()) {
-            // Add method parameters as span attributes
-            Object[] args = joinPoint.getArgs();
-            if (args != null && args.length > 0) {
-                for (int i = 0; i < args.length; i++) {
-                    if (args[i] != null) {
-                        span.setAttribute("arg." + i, args[i].toString());
-                    }
-                }
+            if (recording) {
+                setArgumentAttributes(span, trace, joinPoint.getArgs());
             }
 
             // Execute the method
             Object result = joinPoint.proceed();
-            
-            span.setAttribute("success", true);
+
+            if (recording) {
+                span.setAttribute("success", true);
+            }
             return result;
-            
+
         } catch (Exception e) {
-            span.recordException(e);
-            span.setAttribute("success", false);
-            span.setAttribute("error.message", e.getMessage());
-            logger.error("Error in traced method: {}", spanName, e);
+            if (recording) {
+                span.recordException(e);
+                span.setAttribute("success", false);
+                span.setAttribute("error.message", truncate(String.valueOf(e.getMessage())));
+            }
+            logger.error("Error in traced method: {}", trace.spanName(), e);
             throw e;
         } finally {
             span.end();
@@ -73,33 +114,129 @@ public class TracingAspect {
      */
     @Around("execution(* com.taskscheduler.controller..*(..))")
     public Object traceControllerMethods(ProceedingJoinPoint joinPoint) throws Throwable {
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        String className = signature.getDeclaringType().getSimpleName();
-        String methodName = signature.getName();
-        String spanName = "HTTP " + className + "." + methodName;
+        MethodTrace trace = methodTrace(joinPoint, "HTTP ");
+        if (!trace.traced()) {
+            return joinPoint.proceed();
+        }
 
-        Span span = tracer.spanBuilder(spanName)
+        Span span = tracer.spanBuilder(trace.spanName())
                 .setSpanKind(SpanKind.SERVER)
                 .startSpan();
+        boolean recording = span.isRecording();
 
         try (Scope scope = span.makeCurrent()) {
-            span.setAttribute("component", "controller");
-            span.setAttribute("class", className);
-            span.setAttribute("method", methodName);
+            if (recording) {
+                span.setAttribute("component", "controller");
+                span.setAttribute("class", trace.className());
+                span.setAttribute("method", trace.methodName());
+            }
 
             Object result = joinPoint.proceed();
-            
-            span.setAttribute("http.status_code", 200);
+
+            if (recording) {
+                span.setAttribute("http.status_code", 200);
+            }
             return result;
-            
+
         } catch (Exception e) {
-            span.recordException(e);
-            span.setAttribute("http.status_code", 500);
-            span.setAttribute("error", true);
-            logger.error("Error in controller: {}", spanName, e);
+            if (recording) {
+                span.recordException(e);
+                span.setAttribute("http.status_code", 500);
+                span.setAttribute("error", true);
+            }
+            logger.error("Error in controller: {}", trace.spanName(), e);
             throw e;
         } finally {
             span.end();
         }
     }
+
+    private static boolean isUnsampledChild() {
+        SpanContext parent = Span.current().getSpanContext();
+        return parent.isValid() && !parent.isSampled();
+    }
+
+    private MethodTrace methodTrace(ProceedingJoinPoint joinPoint, String spanPrefix) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodTrace trace = methods.get(method);
+        if (trace == null) {
+            Class<?> targetClass = joinPoint.getTarget() != null
+                    ? AopUtils.getTargetClass(joinPoint.getTarget())
+                    : method.getDeclaringClass();
+            trace = methods.computeIfAbsent(method, m -> resolve(m, targetClass, spanPrefix));
+        }
+        return trace;
+    }
+
+    private MethodTrace resolve(Method method, Class<?> targetClass, String spanPrefix) {
+        Method specific = AopUtils.getMostSpecificMethod(method, targetClass);
+        String className = targetClass.getSimpleName();
+        String methodName = method.getName();
+        boolean traced = !AnnotatedElementUtils.hasAnnotation(specific, Untraced.class)
+                && !AnnotatedElementUtils.hasAnnotation(targetClass, Untraced.class)
+                && !excludedMethods.contains(className)
+                && !excludedMethods.contains(className + "." + methodName);
+
+        List<Integer> indexes = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        String[] names = PARAMETER_NAMES.getParameterNames(specific);
+        Class<?>[] types = specific.getParameterTypes();
+        for (int i = 0; names != null && i < names.length && indexes.size() < maxAttributes; i++) {
+            if (attributeAllowlist.contains(names[i]) && isRecordable(types[i])) {
+                indexes.add(i);
+                keys.add("arg." + names[i]);
+            }
+        }
+        return new MethodTrace(spanPrefix + className + "." + methodName, className, methodName, traced,
+                indexes.stream().mapToInt(Integer::intValue).toArray(), keys.toArray(String[]::new));
+    }
+
+    private void setArgumentAttributes(Span span, MethodTrace trace, Object[] args) {
+        int[] indexes = trace.argIndexes();
+        for (int i = 0; i < indexes.length; i++) {
+            Object arg = args[indexes[i]];
+            if (arg == null) {
+                continue;
+            }
+            String key = trace.argKeys()[i];
+            if (arg instanceof Collection<?> collection) {
+                span.setAttribute(key + ".size", collection.size());
+            } else if (arg instanceof Map<?, ?> map) {
+                span.setAttribute(key + ".size", map.size());
+            } else if (arg instanceof Long || arg instanceof Integer || arg instanceof Short) {
+                span.setAttribute(key, ((Number) arg).longValue());
+            } else if (arg instanceof Boolean bool) {
+                span.setAttribute(key, bool);
+            } else {
+                span.setAttribute(key, truncate(arg.toString()));
+            }
+        }
+    }
+
+    private static boolean isRecordable(Class<?> type) {
+        return type.isPrimitive()
+                || CharSequence.class.isAssignableFrom(type)
+                || Number.class.isAssignableFrom(type)
+                || Boolean.class == type
+                || type.isEnum()
+                || UUID.class == type
+                || Temporal.class.isAssignableFrom(type)
+                || Collection.class.isAssignableFrom(type)
+                || Map.class.isAssignableFrom(type);
+    }
+
+    private String truncate(String value) {
+        return value.length() > maxValueLength ? value.substring(0, maxValueLength) : value;
+    }
+
+    private static Set<String> parseList(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private record MethodTrace(String spanName, String className, String methodName, boolean traced,
+                               int[] argIndexes, String[] argKeys) {
+    }
 }
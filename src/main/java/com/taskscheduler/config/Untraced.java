@@ -0,0 +1,18 @@
+package com.taskscheduler.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opts a service method, or every method of a service class, out of TracingAspect.
+ * Meant for per-task calls on the delivery hot path, where a span per call costs more than
+ * it tells; the enclosing batch-level span still covers them.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Untraced {
+}
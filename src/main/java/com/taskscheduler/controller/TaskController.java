@@ -1,17 +1,37 @@
 package com.taskscheduler.controller;
 
+import com.taskscheduler.dto.BulkTaskJobRequest;
+import com.taskscheduler.dto.BulkTaskJobStatus;
 import com.taskscheduler.dto.CreateTaskRequest;
+import com.taskscheduler.dto.FacetSearchResponse;
+import com.taskscheduler.dto.SchedulingLagResponse;
+import com.taskscheduler.dto.TaskStatsResponse;
 import com.taskscheduler.dto.UpdateTaskRequest;
+import com.taskscheduler.model.RecipientOutcome;
 import com.taskscheduler.model.Task;
+import com.taskscheduler.service.BulkTaskJobService;
+import com.taskscheduler.service.FanOutService;
+import com.taskscheduler.service.SchedulingLagRecorder;
+import com.taskscheduler.service.TaskEventStreamService;
+import com.taskscheduler.service.TaskSearchIndex;
 import com.taskscheduler.service.TaskService;
+import com.taskscheduler.service.TaskStatsAggregator;
 import com.taskscheduler.SchedulerCron.DailyTaskScheduler;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.opentelemetry.api.trace.Span;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.time.Instant;
 import java.util.List;
@@ -28,6 +48,13 @@ public class TaskController {
 
     private final TaskService taskService;
     private final DailyTaskScheduler dailyTaskScheduler;
+    private final TaskEventStreamService taskEventStreamService;
+    private final TaskStatsAggregator taskStatsAggregator;
+    private final TaskSearchIndex taskSearchIndex;
+    private final BulkTaskJobService bulkTaskJobService;
+    private final FanOutService fanOutService;
+    private final SchedulingLagRecorder schedulingLagRecorder;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<Task> createTask(@Valid @RequestBody CreateTaskRequest request) {
@@ -95,12 +122,63 @@ public class TaskController {
         return ResponseEntity.ok(bannerInfo);
     }
 
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskEvents(@RequestParam(required = false) String tenant) {
+        log.info("Opening task event stream, tenant: {}", tenant);
+        return taskEventStreamService.subscribe(tenant);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<TaskStatsResponse> getTaskStats(
+            @RequestParam(required = false) String tenant,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        // Defaults to the last 24 hours
+        Instant end = to != null ? Instant.parse(to) : Instant.now();
+        Instant start = from != null ? Instant.parse(from) : end.minus(java.time.Duration.ofHours(24));
+        return ResponseEntity.ok(taskStatsAggregator.getStats(tenant, start, end));
+    }
+
+    @GetMapping("/lag")
+    public ResponseEntity<SchedulingLagResponse> getSchedulingLag(
+            @RequestParam(required = false) String stage,
+            @RequestParam(required = false) String tenant) {
+        return ResponseEntity.ok(schedulingLagRecorder.report(stage, tenant));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Task> getTask(@PathVariable String id) {
         Task task = taskService.getTask(id);
         return ResponseEntity.ok(task);
     }
 
+    @GetMapping("/{id}/payload")
+    public ResponseEntity<String> getTaskPayload(@PathVariable String id) {
+        String payload = taskService.getTaskPayload(id);
+        if (payload == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(payload);
+    }
+
+    @GetMapping("/{id}/recipients")
+    public ResponseEntity<List<RecipientOutcome>> getRecipientOutcomes(
+            @PathVariable String id,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(fanOutService.getOutcomes(id, status, limit));
+    }
+
+    @PostMapping("/{id}/recipients/{recipient}/outcome")
+    public ResponseEntity<Void> recordRecipientOutcome(
+            @PathVariable String id,
+            @PathVariable String recipient,
+            @RequestParam String status,
+            @RequestParam(required = false) String error) {
+        fanOutService.recordOutcome(id, recipient, status, error);
+        return ResponseEntity.accepted().build();
+    }
+
     @GetMapping("/sorted")
     public ResponseEntity<List<Task>> getTasksSortedByTime() {
         List<Task> tasks = taskService.getAllTasksSortedByTime();
@@ -125,37 +203,112 @@ public class TaskController {
         return ResponseEntity.ok(String.format("Timestamp String: %s%nThis will be stored directly in Cassandra!", timestampId));
     }
     
+    /**
+     * Streams the JSON array as the token range scan reads the table, so the response never
+     * holds the whole table in memory. A failed range aborts the response mid-array.
+     */
     @GetMapping
-    public ResponseEntity<List<Task>> getAllTasks() {
-        log.info("Fetching all tasks");
-        List<Task> tasks = taskService.getAllTasks();
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<StreamingResponseBody> getAllTasks(@RequestParam(required = false) String fields) {
+        log.info("Fetching all tasks, fields: {}", fields);
+        TaskService.TaskRows rows = taskService.getAllTasks(fields);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> {
+                    try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                        json.writeStartArray();
+                        rows.forEach(row -> {
+                            synchronized (json) {
+                                try {
+                                    json.writeObject(row);
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            }
+                        });
+                        json.writeEndArray();
+                    }
+                });
     }
     
     @GetMapping("/search/timerange")
-    public ResponseEntity<List<Task>> searchTasksByTimeRange(
+    public ResponseEntity<List<?>> searchTasksByTimeRange(
             @RequestParam String startDate,
             @RequestParam String endDate,
             @RequestParam(required = false) String priority,
-            @RequestParam(required = false) String tenant) {
-        log.info("Searching tasks by time range: {} to {}, priority: {}, tenant: {}", 
-                startDate, endDate, priority, tenant);
+            @RequestParam(required = false) String tenant,
+            @RequestParam(required = false) String fields) {
+        log.info("Searching tasks by time range: {} to {}, priority: {}, tenant: {}, fields: {}", 
+                startDate, endDate, priority, tenant, fields);
         
         Instant start = Instant.parse(startDate);
         Instant end = Instant.parse(endDate);
         
-        List<Task> tasks = taskService.searchTasksByTimeRange(start, end, priority, tenant);
+        List<?> tasks = taskService.searchTasksByTimeRange(start, end, priority, tenant, fields);
         log.info("Found {} tasks in time range", tasks.size());
         
         return ResponseEntity.ok(tasks);
     }
 
+    /**
+     * Faceted search over the in-memory index. Every request parameter other than
+     * facets and limit is an exact-match filter, e.g. ?priority=HIGH&param.campaign=spring
+     */
+    @GetMapping("/search/facets")
+    public ResponseEntity<FacetSearchResponse> searchTasksByFacets(
+            @RequestParam Map<String, String> params,
+            @RequestParam(required = false) List<String> facets,
+            @RequestParam(defaultValue = "100") int limit) {
+        Map<String, String> filters = new HashMap<>(params);
+        filters.remove("facets");
+        filters.remove("limit");
+        log.info("Faceted task search, filters: {}, facets: {}", filters, facets);
+        
+        FacetSearchResponse response = taskSearchIndex.search(filters, facets != null ? facets : List.of(), limit);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/index/rebuild")
+    public ResponseEntity<Map<String, String>> rebuildSearchIndex() {
+        log.info("Search index rebuild requested");
+        Map<String, String> response = new HashMap<>();
+        if (!taskSearchIndex.startRebuild()) {
+            response.put("status", "running");
+            response.put("message", "Search index rebuild already running");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        response.put("status", "accepted");
+        response.put("message", "Search index rebuild started");
+        return ResponseEntity.accepted().body(response);
+    }
+
     @PostMapping("/{id}/cancel")
     public ResponseEntity<Void> cancelTask(@PathVariable String id) {
         taskService.updateTaskStatus(id, "CANCELLED");
         return ResponseEntity.noContent().build();
     }
     
+    @PostMapping("/jobs")
+    public ResponseEntity<BulkTaskJobStatus> submitBulkJob(@Valid @RequestBody BulkTaskJobRequest request) {
+        log.info("Received bulk {} job for tenant: {}", request.getOperation(), request.getTenant());
+        
+        BulkTaskJobStatus status = bulkTaskJobService.submit(request);
+        
+        return ResponseEntity
+                .accepted()
+                .location(URI.create("/api/tasks/jobs/" + status.getJobId()))
+                .body(status);
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<BulkTaskJobStatus>> listBulkJobs() {
+        return ResponseEntity.ok(bulkTaskJobService.listJobs());
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<BulkTaskJobStatus> getBulkJob(@PathVariable String jobId) {
+        return ResponseEntity.of(bulkTaskJobService.getStatus(jobId));
+    }
+    
     @PostMapping("/scheduler/trigger-daily")
     public ResponseEntity<Map<String, String>> triggerDailyScheduler() {
         log.info("Manual trigger of daily task scheduler requested");
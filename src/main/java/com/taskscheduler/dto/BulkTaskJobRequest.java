@@ -0,0 +1,34 @@
+package com.taskscheduler.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class BulkTaskJobRequest {
+
+    public enum Operation {
+        CANCEL, RESCHEDULE
+    }
+
+    @NotNull(message = "Operation is required")
+    private Operation operation;
+
+    // Filter, only pending (CREATED) tasks of the tenant are affected
+    @NotBlank(message = "Tenant is required")
+    private String tenant;
+    private Long scheduledFrom;   // inclusive, epoch millis
+    private Long scheduledTo;     // exclusive, epoch millis
+    private String priority;
+    private Map<String, String> parameters;
+
+    // RESCHEDULE: either an absolute time or a shift applied to each task's scheduledAt
+    private Long scheduledAt;
+    private Long shiftMs;
+
+    // Throttling, unset values fall back to bulk-jobs.* configuration
+    private Long maxTasksPerSecond;
+    private Integer concurrency;
+}
@@ -0,0 +1,28 @@
+package com.taskscheduler.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class BulkTaskJobStatus {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private String jobId;
+    private BulkTaskJobRequest.Operation operation;
+    private String tenant;
+    private State state;
+    private long scanned;
+    private long matched;
+    // Matches left untouched because they have no scheduledAt
+    private long skipped;
+    private long processed;
+    private long failed;
+    private double tasksPerSecond;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
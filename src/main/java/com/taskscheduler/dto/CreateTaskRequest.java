@@ -1,5 +1,6 @@
 package com.taskscheduler.dto;
 
+import java.util.List;
 import java.util.Map;
 
 import jakarta.validation.constraints.*;
@@ -33,4 +34,7 @@ public class CreateTaskRequest {
     private String status;
 
     private Integer updateCount;
+
+    // Non-empty makes this a fan-out task: the payload is a template delivered once per recipient
+    private List<String> recipients;
 }
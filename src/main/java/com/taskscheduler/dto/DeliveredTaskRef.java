@@ -0,0 +1,39 @@
+package com.taskscheduler.dto;
+
+import com.taskscheduler.model.Task;
+import lombok.Data;
+
+/**
+ * Claim-check record published to delivered-tasks in place of a task with a large payload.
+ * Consumers fetch the payload from {@link #payloadRef} when they need it.
+ */
+@Data
+public class DeliveredTaskRef {
+    private String id;
+    private String tenant;
+    private Long scheduledAt;
+    private String priority;
+    private String createdBy;
+    private String assignedTo;
+    private String status;
+    private String payloadRef;
+    // UTF-8 bytes of the payload
+    private int payloadSize;
+
+    /**
+     * @param payloadOwnerId task whose payload the delivery carries, the template task for fan-out deliveries
+     */
+    public static DeliveredTaskRef of(Task task, String payloadOwnerId, int payloadSize) {
+        DeliveredTaskRef ref = new DeliveredTaskRef();
+        ref.setId(task.getId());
+        ref.setTenant(task.getTenant());
+        ref.setScheduledAt(task.getScheduledAt());
+        ref.setPriority(task.getPriority());
+        ref.setCreatedBy(task.getCreatedBy());
+        ref.setAssignedTo(task.getAssignedTo());
+        ref.setStatus(task.getStatus());
+        ref.setPayloadRef("/api/tasks/" + payloadOwnerId + "/payload");
+        ref.setPayloadSize(payloadSize);
+        return ref;
+    }
+}
@@ -0,0 +1,30 @@
+package com.taskscheduler.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.taskscheduler.model.Task;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One delivered-tasks record carrying several deliveries for the same tenant.
+ * Tasks delivered inline go in {@link #tasks}, claim-check deliveries in {@link #refs}.
+ * {@link #headers} holds, by delivery id, the headers a delivery sent on its own carries as
+ * Kafka record headers (the x-*-at stage timestamps).
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class DeliveryEnvelope {
+    private String tenant;
+    private long createdAt;
+    private List<Task> tasks = new ArrayList<>();
+    private List<DeliveredTaskRef> refs = new ArrayList<>();
+    private Map<String, Map<String, String>> headers = new LinkedHashMap<>();
+
+    public int size() {
+        return tasks.size() + refs.size();
+    }
+}
@@ -0,0 +1,15 @@
+package com.taskscheduler.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class FacetSearchResponse {
+    // Number of tasks matching all filters, ids may be truncated to the requested limit
+    private int total;
+    private List<String> ids;
+    // facet field -> value -> number of matching tasks
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,45 @@
+package com.taskscheduler.dto;
+
+import com.taskscheduler.model.TaskMetaData;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.function.Function;
+
+/**
+ * Routing view of a scheduled-tasks record: only the id, tenant and scheduledAt are decoded up front.
+ * The full {@link TaskMetaData} is decoded from the retained record bytes on first use.
+ */
+@Getter
+public class ScheduledTaskRef {
+
+    private final String id;
+    private final String tenant;
+    private final Long scheduledAt;
+    private final byte[] raw;
+    private final Function<byte[], TaskMetaData> decoder;
+    private TaskMetaData metaData;
+
+    // Stage timestamps (epoch millis) for scheduling lag, set as the record moves through the listener
+    @Setter
+    private long firedAt;
+    @Setter
+    private long consumedAt;
+    @Setter
+    private long fetchedAt;
+
+    public ScheduledTaskRef(String id, String tenant, Long scheduledAt, byte[] raw, Function<byte[], TaskMetaData> decoder) {
+        this.id = id;
+        this.tenant = tenant;
+        this.scheduledAt = scheduledAt;
+        this.raw = raw;
+        this.decoder = decoder;
+    }
+
+    public TaskMetaData materialize() {
+        if (metaData == null) {
+            metaData = decoder.apply(raw);
+        }
+        return metaData;
+    }
+}
@@ -0,0 +1,34 @@
+package com.taskscheduler.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SchedulingLagResponse {
+    private long windowMs;
+    private List<StageLag> stages;
+
+    @Data
+    public static class StageLag {
+        private String stage;
+        private String tenant;
+        // Last completed window and everything since startup
+        private Percentiles window;
+        private Percentiles total;
+    }
+
+    /**
+     * Lag percentiles in milliseconds
+     */
+    @Data
+    public static class Percentiles {
+        private long count;
+        private double mean;
+        private long p50;
+        private long p90;
+        private long p99;
+        private long p999;
+        private long max;
+    }
+}
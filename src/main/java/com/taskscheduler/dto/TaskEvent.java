@@ -0,0 +1,50 @@
+package com.taskscheduler.dto;
+
+import com.taskscheduler.model.Task;
+import com.taskscheduler.model.TaskSummary;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Task lifecycle change published on the internal event bus and pushed to stream clients
+ */
+@Data
+public class TaskEvent {
+
+    public enum Type {
+        CREATED, RESCHEDULED, DELIVERED, CANCELLED
+    }
+
+    private Type type;
+    private String taskId;
+    private String tenant;
+    private String status;
+    private String priority;
+    private Long scheduledAt;
+    private Instant timestamp;
+
+    public static TaskEvent of(Type type, Task task) {
+        TaskEvent event = new TaskEvent();
+        event.setType(type);
+        event.setTaskId(task.getId());
+        event.setTenant(task.getTenant());
+        event.setStatus(task.getStatus());
+        event.setPriority(task.getPriority());
+        event.setScheduledAt(task.getScheduledAt());
+        event.setTimestamp(Instant.now());
+        return event;
+    }
+
+    public static TaskEvent of(Type type, TaskSummary task) {
+        TaskEvent event = new TaskEvent();
+        event.setType(type);
+        event.setTaskId(task.getId());
+        event.setTenant(task.getTenant());
+        event.setStatus(task.getStatus());
+        event.setPriority(task.getPriority());
+        event.setScheduledAt(task.getScheduledAt());
+        event.setTimestamp(Instant.now());
+        return event;
+    }
+}
@@ -0,0 +1,20 @@
+package com.taskscheduler.dto;
+
+import com.taskscheduler.model.TaskStats;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class TaskStatsResponse {
+    private String tenant;
+    private Instant from;
+    private Instant to;
+    // Lifecycle event counts per event type (CREATED, RESCHEDULED, DELIVERED, CANCELLED) over the range
+    private Map<String, Long> totals;
+    // CREATED - DELIVERED - CANCELLED events in the range; not a count of tasks currently pending
+    private long pendingEstimate;
+    private List<TaskStats> buckets;
+}
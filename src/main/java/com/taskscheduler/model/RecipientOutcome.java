@@ -0,0 +1,36 @@
+package com.taskscheduler.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.Instant;
+
+/**
+ * Outcome of one recipient of a fan-out task: DISPATCHED when the broker acked the delivery,
+ * FAILED when publishing failed, or whatever the consumer reports back (e.g. DELIVERED).
+ * CREATE TABLE task_recipient_outcomes (task_id text, recipient text, status text,
+ *     error text, updated_at timestamp, PRIMARY KEY ((task_id), recipient));
+ */
+@Data
+@Table("task_recipient_outcomes")
+public class RecipientOutcome {
+    @PrimaryKeyColumn(name = "task_id", type = PrimaryKeyType.PARTITIONED)
+    private String taskId;
+
+    @PrimaryKeyColumn(name = "recipient", type = PrimaryKeyType.CLUSTERED, ordinal = 0)
+    private String recipient;
+
+    @Column("status")
+    private String status;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Column("error")
+    private String error;
+
+    @Column("updated_at")
+    private Instant updatedAt;
+}
@@ -0,0 +1,33 @@
+package com.taskscheduler.model;
+
+import lombok.Data;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.Instant;
+
+/**
+ * Completed token range of a named full-table scan, used to resume an interrupted scan.
+ * CREATE TABLE scan_checkpoints (scan_id text, range_start text, range_end text,
+ *     rows_scanned bigint, completed_at timestamp, PRIMARY KEY ((scan_id), range_start));
+ */
+@Data
+@Table("scan_checkpoints")
+public class ScanCheckpoint {
+    @PrimaryKeyColumn(name = "scan_id", type = PrimaryKeyType.PARTITIONED)
+    private String scanId;
+
+    @PrimaryKeyColumn(name = "range_start", type = PrimaryKeyType.CLUSTERED, ordinal = 0)
+    private String rangeStart;
+
+    @Column("range_end")
+    private String rangeEnd;
+
+    @Column("rows_scanned")
+    private long rowsScanned;
+
+    @Column("completed_at")
+    private Instant completedAt;
+}
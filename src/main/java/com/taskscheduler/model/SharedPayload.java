@@ -0,0 +1,35 @@
+package com.taskscheduler.model;
+
+import lombok.Data;
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKey;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Payload shared by every task whose payload text hashes to {@link #hash}.
+ * Rows are written with a TTL that covers the latest referencing task, expires_at mirrors it.
+ * CREATE TABLE shared_payloads (hash text PRIMARY KEY, payload text, payload_codec text,
+ *     payload_data blob, expires_at bigint);
+ */
+@Data
+@Table("shared_payloads")
+public class SharedPayload {
+    @PrimaryKey
+    @Column("hash")
+    private String hash;
+
+    @Column("payload")
+    private String payload;
+
+    @Column("payload_codec")
+    private String payloadCodec;
+
+    @Column("payload_data")
+    private ByteBuffer payloadData;
+
+    // Epoch millis when the row's TTL runs out
+    @Column("expires_at")
+    private Long expiresAt;
+}
@@ -1,7 +1,9 @@
 package com.taskscheduler.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.Map;
 
@@ -22,6 +24,30 @@ public class Task {
     @Column("payload")
     private String payload;
     
+    // Set instead of payload when the payload is stored compressed (blob + codec name)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Column("payload_codec")
+    private String payloadCodec;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Column("payload_data")
+    private ByteBuffer payloadData;
+    
+    // Set instead of payload when the payload lives in shared_payloads (SHA-256 of the payload text)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Column("payload_hash")
+    private String payloadHash;
+    
+    // FANOUT for a template delivered once per entry in task_recipients, null for plain tasks
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Column("task_type")
+    private String taskType;
+    
+    // Null for plain tasks and for rows written before the column existed
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Column("recipient_count")
+    private Integer recipientCount;
+    
     @Column("scheduled_at")
     private Long scheduledAt;
     
@@ -0,0 +1,38 @@
+package com.taskscheduler.model;
+
+import lombok.Data;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.util.UUID;
+
+/**
+ * Timer registration waiting to be relayed to task-requests, written in the same logged batch
+ * as its task row. Rows are spread over a fixed number of shards and ordered by a timeuuid
+ * within each shard.
+ * CREATE TABLE task_outbox (shard int, seq timeuuid, task_id text, tenant text,
+ *     scheduled_at bigint, status text, PRIMARY KEY ((shard), seq));
+ */
+@Data
+@Table("task_outbox")
+public class TaskOutbox {
+    @PrimaryKeyColumn(name = "shard", type = PrimaryKeyType.PARTITIONED)
+    private int shard;
+
+    @PrimaryKeyColumn(name = "seq", type = PrimaryKeyType.CLUSTERED, ordinal = 0)
+    private UUID seq;
+
+    @Column("task_id")
+    private String taskId;
+
+    @Column("tenant")
+    private String tenant;
+
+    @Column("scheduled_at")
+    private Long scheduledAt;
+
+    @Column("status")
+    private String status;
+}
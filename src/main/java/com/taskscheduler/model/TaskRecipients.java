@@ -0,0 +1,27 @@
+package com.taskscheduler.model;
+
+import lombok.Data;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.util.List;
+
+/**
+ * One chunk of the recipient list of a fan-out task, chunks are numbered from 0.
+ * CREATE TABLE task_recipients (task_id text, chunk int, recipients list<text>,
+ *     PRIMARY KEY ((task_id), chunk));
+ */
+@Data
+@Table("task_recipients")
+public class TaskRecipients {
+    @PrimaryKeyColumn(name = "task_id", type = PrimaryKeyType.PARTITIONED)
+    private String taskId;
+
+    @PrimaryKeyColumn(name = "chunk", type = PrimaryKeyType.CLUSTERED, ordinal = 0)
+    private int chunk;
+
+    @Column("recipients")
+    private List<String> recipients;
+}
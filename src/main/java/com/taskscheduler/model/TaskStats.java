@@ -0,0 +1,30 @@
+package com.taskscheduler.model;
+
+import lombok.Data;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+/**
+ * Hourly rollup of task lifecycle events per tenant and event type (stored in the status column).
+ * CREATE TABLE task_stats (tenant text, hour_bucket bigint, status text, task_count counter,
+ *     PRIMARY KEY ((tenant), hour_bucket, status));
+ */
+@Data
+@Table("task_stats")
+public class TaskStats {
+    @PrimaryKeyColumn(name = "tenant", type = PrimaryKeyType.PARTITIONED)
+    private String tenant;
+
+    // Epoch millis of the start of the hour
+    @PrimaryKeyColumn(name = "hour_bucket", type = PrimaryKeyType.CLUSTERED, ordinal = 0)
+    private Long hourBucket;
+
+    // Lifecycle event type: CREATED, RESCHEDULED, DELIVERED or CANCELLED
+    @PrimaryKeyColumn(name = "status", type = PrimaryKeyType.CLUSTERED, ordinal = 1)
+    private String eventType;
+
+    @Column("task_count")
+    private Long taskCount;
+}
@@ -0,0 +1,50 @@
+package com.taskscheduler.model;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKey;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+/**
+ * Read-only projection of the tasks table carrying only the summary columns
+ * shown by the task list and search views (no payload, no parameters)
+ */
+@Data
+@Table("tasks")
+public class TaskSummary {
+    @PrimaryKey
+    @Column("id")
+    private String id;
+
+    @Column("tenant")
+    private String tenant;
+
+    @Column("scheduled_at")
+    private Long scheduledAt;
+
+    @Column("created_at")
+    private Instant createdAt;
+
+    @Column("updated_at")
+    private Instant updatedAt;
+
+    @Column("created_by")
+    private String createdBy;
+
+    @Column("assigned_to")
+    private String assignedTo;
+
+    private String priority;  // HIGH, MEDIUM, LOW
+
+    @Column("current_retries")
+    private int currentRetries;
+
+    @Column("max_retries")
+    private int maxRetries;
+
+    @Column("status")
+    private String status;
+}
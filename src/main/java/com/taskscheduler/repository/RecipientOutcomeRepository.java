@@ -0,0 +1,27 @@
+package com.taskscheduler.repository;
+
+import com.taskscheduler.model.RecipientOutcome;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.data.cassandra.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RecipientOutcomeRepository extends CassandraRepository<RecipientOutcome, MapId> {
+
+    @Query("SELECT * FROM task_recipient_outcomes WHERE task_id = ?0 LIMIT ?1")
+    List<RecipientOutcome> findByTaskId(String taskId, int limit);
+
+    // Filtering stays inside a single partition
+    @Query("SELECT * FROM task_recipient_outcomes WHERE task_id = ?0 AND status = ?1 LIMIT ?2 ALLOW FILTERING")
+    List<RecipientOutcome> findByTaskIdAndStatus(String taskId, String status, int limit);
+
+    @Query("SELECT * FROM task_recipient_outcomes WHERE task_id = ?0 AND recipient IN ?1")
+    List<RecipientOutcome> findByTaskIdAndRecipientIn(String taskId, List<String> recipients);
+
+    @Query("UPDATE task_recipient_outcomes SET status = ?2, error = ?3, updated_at = ?4 WHERE task_id = ?0 AND recipient = ?1")
+    void updateOutcome(String taskId, String recipient, String status, String error, Instant updatedAt);
+}
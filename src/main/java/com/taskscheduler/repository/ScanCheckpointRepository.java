@@ -0,0 +1,19 @@
+package com.taskscheduler.repository;
+
+import com.taskscheduler.model.ScanCheckpoint;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.data.cassandra.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ScanCheckpointRepository extends CassandraRepository<ScanCheckpoint, MapId> {
+
+    @Query("SELECT * FROM scan_checkpoints WHERE scan_id = ?0")
+    List<ScanCheckpoint> findByScanId(String scanId);
+
+    @Query("DELETE FROM scan_checkpoints WHERE scan_id = ?0")
+    void deleteByScanId(String scanId);
+}
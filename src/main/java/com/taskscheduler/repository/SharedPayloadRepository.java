@@ -0,0 +1,16 @@
+package com.taskscheduler.repository;
+
+import com.taskscheduler.model.SharedPayload;
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.data.cassandra.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+
+@Repository
+public interface SharedPayloadRepository extends CassandraRepository<SharedPayload, String> {
+
+    // Rewriting the row with a later expiry extends the TTL of every column
+    @Query("INSERT INTO shared_payloads (hash, payload, payload_codec, payload_data, expires_at) VALUES (?0, ?1, ?2, ?3, ?4) USING TTL ?5")
+    void insertWithTtl(String hash, String payload, String payloadCodec, ByteBuffer payloadData, long expiresAt, int ttlSeconds);
+}
@@ -0,0 +1,22 @@
+package com.taskscheduler.repository;
+
+import com.taskscheduler.model.TaskOutbox;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.data.cassandra.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TaskOutboxRepository extends CassandraRepository<TaskOutbox, MapId> {
+
+    // Oldest rows of a shard first, only those written before the given timeuuid
+    @Query("SELECT * FROM task_outbox WHERE shard = ?0 AND seq < ?1 LIMIT ?2")
+    List<TaskOutbox> findOldest(int shard, UUID before, int limit);
+
+    // Single range tombstone for the relayed prefix of a shard
+    @Query("DELETE FROM task_outbox WHERE shard = ?0 AND seq <= ?1")
+    void deleteUpTo(int shard, UUID seq);
+}
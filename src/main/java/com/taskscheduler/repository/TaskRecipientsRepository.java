@@ -0,0 +1,17 @@
+package com.taskscheduler.repository;
+
+import com.taskscheduler.model.TaskRecipients;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.data.cassandra.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TaskRecipientsRepository extends CassandraRepository<TaskRecipients, MapId> {
+
+    @Query("SELECT * FROM task_recipients WHERE task_id = ?0 AND chunk = ?1")
+    TaskRecipients findChunk(String taskId, int chunk);
+
+    @Query("DELETE FROM task_recipients WHERE task_id = ?0")
+    void deleteByTaskId(String taskId);
+}
@@ -19,6 +19,12 @@ public interface TaskRepository extends CassandraRepository<Task, String> {
     
     @Query("UPDATE tasks SET status = ?1, updated_at = ?2 WHERE id = ?0")
     void updateStatus(String taskId, String status, Instant updatedAt);
+
+    @Query("UPDATE tasks SET execution_result = ?1, updated_at = ?2 WHERE id = ?0")
+    void updateExecutionResult(String taskId, String executionResult, Instant updatedAt);
+    
+    @Query("UPDATE tasks SET scheduled_at = ?1, updated_at = ?2 WHERE id = ?0")
+    void updateScheduledAt(String taskId, Long scheduledAt, Instant updatedAt);
     
     @Query("UPDATE tasks SET next_execution_time = ?1, updated_at = ?2 WHERE id = ?0")
     void updateNextExecutionTime(String taskId, Instant nextExecutionTime, Instant updatedAt);
@@ -0,0 +1,25 @@
+package com.taskscheduler.repository;
+
+import com.taskscheduler.model.TaskStats;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.data.cassandra.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskStatsRepository extends CassandraRepository<TaskStats, MapId> {
+
+    // Counter columns can only be changed through increments
+    @Query("UPDATE task_stats SET task_count = task_count + ?3 WHERE tenant = ?0 AND hour_bucket = ?1 AND status = ?2")
+    void incrementCount(String tenant, long hourBucket, String status, long delta);
+
+    // Single partition slice over the requested hours
+    @Query("SELECT * FROM task_stats WHERE tenant = ?0 AND hour_bucket >= ?1 AND hour_bucket < ?2")
+    List<TaskStats> findByTenantAndHourRange(String tenant, long fromHour, long toHour);
+
+    // Touches one row per (tenant, hour, status), never individual tasks
+    @Query("SELECT * FROM task_stats WHERE hour_bucket >= ?0 AND hour_bucket < ?1 ALLOW FILTERING")
+    List<TaskStats> findByHourRange(long fromHour, long toHour);
+}
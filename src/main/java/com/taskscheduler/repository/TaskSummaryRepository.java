@@ -0,0 +1,36 @@
+package com.taskscheduler.repository;
+
+import com.taskscheduler.model.TaskSummary;
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.data.cassandra.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TaskSummaryRepository extends CassandraRepository<TaskSummary, String> {
+
+    // Only the summary columns are selected so payload and parameters never leave Cassandra
+    String SUMMARY_COLUMNS = "id, tenant, scheduled_at, created_at, updated_at, created_by, assigned_to, "
+            + "priority, current_retries, max_retries, status";
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE id = ?0")
+    TaskSummary findSummaryById(String id);
+
+    // Just enough to route fired timers to their priority lane
+    @Query("SELECT id, priority FROM tasks WHERE id IN ?0")
+    List<TaskSummary> findPrioritiesByIdIn(List<String> ids);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE created_at >= ?0 AND created_at <= ?1 ALLOW FILTERING")
+    List<TaskSummary> findByCreatedAtBetween(Instant startDate, Instant endDate);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE created_at >= ?0 AND created_at <= ?1 AND priority = ?2 ALLOW FILTERING")
+    List<TaskSummary> findByCreatedAtBetweenAndPriority(Instant startDate, Instant endDate, String priority);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE created_at >= ?0 AND created_at <= ?1 AND tenant = ?2 ALLOW FILTERING")
+    List<TaskSummary> findByCreatedAtBetweenAndTenant(Instant startDate, Instant endDate, String tenant);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE created_at >= ?0 AND created_at <= ?1 AND priority = ?2 AND tenant = ?3 ALLOW FILTERING")
+    List<TaskSummary> findByCreatedAtBetweenAndPriorityAndTenant(Instant startDate, Instant endDate, String priority, String tenant);
+}
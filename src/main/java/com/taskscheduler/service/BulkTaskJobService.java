@@ -0,0 +1,360 @@
+package com.taskscheduler.service;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.taskscheduler.dto.BulkTaskJobRequest;
+import com.taskscheduler.dto.BulkTaskJobStatus;
+import com.taskscheduler.dto.TaskEvent;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.model.TaskMetaData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs cancel and reschedule operations over every pending task matching a filter as a
+ * background job. Candidates come from a parallel token range scan; matches are processed
+ * in batches with pipelined status writes, tasksmetadata writes grouped into single-partition
+ * batches per day bucket, and the timers of rescheduled tasks sent to task-requests in bulk.
+ * Like a single cancel, a bulk cancel only changes the status: a timer that is already set still
+ * fires and the listener skips the task. Tasks without a scheduledAt are counted as skipped.
+ * A reschedule extends the TTL of the shared payloads its tasks reference to the new due times.
+ */
+@Slf4j
+@Service
+public class BulkTaskJobService {
+
+    private static final String FILTER_COLUMNS = "id, tenant, scheduled_at, priority, status, parameters, payload_hash";
+    private static final int MAX_RETAINED_JOBS = 100;
+
+    private final TokenRangeScanner tokenRangeScanner;
+    private final CqlSession session;
+    private final CassandraOperations cassandraOperations;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TaskEventBus taskEventBus;
+    private final SharedPayloadStore sharedPayloadStore;
+    private final String taskRequestsTopic;
+    private final int batchSize;
+    private final long defaultMaxTasksPerSecond;
+    private final int defaultConcurrency;
+    private final ExecutorService executor;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private volatile PreparedStatement cancelStatement;
+    private volatile PreparedStatement rescheduleStatement;
+
+    public BulkTaskJobService(TokenRangeScanner tokenRangeScanner,
+                              CqlSession session,
+                              CassandraOperations cassandraOperations,
+                              KafkaTemplate<String, Object> kafkaTemplate,
+                              TaskEventBus taskEventBus,
+                              SharedPayloadStore sharedPayloadStore,
+                              @Value("${kafka.topics.task-requests}") String taskRequestsTopic,
+                              @Value("${bulk-jobs.batch-size:200}") int batchSize,
+                              @Value("${bulk-jobs.max-tasks-per-second:2000}") long defaultMaxTasksPerSecond,
+                              @Value("${bulk-jobs.concurrency:4}") int defaultConcurrency,
+                              @Qualifier("bulkTaskJobExecutor") ExecutorService executor) {
+        this.tokenRangeScanner = tokenRangeScanner;
+        this.session = session;
+        this.cassandraOperations = cassandraOperations;
+        this.kafkaTemplate = kafkaTemplate;
+        this.taskEventBus = taskEventBus;
+        this.sharedPayloadStore = sharedPayloadStore;
+        this.taskRequestsTopic = taskRequestsTopic;
+        this.batchSize = batchSize;
+        this.defaultMaxTasksPerSecond = defaultMaxTasksPerSecond;
+        this.defaultConcurrency = defaultConcurrency;
+        this.executor = executor;
+    }
+
+    public BulkTaskJobStatus submit(BulkTaskJobRequest request) {
+        if (request.getOperation() == BulkTaskJobRequest.Operation.RESCHEDULE
+                && (request.getScheduledAt() == null) == (request.getShiftMs() == null)) {
+            throw new IllegalArgumentException("Bad Request: RESCHEDULE needs exactly one of scheduledAt or shiftMs");
+        }
+        Job job = new Job(UUID.randomUUID().toString(), request);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            // Drop the oldest finished jobs beyond the retention limit
+            jobs.values().removeIf(j -> jobs.size() > MAX_RETAINED_JOBS && j.isFinished());
+        }
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            synchronized (jobs) {
+                jobs.remove(job.id);
+            }
+            throw new RejectedExecutionException("Too many bulk jobs running or queued, retry later", e);
+        }
+        log.info("Submitted bulk {} job {} for tenant {}", request.getOperation(), job.id, request.getTenant());
+        return job.status();
+    }
+
+    public Optional<BulkTaskJobStatus> getStatus(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+        }
+    }
+
+    public List<BulkTaskJobStatus> listJobs() {
+        synchronized (jobs) {
+            return jobs.values().stream().map(Job::status).toList();
+        }
+    }
+
+    private void run(Job job) {
+        BulkTaskJobRequest request = job.request;
+        job.state = BulkTaskJobStatus.State.RUNNING;
+        job.startedAt = Instant.now();
+        try {
+            PacingThrottle throttle = new PacingThrottle(request.getMaxTasksPerSecond() != null
+                    ? request.getMaxTasksPerSecond() : defaultMaxTasksPerSecond);
+            TokenRangeScanner.ScanOptions options = TokenRangeScanner.ScanOptions.of("tasks", FILTER_COLUMNS);
+            options.setConcurrency(request.getConcurrency() != null ? request.getConcurrency() : defaultConcurrency);
+
+            TokenRangeScanner.ScanResult result = tokenRangeScanner.scan(options, Task.class, task -> {
+                job.scanned.incrementAndGet();
+                if (!matches(task, request)) {
+                    return;
+                }
+                if (task.getScheduledAt() == null) {
+                    // Neither shiftable nor placeable in a tasksmetadata bucket
+                    job.skipped.incrementAndGet();
+                    return;
+                }
+                job.matched.incrementAndGet();
+                List<Task> batch = job.add(task, batchSize);
+                if (batch != null) {
+                    process(job, batch, throttle);
+                }
+            });
+            List<Task> remaining = job.drain();
+            if (!remaining.isEmpty()) {
+                process(job, remaining, throttle);
+            }
+            if (result.getFailedRanges() > 0) {
+                throw new IllegalStateException(result.getFailedRanges() + " token ranges could not be scanned");
+            }
+            job.state = BulkTaskJobStatus.State.COMPLETED;
+        } catch (Exception e) {
+            job.state = BulkTaskJobStatus.State.FAILED;
+            job.error = e.getMessage();
+            log.error("Bulk job {} failed: {}", job.id, e.getMessage(), e);
+        } finally {
+            job.finishedAt = Instant.now();
+            log.info("Bulk job {} finished: {}", job.id, job.status());
+        }
+    }
+
+    private static boolean matches(Task task, BulkTaskJobRequest request) {
+        if (!"CREATED".equals(task.getStatus()) || !request.getTenant().equals(task.getTenant())) {
+            return false;
+        }
+        Long scheduledAt = task.getScheduledAt();
+        if (request.getScheduledFrom() != null && (scheduledAt == null || scheduledAt < request.getScheduledFrom())) {
+            return false;
+        }
+        if (request.getScheduledTo() != null && (scheduledAt == null || scheduledAt >= request.getScheduledTo())) {
+            return false;
+        }
+        if (request.getPriority() != null && !request.getPriority().equals(task.getPriority())) {
+            return false;
+        }
+        if (request.getParameters() != null) {
+            Map<String, String> parameters = task.getParameters() != null ? task.getParameters() : Map.of();
+            for (Map.Entry<String, String> match : request.getParameters().entrySet()) {
+                if (!match.getValue().equals(parameters.get(match.getKey()))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void process(Job job, List<Task> batch, PacingThrottle throttle) {
+        throttle.acquire(batch.size());
+        boolean cancel = job.request.getOperation() == BulkTaskJobRequest.Operation.CANCEL;
+        Instant now = Instant.now();
+
+        // Far-future tasks live in tasksmetadata, grouped by day bucket (partition)
+        Map<Long, List<TaskMetaData>> staleMetaData = new HashMap<>();
+        Map<Long, List<TaskMetaData>> newMetaData = new HashMap<>();
+        List<CompletionStage<AsyncResultSet>> writes = new ArrayList<>(batch.size());
+        List<CompletableFuture<?>> timers = new ArrayList<>();
+        if (!cancel) {
+            extendSharedPayloads(job, batch);
+        }
+
+        for (Task task : batch) {
+            Long previous = task.getScheduledAt();
+            if (!TaskService.isWithinTimerHorizon(previous)) {
+                staleMetaData.computeIfAbsent(TaskService.bucketIdFor(previous), b -> new ArrayList<>())
+                        .add(metaData(task, TaskService.bucketIdFor(previous)));
+            }
+            if (cancel) {
+                task.setStatus("CANCELLED");
+                writes.add(session.executeAsync(cancelStatement().bind("CANCELLED", now, task.getId())));
+            } else {
+                Long scheduledAt = rescheduledAt(job, previous);
+                task.setScheduledAt(scheduledAt);
+                writes.add(session.executeAsync(rescheduleStatement().bind(scheduledAt, now, task.getId())));
+                if (!TaskService.isWithinTimerHorizon(scheduledAt)) {
+                    newMetaData.computeIfAbsent(TaskService.bucketIdFor(scheduledAt), b -> new ArrayList<>())
+                            .add(metaData(task, TaskService.bucketIdFor(scheduledAt)));
+                    continue;
+                }
+            }
+            if (!cancel) {
+                // Within the horizon: a timer for the new time; the old one fires and is skipped
+                timers.add(kafkaTemplate.send(taskRequestsTopic, task.getId(), metaData(task, null)));
+            }
+        }
+
+        long failed = 0;
+        for (CompletionStage<AsyncResultSet> write : writes) {
+            try {
+                write.toCompletableFuture().join();
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        staleMetaData.values().forEach(rows -> cassandraOperations.batchOps(DefaultBatchType.UNLOGGED).delete(rows).execute());
+        newMetaData.values().forEach(rows -> cassandraOperations.batchOps(DefaultBatchType.UNLOGGED).insert(rows).execute());
+        kafkaTemplate.flush();
+        try {
+            CompletableFuture.allOf(timers.toArray(new CompletableFuture[0])).join();
+        } catch (Exception e) {
+            log.warn("Bulk job {}: some timer registrations failed: {}", job.id, e.getMessage());
+        }
+
+        TaskEvent.Type type = cancel ? TaskEvent.Type.CANCELLED : TaskEvent.Type.RESCHEDULED;
+        batch.forEach(task -> taskEventBus.publish(TaskEvent.of(type, task)));
+        job.processed.addAndGet(batch.size() - failed);
+        job.failed.addAndGet(failed);
+    }
+
+    private static Long rescheduledAt(Job job, Long previous) {
+        return job.request.getScheduledAt() != null ? job.request.getScheduledAt() : previous + job.request.getShiftMs();
+    }
+
+    /**
+     * Shared payload rows only live until retention after the due time they were written for;
+     * extend each one once per batch to the latest new due time among its tasks, before the
+     * tasks are moved
+     */
+    private void extendSharedPayloads(Job job, List<Task> batch) {
+        Map<String, Long> latestByHash = new HashMap<>();
+        for (Task task : batch) {
+            if (task.getPayloadHash() != null) {
+                latestByHash.merge(task.getPayloadHash(), rescheduledAt(job, task.getScheduledAt()), Math::max);
+            }
+        }
+        latestByHash.forEach((hash, scheduledAt) -> {
+            if (!sharedPayloadStore.extend(hash, scheduledAt)) {
+                log.warn("Bulk job {}: shared payload {} has already expired, its tasks will fail delivery", job.id, hash);
+            }
+        });
+    }
+
+    private static TaskMetaData metaData(Task task, Long bucketId) {
+        TaskMetaData taskMetaData = new TaskMetaData();
+        taskMetaData.setBucketId(bucketId);
+        taskMetaData.setId(task.getId());
+        taskMetaData.setTenant(task.getTenant());
+        taskMetaData.setScheduledAt(task.getScheduledAt());
+        taskMetaData.setStatus(task.getStatus());
+        return taskMetaData;
+    }
+
+    private PreparedStatement cancelStatement() {
+        if (cancelStatement == null) {
+            cancelStatement = session.prepare("UPDATE tasks SET status = ?, updated_at = ? WHERE id = ?");
+        }
+        return cancelStatement;
+    }
+
+    private PreparedStatement rescheduleStatement() {
+        if (rescheduleStatement == null) {
+            rescheduleStatement = session.prepare("UPDATE tasks SET scheduled_at = ?, updated_at = ? WHERE id = ?");
+        }
+        return rescheduleStatement;
+    }
+
+    private static final class Job {
+        private final String id;
+        private final BulkTaskJobRequest request;
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong matched = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<Task> buffer = new ArrayList<>();
+        private volatile BulkTaskJobStatus.State state = BulkTaskJobStatus.State.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Job(String id, BulkTaskJobRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+
+        /**
+         * Buffer a match, returning a full batch to process once batch size is reached
+         */
+        private synchronized List<Task> add(Task task, int batchSize) {
+            buffer.add(task);
+            return buffer.size() >= batchSize ? drain() : null;
+        }
+
+        private synchronized List<Task> drain() {
+            List<Task> batch = new ArrayList<>(buffer);
+            buffer.clear();
+            return batch;
+        }
+
+        private boolean isFinished() {
+            return state == BulkTaskJobStatus.State.COMPLETED || state == BulkTaskJobStatus.State.FAILED;
+        }
+
+        private BulkTaskJobStatus status() {
+            BulkTaskJobStatus status = new BulkTaskJobStatus();
+            status.setJobId(id);
+            status.setOperation(request.getOperation());
+            status.setTenant(request.getTenant());
+            status.setState(state);
+            status.setScanned(scanned.get());
+            status.setMatched(matched.get());
+            status.setSkipped(skipped.get());
+            status.setProcessed(processed.get());
+            status.setFailed(failed.get());
+            status.setStartedAt(startedAt);
+            status.setFinishedAt(finishedAt);
+            status.setError(error);
+            if (startedAt != null) {
+                Instant end = finishedAt != null ? finishedAt : Instant.now();
+                double seconds = Math.max(0.001, (end.toEpochMilli() - startedAt.toEpochMilli()) / 1000.0);
+                status.setTasksPerSecond(processed.get() / seconds);
+            }
+            return status;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.Untraced;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime flow control of the scheduled-tasks listener container, driven by how long batches
+ * take to process:
+ * <ul>
+ *   <li>pause: a batch slower than pause-batch-ms means downstream (Cassandra, delivery) is
+ *       struggling; the container is paused, which keeps polling for liveness but fetches
+ *       nothing, and is resumed after resume-after-ms</li>
+ *   <li>poll size: max.poll.records is resized so a batch takes about target-batch-ms at the
+ *       measured per-record time</li>
+ *   <li>concurrency: consumers are added while there is lag and batches are fast, and removed
+ *       when batches are slow</li>
+ * </ul>
+ * Poll size and concurrency only apply when the consumers restart, which costs a rebalance, so
+ * those changes are made at most once per min-restart-interval-ms and only when the poll size
+ * moves by more than a quarter. Every input and decision is exported as a metric.
+ */
+@Slf4j
+@Service
+public class ConsumerFlowController {
+
+    public static final String CONTAINER_ID = "scheduled-tasks";
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final boolean enabled;
+    private final long targetBatchMs;
+    private final long pauseBatchMs;
+    private final long resumeAfterMs;
+    private final int minPollRecords;
+    private final int maxPollRecords;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final long scaleUpLag;
+    private final long minRestartIntervalMs;
+
+    // Batches measured since the last decision
+    private final LongAdder batchRecords = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private final AtomicLong slowestBatchNanos = new AtomicLong();
+
+    private volatile int pollRecords;
+    private volatile int concurrency;
+    private volatile double perRecordMs;
+    private volatile long lag;
+    private volatile long pausedAt;
+    private long lastRestart;
+
+    private final Timer batchDuration;
+    private final MeterRegistry meterRegistry;
+
+    public ConsumerFlowController(KafkaListenerEndpointRegistry registry,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${consumer-flow.enabled:false}") boolean enabled,
+                                  @Value("${kafka.consumer.max-poll-records:500}") int initialPollRecords,
+                                  @Value("${kafka.consumer.concurrency:1}") int initialConcurrency,
+                                  @Value("${consumer-flow.target-batch-ms:2000}") long targetBatchMs,
+                                  @Value("${consumer-flow.pause-batch-ms:60000}") long pauseBatchMs,
+                                  @Value("${consumer-flow.resume-after-ms:10000}") long resumeAfterMs,
+                                  @Value("${consumer-flow.min-poll-records:50}") int minPollRecords,
+                                  @Value("${consumer-flow.max-poll-records:5000}") int maxPollRecords,
+                                  @Value("${consumer-flow.min-concurrency:1}") int minConcurrency,
+                                  @Value("${consumer-flow.max-concurrency:4}") int maxConcurrency,
+                                  @Value("${consumer-flow.scale-up-lag:10000}") long scaleUpLag,
+                                  @Value("${consumer-flow.min-restart-interval-ms:300000}") long minRestartIntervalMs) {
+        this.registry = registry;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.pollRecords = initialPollRecords;
+        this.concurrency = initialConcurrency;
+        this.targetBatchMs = targetBatchMs;
+        this.pauseBatchMs = pauseBatchMs;
+        this.resumeAfterMs = resumeAfterMs;
+        this.minPollRecords = minPollRecords;
+        this.maxPollRecords = maxPollRecords;
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.scaleUpLag = scaleUpLag;
+        this.minRestartIntervalMs = minRestartIntervalMs;
+        this.lastRestart = System.currentTimeMillis();
+
+        this.batchDuration = Timer.builder("taskscheduler_listener_batch_duration_seconds")
+                .description("Processing time of scheduled-tasks poll batches")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_consumer_max_poll_records", this, c -> c.pollRecords)
+                .description("Current max.poll.records of the scheduled-tasks consumers")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_consumer_concurrency", this, c -> c.concurrency)
+                .description("Current number of scheduled-tasks consumers")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_consumer_paused", this, c -> c.pausedAt > 0 ? 1 : 0)
+                .description("1 while the scheduled-tasks consumers are paused by flow control")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_consumer_record_processing_ms", this, c -> c.perRecordMs)
+                .description("Mean processing time per record over the last flow control interval")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_consumer_lag_records", this, c -> c.lag)
+                .description("Max record lag of the scheduled-tasks consumers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Called by the listener after each poll batch
+     */
+    @Untraced
+    public void recordBatch(int records, long nanos) {
+        batchDuration.record(nanos, TimeUnit.NANOSECONDS);
+        batchRecords.add(records);
+        batchNanos.add(nanos);
+        slowestBatchNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${consumer-flow.interval-ms:5000}")
+    public void control() {
+        if (!enabled) {
+            return;
+        }
+        MessageListenerContainer container = registry.getListenerContainer(CONTAINER_ID);
+        if (container == null || !container.isRunning()) {
+            return;
+        }
+        long records = batchRecords.sumThenReset();
+        long nanos = batchNanos.sumThenReset();
+        long slowestMs = TimeUnit.NANOSECONDS.toMillis(slowestBatchNanos.getAndSet(0));
+        lag = maxLag(container);
+        if (records > 0) {
+            perRecordMs = nanos / 1_000_000.0 / records;
+        }
+
+        // Pause and resume take effect on the next poll, no restart needed
+        if (pausedAt > 0) {
+            if (System.currentTimeMillis() - pausedAt >= resumeAfterMs) {
+                container.resume();
+                pausedAt = 0;
+                decision("resume");
+                log.info("Resumed scheduled-tasks consumers");
+            }
+            return;
+        }
+        if (slowestMs > pauseBatchMs) {
+            container.pause();
+            pausedAt = System.currentTimeMillis();
+            decision("pause");
+            log.warn("Paused scheduled-tasks consumers: batch took {} ms (limit {} ms)", slowestMs, pauseBatchMs);
+            return;
+        }
+        if (records == 0 || System.currentTimeMillis() - lastRestart < minRestartIntervalMs) {
+            return;
+        }
+
+        int targetPoll = (int) Math.max(minPollRecords, Math.min(maxPollRecords, targetBatchMs / Math.max(perRecordMs, 0.001)));
+        int targetConcurrency = concurrency;
+        if (slowestMs > targetBatchMs * 2 && concurrency > minConcurrency) {
+            targetConcurrency = concurrency - 1;
+        } else if (lag > scaleUpLag && slowestMs < targetBatchMs && concurrency < maxConcurrency) {
+            targetConcurrency = concurrency + 1;
+        }
+        boolean resizePoll = Math.abs(targetPoll - pollRecords) > pollRecords / 4;
+        if (!resizePoll && targetConcurrency == concurrency) {
+            return;
+        }
+        if (resizePoll) {
+            decision(targetPoll > pollRecords ? "poll_grow" : "poll_shrink");
+        }
+        if (targetConcurrency != concurrency) {
+            decision(targetConcurrency > concurrency ? "scale_up" : "scale_down");
+        }
+        log.info("Restarting scheduled-tasks consumers: max.poll.records {} -> {}, concurrency {} -> {} "
+                        + "({} ms per record, slowest batch {} ms, lag {})",
+                pollRecords, targetPoll, concurrency, targetConcurrency,
+                String.format("%.2f", perRecordMs), slowestMs, lag);
+        restart(container, targetPoll, targetConcurrency);
+    }
+
+    private void restart(MessageListenerContainer container, int newPollRecords, int newConcurrency) {
+        pollRecords = newPollRecords;
+        concurrency = newConcurrency;
+        lastRestart = System.currentTimeMillis();
+        container.getContainerProperties().getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(newPollRecords));
+        container.stop(() -> {
+            if (container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent) {
+                concurrent.setConcurrency(newConcurrency);
+            }
+            container.start();
+        });
+    }
+
+    private static long maxLag(MessageListenerContainer container) {
+        long max = 0;
+        for (Map<MetricName, ? extends Metric> metrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet()) {
+                if ("records-lag-max".equals(metric.getKey().name())
+                        && metric.getValue().metricValue() instanceof Double value && !value.isNaN()) {
+                    max = Math.max(max, value.longValue());
+                }
+            }
+        }
+        return max;
+    }
+
+    private void decision(String action) {
+        Counter.builder("taskscheduler_consumer_flow_decisions_total")
+                .description("Flow control actions taken on the scheduled-tasks consumers")
+                .tag("action", action)
+                .register(meterRegistry)
+                .increment();
+    }
+}
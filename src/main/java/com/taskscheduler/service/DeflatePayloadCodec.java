@@ -0,0 +1,64 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.Untraced;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * JDK Deflater based payload codec. Deflater and Inflater instances are reused per thread
+ * because allocating their native state dominates the cost for small payloads.
+ */
+@Component
+@Untraced
+public class DeflatePayloadCodec implements PayloadCodec {
+
+    public static final String NAME = "deflate";
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(byte[] data) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            int written = deflater.deflate(buffer);
+            out.write(buffer, 0, written);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public byte[] decode(byte[] data) {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+        byte[] buffer = new byte[4096];
+        try {
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated deflate payload");
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt deflate payload", e);
+        }
+        return out.toByteArray();
+    }
+}
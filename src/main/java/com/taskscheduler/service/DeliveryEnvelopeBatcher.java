@@ -0,0 +1,299 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.Untraced;
+import com.taskscheduler.dto.DeliveredTaskRef;
+import com.taskscheduler.dto.DeliveryEnvelope;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.service.SchedulingLagRecorder.Stage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Packs deliveries that fire close together into one delivered-tasks record per tenant.
+ * An envelope is sent once it reaches the task or byte cap, or when its oldest delivery has
+ * waited for the linger limit. Keying by tenant keeps per-tenant ordering within a partition.
+ * Every add returns a future that completes when the envelope carrying the delivery is acked.
+ * Inside a listener transaction the envelopes belong to that transaction alone: they are sent
+ * just before it commits and dropped if it rolls back, never mixed with another consumer
+ * thread's deliveries.
+ */
+@Slf4j
+@Component
+public class DeliveryEnvelopeBatcher {
+
+    private static final String NO_TENANT = "";
+    // Rough per-task JSON overhead on top of the payload
+    private static final int TASK_OVERHEAD_BYTES = 256;
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final SchedulingLagRecorder schedulingLagRecorder;
+    private final String deliveredTasksTopic;
+    private final boolean enabled;
+    private final int maxTasks;
+    private final int maxBytes;
+    private final long lingerMs;
+    private final boolean transactional;
+    // Envelopes filled outside a transaction, sent by size or linger
+    private final Envelopes shared = new Envelopes();
+
+    private final DistributionSummary envelopeTasks;
+    private final Counter envelopesSent;
+
+    public DeliveryEnvelopeBatcher(KafkaTemplate<String, Object> kafkaTemplate,
+                                   MeterRegistry meterRegistry,
+                                   SchedulingLagRecorder schedulingLagRecorder,
+                                   @Value("${kafka.topics.delivered-tasks:delivered-tasks}") String deliveredTasksTopic,
+                                   @Value("${delivery.envelope.enabled:false}") boolean enabled,
+                                   @Value("${delivery.envelope.max-tasks:500}") int maxTasks,
+                                   @Value("${delivery.envelope.max-bytes:900000}") int maxBytes,
+                                   @Value("${delivery.envelope.linger-ms:50}") long lingerMs,
+                                   @Value("${kafka.transactions.enabled:false}") boolean transactional) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.schedulingLagRecorder = schedulingLagRecorder;
+        this.deliveredTasksTopic = deliveredTasksTopic;
+        this.enabled = enabled;
+        this.maxTasks = maxTasks;
+        this.maxBytes = maxBytes;
+        this.lingerMs = lingerMs;
+        this.transactional = transactional;
+        this.envelopeTasks = DistributionSummary.builder("taskscheduler_delivery_envelope_tasks")
+                .description("Deliveries packed per envelope record")
+                .register(meterRegistry);
+        this.envelopesSent = Counter.builder("taskscheduler_delivery_envelopes_sent_total")
+                .description("Envelope records published to delivered-tasks")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return completes when the envelope carrying the task is acked, exceptionally if its send fails
+     */
+    @Untraced
+    public CompletableFuture<Void> add(Task task) {
+        return add(task, Map.of());
+    }
+
+    /**
+     * @param headers per-delivery headers, carried in the envelope since records have no per-value headers
+     * @return completes when the envelope carrying the task is acked, exceptionally if its send fails
+     */
+    @Untraced
+    public CompletableFuture<Void> add(Task task, Map<String, String> headers) {
+        int size = TASK_OVERHEAD_BYTES + (task.getPayload() != null ? task.getPayload().length() : 0);
+        return current().append(task.getTenant(), size, envelope -> {
+            envelope.getTasks().add(task);
+            putHeaders(envelope, task.getId(), headers);
+        });
+    }
+
+    /**
+     * @return completes when the envelope carrying the ref is acked, exceptionally if its send fails
+     */
+    @Untraced
+    public CompletableFuture<Void> add(DeliveredTaskRef ref) {
+        return add(ref, Map.of());
+    }
+
+    @Untraced
+    public CompletableFuture<Void> add(DeliveredTaskRef ref, Map<String, String> headers) {
+        return current().append(ref.getTenant(), TASK_OVERHEAD_BYTES, envelope -> {
+            envelope.getRefs().add(ref);
+            putHeaders(envelope, ref.getId(), headers);
+        });
+    }
+
+    private static void putHeaders(DeliveryEnvelope envelope, String deliveryId, Map<String, String> headers) {
+        if (!headers.isEmpty()) {
+            envelope.getHeaders().put(deliveryId, new LinkedHashMap<>(headers));
+        }
+    }
+
+    /**
+     * The calling thread's transaction's envelopes, bound on first use, or the shared ones
+     */
+    private Envelopes current() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return shared;
+        }
+        Envelopes bound = (Envelopes) TransactionSynchronizationManager.getResource(this);
+        if (bound != null) {
+            return bound;
+        }
+        Envelopes envelopes = new Envelopes();
+        TransactionSynchronizationManager.bindResource(this, envelopes);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // Still inside the transaction, so the envelopes commit with the offsets
+                envelopes.flush(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(DeliveryEnvelopeBatcher.this);
+                envelopes.abandon();
+            }
+        });
+        return envelopes;
+    }
+
+    /**
+     * Send envelopes whose oldest delivery has waited for the linger limit
+     */
+    @Scheduled(fixedDelayString = "${delivery.envelope.linger-ms:50}")
+    public void flushExpired() {
+        if (transactional) {
+            // Every listener transaction flushes its own envelopes when it commits
+            return;
+        }
+        shared.flush(System.currentTimeMillis() - lingerMs);
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        shared.flush(Long.MAX_VALUE);
+    }
+
+    private void send(Drained drained) {
+        DeliveryEnvelope envelope = drained.envelope();
+        String publishedAt = Long.toString(System.currentTimeMillis());
+        envelope.getHeaders().values().forEach(headers -> headers.put(SchedulingLagRecorder.HEADER_PUBLISHED_AT, publishedAt));
+        CompletableFuture<?> sent;
+        try {
+            sent = kafkaTemplate.send(deliveredTasksTopic, envelope.getTenant(), envelope);
+        } catch (RuntimeException e) {
+            drained.acks().forEach(acked -> acked.completeExceptionally(e));
+            throw e;
+        }
+        sent.whenComplete((result, e) -> {
+            if (e != null) {
+                log.error("Failed to publish envelope with {} deliveries for tenant {}: {}",
+                        envelope.size(), envelope.getTenant(), e.getMessage());
+                drained.acks().forEach(acked -> acked.completeExceptionally(e));
+                return;
+            }
+            long ackedAt = System.currentTimeMillis();
+            envelope.getTasks().forEach(task -> schedulingLagRecorder.recordSince(
+                    Stage.DELIVER_ACK, task.getTenant(), task.getScheduledAt(), ackedAt));
+            envelope.getRefs().forEach(ref -> schedulingLagRecorder.recordSince(
+                    Stage.DELIVER_ACK, ref.getTenant(), ref.getScheduledAt(), ackedAt));
+            drained.acks().forEach(acked -> acked.complete(null));
+        });
+        envelopeTasks.record(envelope.size());
+        envelopesSent.increment();
+        log.info("Published envelope with {} deliveries for tenant {} to Kafka topic: {}",
+                envelope.size(), envelope.getTenant(), deliveredTasksTopic);
+    }
+
+    /**
+     * Pending envelopes, one per tenant
+     */
+    private final class Envelopes {
+        private final Map<String, PendingEnvelope> pending = new ConcurrentHashMap<>();
+
+        CompletableFuture<Void> append(String tenant, int size, Consumer<DeliveryEnvelope> adder) {
+            String key = tenant != null ? tenant : NO_TENANT;
+            CompletableFuture<Void> acked = new CompletableFuture<>();
+            Drained full = null;
+            PendingEnvelope envelope = pending.computeIfAbsent(key, k -> new PendingEnvelope(tenant));
+            synchronized (envelope) {
+                if (envelope.bytes > 0 && envelope.bytes + size > maxBytes) {
+                    full = envelope.drain();
+                }
+                if (envelope.envelope.size() == 0) {
+                    // Linger is measured from the first delivery in the envelope
+                    envelope.envelope.setCreatedAt(System.currentTimeMillis());
+                }
+                adder.accept(envelope.envelope);
+                envelope.acks.add(acked);
+                envelope.bytes += size;
+                if (envelope.envelope.size() >= maxTasks) {
+                    Drained capped = envelope.drain();
+                    if (full != null) {
+                        send(full);
+                    }
+                    full = capped;
+                }
+            }
+            if (full != null) {
+                send(full);
+            }
+            return acked;
+        }
+
+        void flush(long createdBefore) {
+            for (PendingEnvelope envelope : pending.values()) {
+                Drained ready = null;
+                synchronized (envelope) {
+                    if (envelope.envelope.size() > 0 && envelope.envelope.getCreatedAt() <= createdBefore) {
+                        ready = envelope.drain();
+                    }
+                }
+                if (ready != null) {
+                    send(ready);
+                }
+            }
+        }
+
+        /**
+         * Fail whatever was never sent, e.g. deliveries of a rolled back transaction
+         */
+        void abandon() {
+            IllegalStateException unsent = new IllegalStateException("Envelope was never sent, the transaction rolled back");
+            for (PendingEnvelope envelope : pending.values()) {
+                synchronized (envelope) {
+                    envelope.drain().acks().forEach(acked -> acked.completeExceptionally(unsent));
+                }
+            }
+        }
+    }
+
+    private record Drained(DeliveryEnvelope envelope, List<CompletableFuture<Void>> acks) {
+    }
+
+    private static final class PendingEnvelope {
+        private final String tenant;
+        private DeliveryEnvelope envelope;
+        private List<CompletableFuture<Void>> acks = new ArrayList<>();
+        private int bytes;
+
+        PendingEnvelope(String tenant) {
+            this.tenant = tenant;
+            this.envelope = newEnvelope();
+        }
+
+        Drained drain() {
+            Drained drained = new Drained(envelope, acks);
+            envelope = newEnvelope();
+            acks = new ArrayList<>();
+            bytes = 0;
+            return drained;
+        }
+
+        private DeliveryEnvelope newEnvelope() {
+            DeliveryEnvelope fresh = new DeliveryEnvelope();
+            fresh.setTenant(tenant);
+            return fresh;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.taskscheduler.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskscheduler.dto.DeliveredTaskRef;
+import com.taskscheduler.dto.DeliveryEnvelope;
+import com.taskscheduler.model.Task;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumer-side helper for delivered-tasks when envelope batching is on. A topic can carry
+ * envelopes, single tasks and claim-check refs side by side, so every record is unpacked into
+ * the individual deliveries it contains, each with the headers it would have had as a record
+ * of its own: the record's headers overlaid with the delivery's entry in the envelope.
+ */
+public final class DeliveryEnvelopeUnpacker {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private DeliveryEnvelopeUnpacker() {
+    }
+
+    /**
+     * @param value   a {@link Task} or {@link DeliveredTaskRef}
+     * @param headers header values as UTF-8 strings
+     */
+    public record Delivery(Object value, Map<String, String> headers) {
+    }
+
+    /**
+     * Unpack an already deserialized record value (e.g. from a Spring Kafka JsonDeserializer
+     * honouring type headers)
+     *
+     * @param recordHeaders headers of the record, may be null
+     */
+    public static List<Delivery> unpack(Object value, Headers recordHeaders) {
+        List<Delivery> deliveries = new ArrayList<>();
+        if (value instanceof DeliveryEnvelope envelope) {
+            addAll(deliveries, envelope, recordHeaders);
+        } else if (value != null) {
+            deliveries.add(new Delivery(value, toMap(recordHeaders)));
+        }
+        return deliveries;
+    }
+
+    /**
+     * Unpack a raw JSON record value without relying on type headers
+     *
+     * @param recordHeaders headers of the record, may be null
+     */
+    public static List<Delivery> unpack(byte[] json, Headers recordHeaders) throws IOException {
+        JsonNode root = MAPPER.readTree(json);
+        List<Delivery> deliveries = new ArrayList<>();
+        if (root.has("tasks") || root.has("refs")) {
+            addAll(deliveries, MAPPER.treeToValue(root, DeliveryEnvelope.class), recordHeaders);
+        } else if (root.has("payloadRef")) {
+            deliveries.add(new Delivery(MAPPER.treeToValue(root, DeliveredTaskRef.class), toMap(recordHeaders)));
+        } else {
+            deliveries.add(new Delivery(MAPPER.treeToValue(root, Task.class), toMap(recordHeaders)));
+        }
+        return deliveries;
+    }
+
+    private static void addAll(List<Delivery> deliveries, DeliveryEnvelope envelope, Headers recordHeaders) {
+        Map<String, String> shared = toMap(recordHeaders);
+        for (Task task : envelope.getTasks()) {
+            deliveries.add(new Delivery(task, headersOf(envelope, task.getId(), shared)));
+        }
+        for (DeliveredTaskRef ref : envelope.getRefs()) {
+            deliveries.add(new Delivery(ref, headersOf(envelope, ref.getId(), shared)));
+        }
+    }
+
+    private static Map<String, String> headersOf(DeliveryEnvelope envelope, String deliveryId, Map<String, String> shared) {
+        Map<String, String> headers = new LinkedHashMap<>(shared);
+        Map<String, String> own = envelope.getHeaders().get(deliveryId);
+        if (own != null) {
+            headers.putAll(own);
+        }
+        return headers;
+    }
+
+    private static Map<String, String> toMap(Headers recordHeaders) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (recordHeaders != null) {
+            for (Header header : recordHeaders) {
+                headers.put(header.key(), header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null);
+            }
+        }
+        return headers;
+    }
+}
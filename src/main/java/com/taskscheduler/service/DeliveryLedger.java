@@ -0,0 +1,51 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.Untraced;
+import com.taskscheduler.dto.ScheduledTaskRef;
+import com.taskscheduler.model.Task;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Node-local record of the timers this node already published, keyed by task id with the
+ * scheduledAt that was delivered. An entry is written only once the broker acked the delivery
+ * (for envelopes, once the envelope was acked), never for a send that is still pending. When the DELIVERED status update is lost (crash or Cassandra
+ * timeout after the publish) the redelivered timer record still finds the task CREATED; the
+ * ledger turns that into a status fix instead of a second delivery. Best effort: after a
+ * partition moves to another node the ledger there is empty and delivery stays at-least-once.
+ * Only used on the non-transactional path, entries expire after the ledger TTL.
+ */
+@Component
+@Untraced
+public class DeliveryLedger {
+
+    private final LocalStateStore localStateStore;
+    private final boolean enabled;
+
+    public DeliveryLedger(LocalStateStore localStateStore,
+                          @Value("${local-state.delivery-ledger.enabled:true}") boolean enabled) {
+        this.localStateStore = localStateStore;
+        this.enabled = enabled && localStateStore.isEnabled();
+    }
+
+    /**
+     * @return true when this exact timer (task id and scheduledAt) was already published here
+     */
+    public boolean isDelivered(Task task, ScheduledTaskRef ref) {
+        if (!enabled || ref == null || !"CREATED".equals(task.getStatus())
+                || task.getScheduledAt() == null || !task.getScheduledAt().equals(ref.getScheduledAt())) {
+            return false;
+        }
+        byte[] delivered = localStateStore.get(LocalStateStore.Namespace.DELIVERY_LEDGER, task.getId());
+        return delivered != null && ByteBuffer.wrap(delivered).getLong() == task.getScheduledAt();
+    }
+
+    public void recordDelivered(Task task) {
+        if (enabled && task.getScheduledAt() != null) {
+            localStateStore.put(LocalStateStore.Namespace.DELIVERY_LEDGER, task.getId(),
+                    ByteBuffer.allocate(Long.BYTES).putLong(task.getScheduledAt()).array());
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.taskscheduler.service;
+
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.taskscheduler.model.RecipientOutcome;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.model.TaskRecipients;
+import com.taskscheduler.repository.RecipientOutcomeRepository;
+import com.taskscheduler.repository.TaskRecipientsRepository;
+import com.taskscheduler.repository.TaskRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Template fan-out tasks. A fan-out task is a single task row and a single timer; its recipients
+ * are stored in chunks in task_recipients. When the timer fires the recipients are streamed one
+ * chunk at a time and every recipient gets its own delivery, a copy of the template with id
+ * {@code <taskId>#<recipient>} and assignedTo set to the recipient. Per-recipient outcomes are
+ * kept in task_recipient_outcomes, and double as the resume point of an interrupted expansion.
+ */
+@Slf4j
+@Service
+public class FanOutService {
+
+    public static final String TASK_TYPE = "FANOUT";
+    public static final String OUTCOME_DISPATCHED = "DISPATCHED";
+    public static final String OUTCOME_FAILED = "FAILED";
+
+    private static final char RECIPIENT_SEPARATOR = '#';
+    private static final int OUTCOME_BATCH_ROWS = 50;
+
+    private final TaskRecipientsRepository taskRecipientsRepository;
+    private final RecipientOutcomeRepository recipientOutcomeRepository;
+    private final TaskRepository taskRepository;
+    private final CassandraOperations cassandraOperations;
+    private final int chunkSize;
+    private final int maxRecipients;
+
+    private final Counter recipientsDispatched;
+    private final Counter recipientsFailed;
+
+    public FanOutService(TaskRecipientsRepository taskRecipientsRepository,
+                         RecipientOutcomeRepository recipientOutcomeRepository,
+                         TaskRepository taskRepository,
+                         CassandraOperations cassandraOperations,
+                         MeterRegistry meterRegistry,
+                         @Value("${fanout.chunk-size:1000}") int chunkSize,
+                         @Value("${fanout.max-recipients:1000000}") int maxRecipients) {
+        this.taskRecipientsRepository = taskRecipientsRepository;
+        this.recipientOutcomeRepository = recipientOutcomeRepository;
+        this.taskRepository = taskRepository;
+        this.cassandraOperations = cassandraOperations;
+        this.chunkSize = chunkSize;
+        this.maxRecipients = maxRecipients;
+        this.recipientsDispatched = Counter.builder("taskscheduler_fanout_recipients_total")
+                .description("Fan-out recipient deliveries")
+                .tag("outcome", "dispatched")
+                .register(meterRegistry);
+        this.recipientsFailed = Counter.builder("taskscheduler_fanout_recipients_total")
+                .description("Fan-out recipient deliveries")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    public static boolean isFanOut(Task task) {
+        return TASK_TYPE.equals(task.getTaskType());
+    }
+
+    /**
+     * Store the recipient list of a new fan-out task, replacing any previous list
+     */
+    public void storeRecipients(String taskId, List<String> recipients) {
+        if (recipients.size() > maxRecipients) {
+            throw new IllegalArgumentException("Bad Request: Fan-out task has " + recipients.size()
+                    + " recipients, at most " + maxRecipients + " are allowed");
+        }
+        for (String recipient : recipients) {
+            if (recipient == null || recipient.isBlank() || recipient.indexOf(RECIPIENT_SEPARATOR) >= 0) {
+                throw new IllegalArgumentException("Bad Request: Invalid fan-out recipient: " + recipient);
+            }
+        }
+        taskRecipientsRepository.deleteByTaskId(taskId);
+        List<TaskRecipients> chunks = new ArrayList<>();
+        for (int from = 0, chunk = 0; from < recipients.size(); from += chunkSize, chunk++) {
+            TaskRecipients row = new TaskRecipients();
+            row.setTaskId(taskId);
+            row.setChunk(chunk);
+            row.setRecipients(new ArrayList<>(recipients.subList(from, Math.min(from + chunkSize, recipients.size()))));
+            chunks.add(row);
+        }
+        taskRecipientsRepository.saveAll(chunks);
+        log.info("Stored {} recipients in {} chunks for fan-out task {}", recipients.size(), chunks.size(), taskId);
+    }
+
+    /**
+     * Expand a fired fan-out task into one delivery per recipient, streaming the recipient
+     * list chunk by chunk. A recipient's outcome is written once its delivery is acked
+     * (DISPATCHED) or has failed (FAILED), and the next chunk is only loaded once the current
+     * one's outcomes are written, so memory stays bounded by the chunk size and a slow broker
+     * slows the expansion down; the calling thread blocks meanwhile. When the timer is
+     * redelivered after a crash, recipients that already have a non-FAILED outcome are skipped,
+     * so the expansion resumes instead of starting over.
+     *
+     * Inside a listener transaction the deliveries only go out when the transaction commits,
+     * after this returns, so there all chunks are in flight at once; a failed publish is
+     * rethrown, so the whole poll batch aborts and is redelivered.
+     *
+     * @param publisher publishes one delivery and returns its ack
+     * @return completes when every outcome is written
+     */
+    public CompletableFuture<Void> expand(Task template, Function<Task, CompletableFuture<?>> publisher) {
+        String taskId = template.getId();
+        boolean transactional = TransactionSynchronizationManager.isActualTransactionActive();
+        // No outcome at all means a first expansion, which needs no per-chunk lookups
+        boolean resuming = !recipientOutcomeRepository.findByTaskId(taskId, 1).isEmpty();
+        AtomicLong dispatched = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long skipped = 0;
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int chunk = 0; ; chunk++) {
+            TaskRecipients recipients = taskRecipientsRepository.findChunk(taskId, chunk);
+            if (recipients == null) {
+                break;
+            }
+            Set<String> done = resuming ? alreadyDispatched(taskId, recipients.getRecipients()) : Set.of();
+            List<CompletableFuture<RecipientOutcome>> outcomes = new ArrayList<>(recipients.getRecipients().size());
+            for (String recipient : recipients.getRecipients()) {
+                if (done.contains(recipient)) {
+                    skipped++;
+                    continue;
+                }
+                CompletableFuture<?> acked;
+                try {
+                    acked = publisher.apply(deliveryFor(template, recipient));
+                } catch (Exception e) {
+                    if (transactional) {
+                        // Abort the listener transaction rather than commit a partial fan-out
+                        throw e;
+                    }
+                    acked = CompletableFuture.failedFuture(e);
+                }
+                outcomes.add(acked.handle((result, e) -> outcomeOf(taskId, recipient, e, dispatched, failed)));
+            }
+            CompletableFuture<Void> written = writeOutcomes(outcomes);
+            if (transactional) {
+                chunks.add(written);
+                continue;
+            }
+            try {
+                written.join();
+            } catch (CompletionException e) {
+                log.error("Fan-out task {} stopped at chunk {}, outcomes not written: {}",
+                        taskId, chunk, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                return CompletableFuture.failedFuture(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        long skippedTotal = skipped;
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).thenRun(() -> {
+            recipientsDispatched.increment(dispatched.get());
+            recipientsFailed.increment(failed.get());
+            taskRepository.updateExecutionResult(taskId, "dispatched=" + dispatched.get() + " failed=" + failed.get()
+                    + (skippedTotal > 0 ? " skipped=" + skippedTotal : ""), Instant.now());
+            log.info("Expanded fan-out task {}: {} dispatched, {} failed, {} already dispatched before",
+                    taskId, dispatched.get(), failed.get(), skippedTotal);
+        });
+    }
+
+    private Set<String> alreadyDispatched(String taskId, List<String> recipients) {
+        Set<String> done = new HashSet<>();
+        for (RecipientOutcome outcome : recipientOutcomeRepository.findByTaskIdAndRecipientIn(taskId, recipients)) {
+            if (!OUTCOME_FAILED.equals(outcome.getStatus())) {
+                done.add(outcome.getRecipient());
+            }
+        }
+        return done;
+    }
+
+    private static RecipientOutcome outcomeOf(String taskId, String recipient, Throwable error,
+                                              AtomicLong dispatched, AtomicLong failed) {
+        RecipientOutcome outcome = new RecipientOutcome();
+        outcome.setTaskId(taskId);
+        outcome.setRecipient(recipient);
+        outcome.setUpdatedAt(Instant.now());
+        if (error == null) {
+            outcome.setStatus(OUTCOME_DISPATCHED);
+            dispatched.incrementAndGet();
+        } else {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            outcome.setStatus(OUTCOME_FAILED);
+            outcome.setError(cause.getMessage());
+            failed.incrementAndGet();
+        }
+        return outcome;
+    }
+
+    /**
+     * Write a chunk's outcomes once all of its deliveries are settled, off the producer thread
+     */
+    private CompletableFuture<Void> writeOutcomes(List<CompletableFuture<RecipientOutcome>> pending) {
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).thenRunAsync(() -> {
+            List<RecipientOutcome> outcomes = pending.stream().map(CompletableFuture::join).toList();
+            // Outcomes share one partition; small unlogged batches stay under the batch size limits
+            for (int from = 0; from < outcomes.size(); from += OUTCOME_BATCH_ROWS) {
+                cassandraOperations.batchOps(DefaultBatchType.UNLOGGED)
+                        .insert(outcomes.subList(from, Math.min(from + OUTCOME_BATCH_ROWS, outcomes.size())))
+                        .execute();
+            }
+        });
+    }
+
+    /**
+     * Record an outcome reported by a consumer, e.g. DELIVERED or FAILED with an error
+     */
+    public void recordOutcome(String taskId, String recipient, String status, String error) {
+        recipientOutcomeRepository.updateOutcome(taskId, recipient, status, error, Instant.now());
+    }
+
+    public List<RecipientOutcome> getOutcomes(String taskId, String status, int limit) {
+        return status == null || status.isBlank()
+                ? recipientOutcomeRepository.findByTaskId(taskId, limit)
+                : recipientOutcomeRepository.findByTaskIdAndStatus(taskId, status, limit);
+    }
+
+    private static Task deliveryFor(Task template, String recipient) {
+        Task delivery = new Task();
+        delivery.setId(template.getId() + RECIPIENT_SEPARATOR + recipient);
+        delivery.setTenant(template.getTenant());
+        delivery.setPayload(template.getPayload());
+        delivery.setScheduledAt(template.getScheduledAt());
+        delivery.setCreatedAt(template.getCreatedAt());
+        delivery.setUpdatedAt(template.getUpdatedAt());
+        delivery.setParameters(template.getParameters());
+        delivery.setCreatedBy(template.getCreatedBy());
+        delivery.setAssignedTo(recipient);
+        delivery.setPriority(template.getPriority());
+        delivery.setMaxRetries(template.getMaxRetries());
+        delivery.setRetryDelayMs(template.getRetryDelayMs());
+        delivery.setStatus(template.getStatus());
+        return delivery;
+    }
+}
@@ -88,7 +88,7 @@ public class FlinkEventService {
     }
 
     /**
-     * Simulate Flink metrics for testing - call this periodically
+     * Simulate Flink metrics for testing - called by FlinkMetricsSimulator under the demo profile
      */
     public void simulateFlinkActivity() {
         // Simulate some task processing
@@ -1,14 +1,17 @@
 package com.taskscheduler.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
  * Component to periodically update Flink metrics for demonstration
- * This simulates Flink events and updates metrics that will appear in actuator/prometheus
+ * This simulates Flink events and updates metrics that will appear in actuator/prometheus.
+ * Only active under the demo profile, otherwise FlinkTelemetryBridge reports the real job.
  */
 @Component
+@Profile("demo")
 public class FlinkMetricsSimulator {
 
     @Autowired
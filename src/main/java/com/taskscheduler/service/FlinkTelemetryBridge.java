@@ -0,0 +1,197 @@
+package com.taskscheduler.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.taskscheduler.config.FlinkMetricsConfig;
+import com.taskscheduler.config.SchedulingConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+
+/**
+ * Feeds the flink_* metrics from the Flink REST API of the job that fires the task timers.
+ * Each poll reads the cluster overview, the running job's vertices, checkpoint counts and
+ * restarts, and the backpressure of every vertex (max backPressuredTimeMsPerSecond across
+ * subtasks, as a percentage). Flink reports totals, so counters are advanced by the change
+ * since the previous poll, starting from the first poll of a job. When the API cannot be
+ * reached the backpressure level drops to 0, so a Flink outage never throttles intake on its
+ * own; AdaptiveConcurrencyFilter reads the level to lower the intake limit while Flink is
+ * falling behind.
+ */
+@Slf4j
+@Component
+@Profile("!demo")
+public class FlinkTelemetryBridge {
+
+    private static final String BACKPRESSURE_METRIC = "backPressuredTimeMsPerSecond";
+
+    private final FlinkMetricsConfig.FlinkMetrics flinkMetrics;
+    private final RestClient restClient;
+    private final boolean enabled;
+    private final String restUrl;
+    private final String jobName;
+
+    private volatile boolean reachable = true;
+    private String jobId;
+    private long lastRecords = -1;
+    private long lastTasks = -1;
+    private long lastCheckpointsCompleted = -1;
+    private long lastCheckpointsFailed = -1;
+    private long lastRestarts = -1;
+
+    public FlinkTelemetryBridge(FlinkMetricsConfig.FlinkMetrics flinkMetrics,
+                                @Value("${flink.telemetry.enabled:false}") boolean enabled,
+                                @Value("${flink.telemetry.rest-url:http://localhost:8081}") String restUrl,
+                                @Value("${flink.telemetry.timeout-ms:2000}") int timeoutMs,
+                                @Value("${flink.job.name:}") String jobName) {
+        this.flinkMetrics = flinkMetrics;
+        this.enabled = enabled;
+        this.restUrl = restUrl;
+        this.jobName = jobName;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        this.restClient = RestClient.builder()
+                .baseUrl(restUrl)
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    /**
+     * Runs on its own scheduler thread since a poll makes a call per vertex, each waiting up to
+     * timeout-ms when Flink is slow
+     */
+    @Scheduled(fixedDelayString = "${flink.telemetry.poll-interval-ms:10000}",
+            scheduler = SchedulingConfig.FLINK_TELEMETRY_SCHEDULER)
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            JsonNode overview = get("/overview");
+            flinkMetrics.setTaskManagerCount(overview.path("taskmanagers").asInt());
+            flinkMetrics.setActiveJobs(overview.path("jobs-running").asInt());
+
+            String runningJob = findRunningJob();
+            if (runningJob == null) {
+                flinkMetrics.setBackpressureLevel(0);
+                startJob(null);
+            } else {
+                if (!runningJob.equals(jobId)) {
+                    startJob(runningJob);
+                }
+                JsonNode job = get("/jobs/{jobId}", runningJob);
+                pollRecords(job);
+                pollBackpressure(runningJob, job);
+                pollCheckpoints(runningJob);
+                pollRestarts(runningJob);
+            }
+            if (!reachable) {
+                log.info("Flink REST API at {} reachable again, telemetry resumed", restUrl);
+                reachable = true;
+            }
+        } catch (RestClientException e) {
+            flinkMetrics.setBackpressureLevel(0);
+            if (reachable) {
+                log.warn("Flink REST API at {} unreachable, telemetry paused: {}", restUrl, e.getMessage());
+                reachable = false;
+            }
+        }
+    }
+
+    private String findRunningJob() {
+        for (JsonNode job : get("/jobs/overview").path("jobs")) {
+            if ("RUNNING".equals(job.path("state").asText())
+                    && (jobName.isEmpty() || jobName.equals(job.path("name").asText()))) {
+                return job.path("jid").asText();
+            }
+        }
+        return null;
+    }
+
+    private void startJob(String runningJob) {
+        if (runningJob != null) {
+            log.info("Reporting Flink telemetry of job {}", runningJob);
+        }
+        jobId = runningJob;
+        lastRecords = -1;
+        lastTasks = -1;
+        lastCheckpointsCompleted = -1;
+        lastCheckpointsFailed = -1;
+        lastRestarts = -1;
+    }
+
+    /**
+     * Records leaving the source count as processed records, records reaching the sink as
+     * processed tasks (timers that fired)
+     */
+    private void pollRecords(JsonNode job) {
+        JsonNode vertices = job.path("vertices");
+        if (vertices.isEmpty()) {
+            return;
+        }
+        long records = vertices.get(0).path("metrics").path("write-records").asLong();
+        long tasks = vertices.get(vertices.size() - 1).path("metrics").path("read-records").asLong();
+        flinkMetrics.incrementRecordsProcessed(delta(records, lastRecords));
+        flinkMetrics.incrementTasksProcessed(delta(tasks, lastTasks));
+        lastRecords = records;
+        lastTasks = tasks;
+    }
+
+    private void pollBackpressure(String runningJob, JsonNode job) {
+        double maxMsPerSecond = 0;
+        for (JsonNode vertex : job.path("vertices")) {
+            JsonNode metrics = get("/jobs/{jobId}/vertices/{vertexId}/subtasks/metrics?get={metric}&agg=max",
+                    runningJob, vertex.path("id").asText(), BACKPRESSURE_METRIC);
+            for (JsonNode metric : metrics) {
+                if (BACKPRESSURE_METRIC.equals(metric.path("id").asText())) {
+                    maxMsPerSecond = Math.max(maxMsPerSecond, metric.path("max").asDouble());
+                }
+            }
+        }
+        flinkMetrics.setBackpressureLevel((int) Math.min(100, Math.round(maxMsPerSecond / 10)));
+    }
+
+    private void pollCheckpoints(String runningJob) {
+        JsonNode checkpoints = get("/jobs/{jobId}/checkpoints", runningJob);
+        long completed = checkpoints.path("counts").path("completed").asLong();
+        long failed = checkpoints.path("counts").path("failed").asLong();
+        long newlyCompleted = delta(completed, lastCheckpointsCompleted);
+        if (newlyCompleted > 0) {
+            long durationMs = checkpoints.path("latest").path("completed").path("end_to_end_duration").asLong();
+            flinkMetrics.incrementCheckpointsCompleted(newlyCompleted, Duration.ofMillis(durationMs));
+        }
+        flinkMetrics.incrementCheckpointsFailed(delta(failed, lastCheckpointsFailed));
+        lastCheckpointsCompleted = completed;
+        lastCheckpointsFailed = failed;
+    }
+
+    private void pollRestarts(String runningJob) {
+        for (JsonNode metric : get("/jobs/{jobId}/metrics?get=numRestarts", runningJob)) {
+            if ("numRestarts".equals(metric.path("id").asText())) {
+                long restarts = metric.path("value").asLong();
+                flinkMetrics.incrementJobRestarts(delta(restarts, lastRestarts));
+                lastRestarts = restarts;
+            }
+        }
+    }
+
+    private JsonNode get(String uri, Object... variables) {
+        JsonNode body = restClient.get().uri(uri, variables).retrieve().body(JsonNode.class);
+        return body != null ? body : MissingNode.getInstance();
+    }
+
+    /**
+     * Increment since the previous poll; the first poll of a job only sets the baseline
+     */
+    private static long delta(long current, long previous) {
+        return previous < 0 || current < previous ? 0 : current - previous;
+    }
+}
@@ -0,0 +1,185 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.Untraced;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Shared pool of dispatch threads with one queue per {@link PriorityLane}. Idle workers pick
+ * the next lane by smooth weighted round robin over the lanes that have work, so lanes share
+ * the pool by weight when all are busy and a lane alone gets the whole pool. Every dispatch
+ * records its fire-to-dispatch latency against the lane's SLO.
+ */
+@Slf4j
+@Component
+public class LaneDispatcher {
+
+    private final boolean enabled;
+    private final int threads;
+    private final Map<PriorityLane, Lane> lanes = new EnumMap<>(PriorityLane.class);
+    private final List<Thread> workers = new ArrayList<>();
+    private final Object lock = new Object();
+    private volatile boolean running = true;
+
+    public LaneDispatcher(MeterRegistry meterRegistry,
+                          @Value("${priority-lanes.enabled:false}") boolean enabled,
+                          @Value("${priority-lanes.dispatch-threads:16}") int threads,
+                          @Value("${priority-lanes.high.weight:8}") int highWeight,
+                          @Value("${priority-lanes.medium.weight:3}") int mediumWeight,
+                          @Value("${priority-lanes.low.weight:1}") int lowWeight,
+                          @Value("${priority-lanes.high.slo-ms:1000}") long highSloMs,
+                          @Value("${priority-lanes.medium.slo-ms:10000}") long mediumSloMs,
+                          @Value("${priority-lanes.low.slo-ms:300000}") long lowSloMs) {
+        this.enabled = enabled;
+        this.threads = threads;
+        lanes.put(PriorityLane.HIGH, new Lane(PriorityLane.HIGH, highWeight, highSloMs, meterRegistry));
+        lanes.put(PriorityLane.MEDIUM, new Lane(PriorityLane.MEDIUM, mediumWeight, mediumSloMs, meterRegistry));
+        lanes.put(PriorityLane.LOW, new Lane(PriorityLane.LOW, lowWeight, lowSloMs, meterRegistry));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::work, "lane-dispatch-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Queue work on a lane
+     *
+     * @param scheduledAt when the task was due, for the lane latency SLO
+     * @return the work's result once a dispatch thread has run it
+     */
+    @Untraced
+    public <T> CompletableFuture<T> submit(PriorityLane lane, Long scheduledAt, Supplier<T> work) {
+        CompletableFuture<T> done = new CompletableFuture<>();
+        Runnable run = () -> {
+            try {
+                done.complete(work.get());
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            }
+        };
+        synchronized (lock) {
+            lanes.get(lane).queue.add(new Work(scheduledAt, run));
+            lock.notify();
+        }
+        return done;
+    }
+
+    private void work() {
+        while (running) {
+            Lane lane;
+            Work next;
+            synchronized (lock) {
+                lane = pickLane();
+                while (lane == null && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    lane = pickLane();
+                }
+                if (lane == null) {
+                    return;
+                }
+                next = lane.queue.poll();
+            }
+            if (next.scheduledAt != null) {
+                lane.record(System.currentTimeMillis() - next.scheduledAt);
+            }
+            next.work.run();
+        }
+    }
+
+    // Smooth weighted round robin over non-empty lanes, caller holds the lock
+    private Lane pickLane() {
+        Lane best = null;
+        int totalWeight = 0;
+        for (Lane lane : lanes.values()) {
+            if (lane.queue.isEmpty()) {
+                continue;
+            }
+            lane.current += lane.weight;
+            totalWeight += lane.weight;
+            if (best == null || lane.current > best.current) {
+                best = lane;
+            }
+        }
+        if (best != null) {
+            best.current -= totalWeight;
+        }
+        return best;
+    }
+
+    private record Work(Long scheduledAt, Runnable work) {
+    }
+
+    private static final class Lane {
+        private final int weight;
+        private final long sloMs;
+        private final ArrayDeque<Work> queue = new ArrayDeque<>();
+        private final Timer latency;
+        private final Counter sloViolations;
+        private int current;
+
+        Lane(PriorityLane lane, int weight, long sloMs, MeterRegistry meterRegistry) {
+            this.weight = Math.max(1, weight);
+            this.sloMs = sloMs;
+            this.latency = Timer.builder("taskscheduler_lane_dispatch_latency_seconds")
+                    .description("Time from a task being due to its dispatch, per priority lane")
+                    .tag("lane", lane.name())
+                    .serviceLevelObjectives(Duration.ofMillis(sloMs))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.sloViolations = Counter.builder("taskscheduler_lane_slo_violations_total")
+                    .description("Dispatches later than the lane latency SLO")
+                    .tag("lane", lane.name())
+                    .register(meterRegistry);
+            Gauge.builder("taskscheduler_lane_queue_depth", queue, ArrayDeque::size)
+                    .description("Tasks waiting for a dispatch thread, per priority lane")
+                    .tag("lane", lane.name())
+                    .register(meterRegistry);
+        }
+
+        void record(long latencyMs) {
+            latency.record(Math.max(0, latencyMs), TimeUnit.MILLISECONDS);
+            if (latencyMs > sloMs) {
+                sloViolations.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.RocksDBMetricsConfig;
+import com.taskscheduler.config.Untraced;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.rocksdb.AbstractEventListener;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompactionJobInfo;
+import org.rocksdb.CompactionJobStats;
+import org.rocksdb.DBOptions;
+import org.rocksdb.FlushJobInfo;
+import org.rocksdb.LRUCache;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.TtlDB;
+import org.rocksdb.WriteStallCondition;
+import org.rocksdb.WriteStallInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embedded RocksDB for state that only this node needs and that must be cheap to look up per
+ * task: one column family per {@link Namespace}, each with its own TTL. Reads and writes are
+ * timed into the rocksdb_* meters of {@link RocksDBMetricsConfig.RocksDBMetrics}, flushes,
+ * compactions and write stalls are reported by an event listener as they happen, and the size
+ * gauges (keys, SST and live data, memtables, block cache) are refreshed from the DB properties
+ * every stats interval. Disabled unless local-state.enabled is set, in which case reads return
+ * null and writes are dropped.
+ */
+@Slf4j
+@Component
+@Untraced
+public class LocalStateStore {
+
+    public enum Namespace {
+        DELIVERY_LEDGER("delivery-ledger"),
+        TIMERS("timers"),
+        CHECKPOINTS("checkpoints");
+
+        private final String columnFamily;
+
+        Namespace(String columnFamily) {
+            this.columnFamily = columnFamily;
+        }
+    }
+
+    private final RocksDBMetricsConfig.RocksDBMetrics rocksDBMetrics;
+    private final boolean enabled;
+    private final String path;
+    private final long blockCacheBytes;
+    private final int deliveryLedgerTtlSeconds;
+
+    private final Map<Namespace, ColumnFamilyHandle> handles = new EnumMap<>(Namespace.class);
+    private final List<ColumnFamilyHandle> allHandles = new ArrayList<>();
+    private final Map<Integer, Long> flushStarts = new ConcurrentHashMap<>();
+    private LRUCache blockCache;
+    private DBOptions dbOptions;
+    private ColumnFamilyOptions columnFamilyOptions;
+    private AbstractEventListener eventListener;
+    private TtlDB db;
+
+    public LocalStateStore(RocksDBMetricsConfig.RocksDBMetrics rocksDBMetrics,
+                           @Value("${local-state.enabled:false}") boolean enabled,
+                           @Value("${local-state.path:./local-state}") String path,
+                           @Value("${local-state.block-cache-bytes:67108864}") long blockCacheBytes,
+                           @Value("${local-state.delivery-ledger.ttl-seconds:172800}") int deliveryLedgerTtlSeconds) {
+        this.rocksDBMetrics = rocksDBMetrics;
+        this.enabled = enabled;
+        this.path = path;
+        this.blockCacheBytes = blockCacheBytes;
+        this.deliveryLedgerTtlSeconds = deliveryLedgerTtlSeconds;
+    }
+
+    @PostConstruct
+    public void open() throws RocksDBException {
+        if (!enabled) {
+            return;
+        }
+        RocksDB.loadLibrary();
+        new File(path).mkdirs();
+        blockCache = new LRUCache(blockCacheBytes);
+        columnFamilyOptions = new ColumnFamilyOptions()
+                .setTableFormatConfig(new BlockBasedTableConfig()
+                        .setBlockCache(blockCache)
+                        // Most lookups are point gets for keys that were never written
+                        .setFilterPolicy(new BloomFilter(10)));
+        eventListener = new MetricsListener();
+        dbOptions = new DBOptions()
+                .setCreateIfMissing(true)
+                .setCreateMissingColumnFamilies(true)
+                .setListeners(List.of(eventListener));
+
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        List<Integer> ttls = new ArrayList<>();
+        descriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, columnFamilyOptions));
+        ttls.add(0);
+        for (Namespace namespace : Namespace.values()) {
+            descriptors.add(new ColumnFamilyDescriptor(
+                    namespace.columnFamily.getBytes(StandardCharsets.UTF_8), columnFamilyOptions));
+            // 0 keeps entries forever; expired entries are dropped at compaction
+            ttls.add(namespace == Namespace.DELIVERY_LEDGER ? deliveryLedgerTtlSeconds : 0);
+        }
+        db = TtlDB.open(dbOptions, path, descriptors, allHandles, ttls, false);
+        for (Namespace namespace : Namespace.values()) {
+            handles.put(namespace, allHandles.get(namespace.ordinal() + 1));
+        }
+        rocksDBMetrics.updateBlockCacheSize(blockCacheBytes);
+        log.info("Opened local state store at {}", new File(path).getAbsolutePath());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (db == null) {
+            return;
+        }
+        allHandles.forEach(ColumnFamilyHandle::close);
+        db.close();
+        db = null;
+        dbOptions.close();
+        columnFamilyOptions.close();
+        blockCache.close();
+        eventListener.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public byte[] get(Namespace namespace, String key) {
+        if (db == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            byte[] value = db.get(handles.get(namespace), key.getBytes(StandardCharsets.UTF_8));
+            rocksDBMetrics.recordGetDuration(Duration.ofNanos(System.nanoTime() - start));
+            rocksDBMetrics.incrementReads();
+            if (value != null) {
+                rocksDBMetrics.addBytesRead(value.length);
+            }
+            return value;
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Local state read of " + namespace + " failed", e);
+        }
+    }
+
+    public void put(Namespace namespace, String key, byte[] value) {
+        if (db == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            db.put(handles.get(namespace), key.getBytes(StandardCharsets.UTF_8), value);
+            rocksDBMetrics.recordPutDuration(Duration.ofNanos(System.nanoTime() - start));
+            rocksDBMetrics.incrementWrites();
+            rocksDBMetrics.addBytesWritten(value.length);
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Local state write of " + namespace + " failed", e);
+        }
+    }
+
+    public void delete(Namespace namespace, String key) {
+        if (db == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            db.delete(handles.get(namespace), key.getBytes(StandardCharsets.UTF_8));
+            rocksDBMetrics.recordDeleteDuration(Duration.ofNanos(System.nanoTime() - start));
+            rocksDBMetrics.incrementDeletes();
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Local state delete of " + namespace + " failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${local-state.stats-interval-ms:10000}")
+    public void publishStats() {
+        if (db == null) {
+            return;
+        }
+        try {
+            long keys = 0;
+            long sstBytes = 0;
+            long liveBytes = 0;
+            long memTableBytes = 0;
+            long immutableMemTables = 0;
+            for (ColumnFamilyHandle handle : allHandles) {
+                keys += db.getLongProperty(handle, "rocksdb.estimate-num-keys");
+                sstBytes += db.getLongProperty(handle, "rocksdb.total-sst-files-size");
+                liveBytes += db.getLongProperty(handle, "rocksdb.estimate-live-data-size");
+                memTableBytes += db.getLongProperty(handle, "rocksdb.cur-size-all-mem-tables");
+                immutableMemTables += db.getLongProperty(handle, "rocksdb.num-immutable-mem-table");
+            }
+            rocksDBMetrics.updateStateMetrics(keys, sstBytes, liveBytes, memTableBytes,
+                    // The block cache is shared by all column families
+                    db.getLongProperty("rocksdb.block-cache-usage"), blockCacheBytes,
+                    immutableMemTables,
+                    db.getLongProperty("rocksdb.num-running-compactions"),
+                    db.getLongProperty("rocksdb.num-running-flushes"));
+        } catch (RocksDBException e) {
+            log.warn("Could not read local state store statistics: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs on RocksDB background threads, so it only updates meters
+     */
+    private class MetricsListener extends AbstractEventListener {
+
+        MetricsListener() {
+            super(EnabledEventCallback.ON_FLUSH_BEGIN,
+                    EnabledEventCallback.ON_FLUSH_COMPLETED,
+                    EnabledEventCallback.ON_COMPACTION_COMPLETED,
+                    EnabledEventCallback.ON_STALL_CONDITIONS_CHANGED);
+        }
+
+        @Override
+        public void onFlushBegin(RocksDB db, FlushJobInfo flushJobInfo) {
+            flushStarts.put(flushJobInfo.getJobId(), System.nanoTime());
+        }
+
+        @Override
+        public void onFlushCompleted(RocksDB db, FlushJobInfo flushJobInfo) {
+            rocksDBMetrics.incrementFlushes();
+            Long start = flushStarts.remove(flushJobInfo.getJobId());
+            if (start != null) {
+                rocksDBMetrics.recordFlushDuration(Duration.ofNanos(System.nanoTime() - start));
+            }
+        }
+
+        @Override
+        public void onCompactionCompleted(RocksDB db, CompactionJobInfo compactionJobInfo) {
+            // stats() hands out a native copy
+            try (CompactionJobStats stats = compactionJobInfo.stats()) {
+                rocksDBMetrics.addCompactionRead(stats.totalInputBytes());
+                rocksDBMetrics.addCompactionWrite(stats.totalOutputBytes());
+                rocksDBMetrics.recordCompactionDuration(Duration.ofNanos(stats.elapsedMicros() * 1000));
+            }
+        }
+
+        @Override
+        public void onStallConditionsChanged(WriteStallInfo writeStallInfo) {
+            if (writeStallInfo.getCurrentCondition() != WriteStallCondition.NORMAL
+                    && writeStallInfo.getPreviousCondition() == WriteStallCondition.NORMAL) {
+                rocksDBMetrics.incrementStalls();
+                log.warn("Local state store writes {} on column family {}",
+                        writeStallInfo.getCurrentCondition(), writeStallInfo.getColumnFamilyName());
+            }
+        }
+    }
+}
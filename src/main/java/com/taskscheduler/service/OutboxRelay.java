@@ -0,0 +1,193 @@
+package com.taskscheduler.service;
+
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.taskscheduler.config.SchedulingConfig;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.model.TaskMetaData;
+import com.taskscheduler.model.TaskOutbox;
+import com.taskscheduler.repository.TaskOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactional outbox for timer registrations. A task row and its task_outbox row are written
+ * in one logged batch, so either both exist or neither does, and intake never waits on the
+ * broker. The relay drains each shard oldest first in batches, waits for the broker acks and
+ * deletes the acknowledged prefix with one range delete. A batch with a failed send only
+ * deletes what was acked before the failure, so order within a shard is kept and nothing is
+ * lost; it is at-least-once, duplicates are dropped by the listener's id and status checks.
+ * A node only relays the shards it holds the {@link OutboxShardLeases lease} of, so with several
+ * nodes each row is still sent, and its prefix deleted, by one of them.
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+
+    private final CassandraOperations cassandraOperations;
+    private final TaskOutboxRepository taskOutboxRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final SchedulingLagRecorder schedulingLagRecorder;
+    private final OutboxShardLeases shardLeases;
+    private final String taskRequestsTopic;
+    private final boolean enabled;
+    private final int shards;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final long settleMs;
+
+    private final Counter relayed;
+    private final Counter failures;
+    private final Timer relayLag;
+
+    public OutboxRelay(CassandraOperations cassandraOperations,
+                       TaskOutboxRepository taskOutboxRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       MeterRegistry meterRegistry,
+                       SchedulingLagRecorder schedulingLagRecorder,
+                       OutboxShardLeases shardLeases,
+                       @Value("${kafka.topics.task-requests}") String taskRequestsTopic,
+                       @Value("${outbox.enabled:false}") boolean enabled,
+                       @Value("${outbox.shards:16}") int shards,
+                       @Value("${outbox.batch-size:1000}") int batchSize,
+                       @Value("${outbox.send-timeout-ms:30000}") long sendTimeoutMs,
+                       @Value("${outbox.settle-ms:1000}") long settleMs) {
+        this.cassandraOperations = cassandraOperations;
+        this.taskOutboxRepository = taskOutboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.schedulingLagRecorder = schedulingLagRecorder;
+        this.shardLeases = shardLeases;
+        this.taskRequestsTopic = taskRequestsTopic;
+        this.enabled = enabled;
+        this.shards = shards;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.settleMs = settleMs;
+        this.relayed = Counter.builder("taskscheduler_outbox_relayed_total")
+                .description("Outbox rows published to Kafka and deleted")
+                .register(meterRegistry);
+        this.failures = Counter.builder("taskscheduler_outbox_send_failures_total")
+                .description("Outbox sends that failed and will be retried")
+                .register(meterRegistry);
+        this.relayLag = Timer.builder("taskscheduler_outbox_relay_lag_seconds")
+                .description("Time from outbox write to broker ack")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Write a task together with its outbox row; both land or neither does
+     */
+    public Task saveWithOutbox(Task task) {
+        TaskOutbox outbox = new TaskOutbox();
+        outbox.setShard(Math.floorMod(task.getId().hashCode(), shards));
+        outbox.setSeq(Uuids.timeBased());
+        outbox.setTaskId(task.getId());
+        outbox.setTenant(task.getTenant());
+        outbox.setScheduledAt(task.getScheduledAt());
+        outbox.setStatus(task.getStatus());
+        cassandraOperations.batchOps(DefaultBatchType.LOGGED).insert(task).insert(outbox).execute();
+        return task;
+    }
+
+    /**
+     * Runs on its own scheduler thread since a batch waits up to send-timeout-ms for its acks
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay-interval-ms:200}", scheduler = SchedulingConfig.OUTBOX_RELAY_SCHEDULER)
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            try {
+                // The lease must outlast a batch waiting on its acks, or another node could take the
+                // shard over and send the same rows again
+                while (shardLeases.hold(shard, sendTimeoutMs) && relayBatch(shard)) {
+                    // keep draining a shard while full batches go through
+                }
+            } catch (Exception e) {
+                log.error("Outbox relay of shard {} failed: {}", shard, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @return true when a full batch was relayed and the shard may have more rows
+     */
+    private boolean relayBatch(int shard) {
+        // Rows younger than the settle time are left alone: writers on other nodes may still add
+        // rows with earlier timeuuids, and the range delete below must never cover unread rows
+        UUID before = Uuids.startOf(System.currentTimeMillis() - settleMs);
+        List<TaskOutbox> rows = taskOutboxRepository.findOldest(shard, before, batchSize);
+        if (rows.isEmpty()) {
+            return false;
+        }
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(rows.size());
+        for (TaskOutbox row : rows) {
+            // The outbox seq was minted when the task was written, so it doubles as the create time
+            long createdAt = Uuids.unixTimestamp(row.getSeq());
+            ProducerRecord<String, Object> record = new ProducerRecord<>(taskRequestsTopic, row.getTaskId(), toMetaData(row));
+            SchedulingLagRecorder.addTimestamp(record, SchedulingLagRecorder.HEADER_CREATED_AT, createdAt);
+            sends.add(kafkaTemplate.send(record).whenComplete((result, e) -> {
+                if (e == null) {
+                    schedulingLagRecorder.record(SchedulingLagRecorder.Stage.REQUEST_ACK,
+                            row.getTenant(), System.currentTimeMillis() - createdAt);
+                }
+            }));
+        }
+
+        // Acks arrive in order per partition, but a batch spans partitions, so find the acked prefix
+        int acked = 0;
+        for (CompletableFuture<SendResult<String, Object>> send : sends) {
+            try {
+                send.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                failures.increment();
+                log.warn("Outbox send of task {} failed, retrying from there: {}",
+                        rows.get(acked).getTaskId(), e.getMessage());
+                break;
+            }
+            acked++;
+        }
+        if (acked == 0) {
+            return false;
+        }
+
+        TaskOutbox last = rows.get(acked - 1);
+        taskOutboxRepository.deleteUpTo(shard, last.getSeq());
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < acked; i++) {
+            relayLag.record(now - Uuids.unixTimestamp(rows.get(i).getSeq()), TimeUnit.MILLISECONDS);
+        }
+        relayed.increment(acked);
+        log.debug("Relayed {} outbox rows of shard {}", acked, shard);
+        return acked == batchSize;
+    }
+
+    private static TaskMetaData toMetaData(TaskOutbox row) {
+        TaskMetaData taskMetaData = new TaskMetaData();
+        taskMetaData.setId(row.getTaskId());
+        taskMetaData.setTenant(row.getTenant());
+        taskMetaData.setScheduledAt(row.getScheduledAt());
+        taskMetaData.setStatus(row.getStatus());
+        return taskMetaData;
+    }
+}
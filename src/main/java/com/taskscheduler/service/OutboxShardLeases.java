@@ -0,0 +1,138 @@
+package com.taskscheduler.service;
+
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Ownership of outbox shards across relay instances, so every shard is drained by one node at a
+ * time: each row is published once and the acked prefix is deleted by the node that sent it.
+ * A node owns a shard while it holds its lease row, taken with a lightweight transaction and a
+ * TTL and renewed by the owner before a third of it is left; a node that stops renewing loses its
+ * shards to the others after at most lease-ttl-seconds. max-owned-shards spreads the shards over
+ * the nodes, 0 lets one node take them all.
+ * CREATE TABLE task_outbox_leases (shard int PRIMARY KEY, owner text);
+ */
+@Slf4j
+@Component
+public class OutboxShardLeases {
+
+    private final CqlSession session;
+    private final String owner;
+    private final int leaseTtlSeconds;
+    private final int maxOwnedShards;
+    // Local deadline of each shard's lease held by this node, 0 when not held
+    private final long[] heldUntil;
+
+    private volatile PreparedStatement acquireStatement;
+    private volatile PreparedStatement renewStatement;
+    private volatile PreparedStatement releaseStatement;
+
+    public OutboxShardLeases(CqlSession session,
+                             MeterRegistry meterRegistry,
+                             @Value("${outbox.shards:16}") int shards,
+                             @Value("${outbox.lease-ttl-seconds:60}") int leaseTtlSeconds,
+                             @Value("${outbox.max-owned-shards:0}") int maxOwnedShards) {
+        this.session = session;
+        this.owner = UUID.randomUUID().toString();
+        this.leaseTtlSeconds = leaseTtlSeconds;
+        this.maxOwnedShards = maxOwnedShards > 0 ? maxOwnedShards : shards;
+        this.heldUntil = new long[shards];
+        Gauge.builder("taskscheduler_outbox_owned_shards", this, leases -> leases.ownedShards(System.currentTimeMillis()))
+                .description("Outbox shards this node holds the lease of")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take or renew the lease of a shard
+     *
+     * @param minRemainingMs how long the lease must still hold, e.g. the longest a relay batch takes
+     * @return true when this node owns the shard for at least that long
+     */
+    public synchronized boolean hold(int shard, long minRemainingMs) {
+        long now = System.currentTimeMillis();
+        long ttlMs = leaseTtlSeconds * 1000L;
+        if (heldUntil[shard] > now) {
+            if (heldUntil[shard] - now > Math.max(minRemainingMs, ttlMs * 2 / 3)) {
+                return true;
+            }
+            if (session.execute(renewStatement().bind(leaseTtlSeconds, owner, shard, owner)
+                    .setSerialConsistencyLevel(ConsistencyLevel.LOCAL_SERIAL)).wasApplied()) {
+                heldUntil[shard] = now + ttlMs;
+                return ttlMs > minRemainingMs;
+            }
+            log.warn("Lost the lease of outbox shard {}", shard);
+            heldUntil[shard] = 0;
+            return false;
+        }
+        heldUntil[shard] = 0;
+        if (ownedShards(now) >= maxOwnedShards) {
+            return false;
+        }
+        if (session.execute(acquireStatement().bind(shard, owner, leaseTtlSeconds)
+                .setSerialConsistencyLevel(ConsistencyLevel.LOCAL_SERIAL)).wasApplied()) {
+            log.info("Took the lease of outbox shard {}", shard);
+            heldUntil[shard] = now + ttlMs;
+            return ttlMs > minRemainingMs;
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public synchronized void releaseAll() {
+        long now = System.currentTimeMillis();
+        for (int shard = 0; shard < heldUntil.length; shard++) {
+            if (heldUntil[shard] > now) {
+                try {
+                    session.execute(releaseStatement().bind(shard, owner)
+                            .setSerialConsistencyLevel(ConsistencyLevel.LOCAL_SERIAL));
+                } catch (Exception e) {
+                    log.warn("Could not release outbox shard {}, it frees up when the lease expires: {}",
+                            shard, e.getMessage());
+                }
+            }
+            heldUntil[shard] = 0;
+        }
+    }
+
+    private synchronized int ownedShards(long now) {
+        int owned = 0;
+        for (long until : heldUntil) {
+            if (until > now) {
+                owned++;
+            }
+        }
+        return owned;
+    }
+
+    private PreparedStatement acquireStatement() {
+        if (acquireStatement == null) {
+            acquireStatement = session.prepare(
+                    "INSERT INTO task_outbox_leases (shard, owner) VALUES (?, ?) IF NOT EXISTS USING TTL ?");
+        }
+        return acquireStatement;
+    }
+
+    private PreparedStatement renewStatement() {
+        if (renewStatement == null) {
+            renewStatement = session.prepare(
+                    "UPDATE task_outbox_leases USING TTL ? SET owner = ? WHERE shard = ? IF owner = ?");
+        }
+        return renewStatement;
+    }
+
+    private PreparedStatement releaseStatement() {
+        if (releaseStatement == null) {
+            releaseStatement = session.prepare("DELETE FROM task_outbox_leases WHERE shard = ? IF owner = ?");
+        }
+        return releaseStatement;
+    }
+}
@@ -0,0 +1,38 @@
+package com.taskscheduler.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces callers to a maximum rate shared across threads.
+ * Each acquire reserves the next free time slot with a single CAS and parks until it is due.
+ */
+public final class PacingThrottle {
+
+    private final long intervalNanos;
+    private final AtomicLong nextFree = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param maxPerSecond permits per second, 0 or less disables pacing
+     */
+    public PacingThrottle(long maxPerSecond) {
+        this.intervalNanos = maxPerSecond > 0 ? 1_000_000_000L / maxPerSecond : 0;
+    }
+
+    public void acquire() {
+        acquire(1);
+    }
+
+    public void acquire(int permits) {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long cost = intervalNanos * permits;
+        long slot = nextFree.getAndUpdate(next -> Math.max(next, now) + cost);
+        long wait = Math.max(slot, now) - now;
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.Untraced;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * LRU cache of task payloads bounded by total payload size and entry age.
+ * Claim-check deliveries put the payload here when the reference is published, so the
+ * consumer's fetch that follows is served from memory instead of Cassandra.
+ */
+@Component
+@Untraced
+public class PayloadCache {
+
+    private final long maxBytes;
+    private final long ttlMs;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PayloadCache(MeterRegistry meterRegistry,
+                        @Value("${delivery.claim-check.cache-max-bytes:268435456}") long maxBytes,
+                        @Value("${delivery.claim-check.cache-ttl-ms:600000}") long ttlMs) {
+        this.maxBytes = maxBytes;
+        this.ttlMs = ttlMs;
+        this.hits = Counter.builder("taskscheduler_payload_cache_requests_total")
+                .description("Payload cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("taskscheduler_payload_cache_requests_total")
+                .description("Payload cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_payload_cache_bytes", this, PayloadCache::size)
+                .description("Approximate bytes held by the payload cache")
+                .register(meterRegistry);
+    }
+
+    public synchronized void put(String taskId, String payload) {
+        if (payload == null) {
+            return;
+        }
+        long bytes = (long) payload.length() * 2;
+        if (bytes > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(taskId, new Entry(payload, System.currentTimeMillis() + ttlMs));
+        if (previous != null) {
+            totalBytes -= (long) previous.payload.length() * 2;
+        }
+        totalBytes += bytes;
+        evict();
+    }
+
+    public synchronized String get(String taskId) {
+        Entry entry = entries.get(taskId);
+        if (entry == null || entry.expiresAt < System.currentTimeMillis()) {
+            if (entry != null) {
+                remove(taskId);
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.payload;
+    }
+
+    public synchronized void remove(String taskId) {
+        Entry removed = entries.remove(taskId);
+        if (removed != null) {
+            totalBytes -= (long) removed.payload.length() * 2;
+        }
+    }
+
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    private void evict() {
+        // Access order puts the least recently used entries first; expired entries further
+        // in are dropped lazily by get()
+        long now = System.currentTimeMillis();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (eldest.hasNext()) {
+            Entry entry = eldest.next();
+            if (totalBytes <= maxBytes && entry.expiresAt >= now) {
+                break;
+            }
+            totalBytes -= (long) entry.payload.length() * 2;
+            eldest.remove();
+        }
+    }
+
+    private record Entry(String payload, long expiresAt) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.taskscheduler.service;
+
+/**
+ * Compression codec for task payloads. Implementations are Spring beans and are selected by
+ * {@link #name()}, which is stored next to the compressed payload as its codec marker.
+ */
+public interface PayloadCodec {
+
+    String name();
+
+    byte[] encode(byte[] data);
+
+    byte[] decode(byte[] data);
+}
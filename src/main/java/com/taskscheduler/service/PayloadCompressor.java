@@ -0,0 +1,147 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.Untraced;
+import com.taskscheduler.model.Task;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transparent compression of large task payloads.
+ * Payloads at or above the size threshold are stored in payload_data with the codec name in
+ * payload_codec and payload left empty; readers call {@link #decompress(Task)} only when they
+ * actually need the payload text.
+ */
+@Slf4j
+@Service
+@Untraced
+public class PayloadCompressor {
+
+    private final Map<String, PayloadCodec> codecs;
+    private final PayloadCodec codec;
+    private final boolean enabled;
+    private final int thresholdBytes;
+    private final double minSavings;
+
+    private final DistributionSummary compressionRatio;
+    private final Counter bytesSaved;
+    private final Timer compressTime;
+    private final Timer decompressTime;
+
+    public PayloadCompressor(List<PayloadCodec> codecs,
+                             MeterRegistry meterRegistry,
+                             @Value("${payload-compression.enabled:false}") boolean enabled,
+                             @Value("${payload-compression.codec:deflate}") String codecName,
+                             @Value("${payload-compression.threshold-bytes:1024}") int thresholdBytes,
+                             @Value("${payload-compression.min-savings:0.1}") double minSavings) {
+        this.codecs = codecs.stream().collect(Collectors.toMap(PayloadCodec::name, Function.identity()));
+        this.codec = this.codecs.get(codecName);
+        if (this.codec == null) {
+            throw new IllegalStateException("Unknown payload codec: " + codecName + ", available: " + this.codecs.keySet());
+        }
+        this.enabled = enabled;
+        this.thresholdBytes = thresholdBytes;
+        this.minSavings = minSavings;
+
+        this.compressionRatio = DistributionSummary.builder("taskscheduler_payload_compression_ratio")
+                .description("Original to compressed size ratio of compressed payloads")
+                .tag("codec", codecName)
+                .register(meterRegistry);
+        this.bytesSaved = Counter.builder("taskscheduler_payload_bytes_saved_total")
+                .description("Bytes saved by payload compression")
+                .tag("codec", codecName)
+                .register(meterRegistry);
+        this.compressTime = Timer.builder("taskscheduler_payload_compress_duration_seconds")
+                .description("CPU time spent compressing payloads")
+                .tag("codec", codecName)
+                .register(meterRegistry);
+        this.decompressTime = Timer.builder("taskscheduler_payload_decompress_duration_seconds")
+                .description("CPU time spent decompressing payloads")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Replace a large payload with its compressed form before the task is written.
+     * Payloads that do not shrink by at least min-savings are left as text.
+     */
+    public void compress(Task task) {
+        ByteBuffer compressed = encode(task.getPayload());
+        if (compressed == null) {
+            return;
+        }
+        task.setPayload(null);
+        task.setPayloadCodec(codec.name());
+        task.setPayloadData(compressed);
+    }
+
+    /**
+     * Restore the payload text of a task read from storage, no-op for uncompressed payloads
+     */
+    public Task decompress(Task task) {
+        if (task == null || task.getPayloadCodec() == null) {
+            return task;
+        }
+        task.setPayload(decode(task.getPayloadCodec(), task.getPayloadData(), "Task " + task.getId()));
+        task.setPayloadCodec(null);
+        task.setPayloadData(null);
+        return task;
+    }
+
+    /**
+     * Compressed form of a payload, or null when it is below the threshold or does not
+     * compress well enough to be worth storing that way
+     */
+    public ByteBuffer encode(String payload) {
+        if (!enabled || payload == null || payload.length() < thresholdBytes / 4) {
+            return null;
+        }
+        byte[] raw = payload.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < thresholdBytes) {
+            return null;
+        }
+        long start = System.nanoTime();
+        byte[] compressed = codec.encode(raw);
+        compressTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (compressed.length > raw.length * (1 - minSavings)) {
+            return null;
+        }
+        compressionRatio.record((double) raw.length / compressed.length);
+        bytesSaved.increment(raw.length - compressed.length);
+        return ByteBuffer.wrap(compressed);
+    }
+
+    public String codecName() {
+        return codec.name();
+    }
+
+    public String decode(String codecName, ByteBuffer payloadData, String owner) {
+        PayloadCodec dataCodec = codecs.get(codecName);
+        if (dataCodec == null) {
+            throw new IllegalStateException(owner + " uses unknown payload codec: " + codecName);
+        }
+        ByteBuffer data = payloadData.duplicate();
+        byte[] compressed = new byte[data.remaining()];
+        data.get(compressed);
+        long start = System.nanoTime();
+        byte[] raw = dataCodec.decode(compressed);
+        decompressTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    public List<Task> decompressAll(List<Task> tasks) {
+        tasks.forEach(this::decompress);
+        return tasks;
+    }
+}
@@ -0,0 +1,102 @@
+package com.taskscheduler.service;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of document ids stored as delta-encoded varints.
+ * Document ids are handed out in increasing order, so indexing a new task is an append;
+ * inserting below the current maximum or removing an id re-encodes the list.
+ * Not thread-safe, callers synchronize through {@link TaskSearchIndex}.
+ */
+final class PostingList {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] bytes = EMPTY;
+    private int length;   // used bytes
+    private int size;     // number of ids
+    private int last = -1;
+
+    int size() {
+        return size;
+    }
+
+    int encodedBytes() {
+        return length;
+    }
+
+    void add(int docId) {
+        if (docId > last) {
+            append(docId);
+            return;
+        }
+        int[] ids = toArray();
+        int pos = Arrays.binarySearch(ids, docId);
+        if (pos >= 0) {
+            return;
+        }
+        int insert = -pos - 1;
+        int[] merged = new int[ids.length + 1];
+        System.arraycopy(ids, 0, merged, 0, insert);
+        merged[insert] = docId;
+        System.arraycopy(ids, insert, merged, insert + 1, ids.length - insert);
+        rebuild(merged, merged.length);
+    }
+
+    void remove(int docId) {
+        if (docId > last || size == 0) {
+            return;
+        }
+        int[] ids = toArray();
+        int pos = Arrays.binarySearch(ids, docId);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, ids.length - pos - 1);
+        rebuild(ids, ids.length - 1);
+    }
+
+    int[] toArray() {
+        int[] ids = new int[size];
+        int pos = 0;
+        int doc = -1;
+        for (int i = 0; i < size; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += delta;
+            ids[i] = doc;
+        }
+        return ids;
+    }
+
+    private void rebuild(int[] ids, int count) {
+        bytes = EMPTY;
+        length = 0;
+        size = 0;
+        last = -1;
+        for (int i = 0; i < count; i++) {
+            append(ids[i]);
+        }
+    }
+
+    private void append(int docId) {
+        // Deltas start from -1 so the first id is always encoded as a positive delta
+        int delta = docId - last;
+        if (length + 5 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(8, bytes.length * 2));
+        }
+        while ((delta & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        bytes[length++] = (byte) delta;
+        last = docId;
+        size++;
+    }
+}
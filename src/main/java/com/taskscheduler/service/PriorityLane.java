@@ -0,0 +1,24 @@
+package com.taskscheduler.service;
+
+/**
+ * Dispatch lane of a task, derived from {@code Task.priority}
+ */
+public enum PriorityLane {
+    HIGH,
+    MEDIUM,
+    LOW;
+
+    /**
+     * Lane for a stored priority; unknown or missing priorities go to MEDIUM, the create default
+     */
+    public static PriorityLane of(String priority) {
+        if (priority != null) {
+            for (PriorityLane lane : values()) {
+                if (lane.name().equalsIgnoreCase(priority)) {
+                    return lane;
+                }
+            }
+        }
+        return MEDIUM;
+    }
+}
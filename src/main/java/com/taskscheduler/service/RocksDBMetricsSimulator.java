@@ -1,14 +1,17 @@
 package com.taskscheduler.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
  * Component to periodically update RocksDB metrics for demonstration
- * This simulates RocksDB operations and updates metrics that will appear in actuator/prometheus
+ * This simulates RocksDB operations and updates metrics that will appear in actuator/prometheus.
+ * Only active under the demo profile, otherwise the rocksdb_* meters come from LocalStateStore.
  */
 @Component
+@Profile("demo")
 public class RocksDBMetricsSimulator {
 
     @Autowired
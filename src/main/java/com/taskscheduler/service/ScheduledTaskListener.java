@@ -1,84 +1,305 @@
 package com.taskscheduler.service;
 
+import com.taskscheduler.dto.DeliveredTaskRef;
+import com.taskscheduler.dto.ScheduledTaskRef;
+import com.taskscheduler.dto.TaskEvent;
 import com.taskscheduler.model.Task;
-import com.taskscheduler.model.TaskMetaData;
+import com.taskscheduler.model.TaskSummary;
 import com.taskscheduler.repository.TaskRepository;
+import com.taskscheduler.repository.TaskSummaryRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.UUID;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 @Slf4j
 @Service
 public class ScheduledTaskListener {
 
+    // Outside a transaction an acked record is already visible to consumers
+    private static final CompletableFuture<Void> DELIVERED_ON_ACK = CompletableFuture.completedFuture(null);
+
     private final TaskRepository taskRepository;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TaskEventBus taskEventBus;
+    private final SharedPayloadStore sharedPayloadStore;
     private final String deliveredTasksTopic;
+    private final boolean deliverCompressed;
+    private final PayloadCache payloadCache;
+    private final boolean claimCheckEnabled;
+    private final int claimCheckThresholdBytes;
+    private final DeliveryEnvelopeBatcher envelopeBatcher;
+    private final FanOutService fanOutService;
+    private final TaskSummaryRepository taskSummaryRepository;
+    private final LaneDispatcher laneDispatcher;
+    private final boolean lanesEnabled;
+    private final String mediumLaneTopic;
+    private final String lowLaneTopic;
+    private final String scheduledTasksTopic;
+    private final TenantFairShare tenantFairShare;
+    private final long fairShareMaxWaitMs;
+    private final ConsumerFlowController consumerFlowController;
+    private final SchedulingLagRecorder schedulingLagRecorder;
+    private final DeliveryLedger deliveryLedger;
 
     public ScheduledTaskListener(TaskRepository taskRepository,
                                 KafkaTemplate<String, Object> kafkaTemplate,
-                                @Value("${kafka.topics.delivered-tasks:delivered-tasks}") String deliveredTasksTopic) {
+                                TaskEventBus taskEventBus,
+                                SharedPayloadStore sharedPayloadStore,
+                                @Value("${kafka.topics.delivered-tasks:delivered-tasks}") String deliveredTasksTopic,
+                                @Value("${payload-compression.deliver-compressed:false}") boolean deliverCompressed,
+                                PayloadCache payloadCache,
+                                @Value("${delivery.claim-check.enabled:false}") boolean claimCheckEnabled,
+                                @Value("${delivery.claim-check.threshold-bytes:65536}") int claimCheckThresholdBytes,
+                                DeliveryEnvelopeBatcher envelopeBatcher,
+                                FanOutService fanOutService,
+                                TaskSummaryRepository taskSummaryRepository,
+                                LaneDispatcher laneDispatcher,
+                                @Value("${priority-lanes.enabled:false}") boolean lanesEnabled,
+                                @Value("${priority-lanes.medium.topic:scheduled-tasks-medium}") String mediumLaneTopic,
+                                @Value("${priority-lanes.low.topic:scheduled-tasks-low}") String lowLaneTopic,
+                                @Value("${kafka.topics.scheduled-tasks}") String scheduledTasksTopic,
+                                TenantFairShare tenantFairShare,
+                                @Value("${delivery.fair-share.max-wait-ms:1000}") long fairShareMaxWaitMs,
+                                ConsumerFlowController consumerFlowController,
+                                SchedulingLagRecorder schedulingLagRecorder,
+                                DeliveryLedger deliveryLedger) {
         this.taskRepository = taskRepository;
         this.kafkaTemplate = kafkaTemplate;
+        this.taskEventBus = taskEventBus;
+        this.sharedPayloadStore = sharedPayloadStore;
         this.deliveredTasksTopic = deliveredTasksTopic;
+        this.deliverCompressed = deliverCompressed;
+        this.payloadCache = payloadCache;
+        this.claimCheckEnabled = claimCheckEnabled;
+        this.claimCheckThresholdBytes = claimCheckThresholdBytes;
+        this.envelopeBatcher = envelopeBatcher;
+        this.fanOutService = fanOutService;
+        this.taskSummaryRepository = taskSummaryRepository;
+        this.laneDispatcher = laneDispatcher;
+        this.lanesEnabled = lanesEnabled;
+        this.mediumLaneTopic = mediumLaneTopic;
+        this.lowLaneTopic = lowLaneTopic;
+        this.scheduledTasksTopic = scheduledTasksTopic;
+        this.tenantFairShare = tenantFairShare;
+        this.fairShareMaxWaitMs = fairShareMaxWaitMs;
+        this.consumerFlowController = consumerFlowController;
+        this.schedulingLagRecorder = schedulingLagRecorder;
+        this.deliveryLedger = deliveryLedger;
     }
 
     @KafkaListener(
+            id = ConsumerFlowController.CONTAINER_ID,
+            idIsGroup = false,
             topics = "${kafka.topics.scheduled-tasks}",
             groupId = "task-scheduler-platform",
             containerFactory = "batchKafkaListenerContainerFactory"
     )
-    public void handleScheduledTaskMetadata(List<TaskMetaData> tasks) {
-        log.info("Received {} scheduled tasks from Flink", tasks.size());
-
-        // Remove duplicates based on task id only
-        List<TaskMetaData> uniqueTasks = tasks.stream()
-                .collect(Collectors.toMap(
-                        TaskMetaData::getId,  // Key: task id
-                        task -> task,          // Value: the task itself
-                        (existing, replacement) -> existing  // Keep first occurrence in case of duplicate
-                ))
-                .values()
-                .stream()
-                .collect(Collectors.toList());
+    public void handleScheduledTaskMetadata(List<ConsumerRecord<String, ScheduledTaskRef>> records) {
+        log.info("Received {} scheduled tasks from Flink", records.size());
+        long start = System.nanoTime();
+        Map<String, ScheduledTaskRef> uniqueTasks = dedup(refsOf(records));
+        if (lanesEnabled) {
+            routeToLanes(uniqueTasks);
+        } else {
+            dispatch(uniqueTasks, null);
+        }
+        consumerFlowController.recordBatch(records.size(), System.nanoTime() - start);
+    }
+
+    @KafkaListener(
+            topics = "${priority-lanes.medium.topic:scheduled-tasks-medium}",
+            groupId = "task-scheduler-platform",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${priority-lanes.enabled:false}"
+    )
+    public void handleMediumLane(List<ConsumerRecord<String, ScheduledTaskRef>> records) {
+        dispatch(dedup(refsOf(records)), PriorityLane.MEDIUM);
+    }
+
+    @KafkaListener(
+            topics = "${priority-lanes.low.topic:scheduled-tasks-low}",
+            groupId = "task-scheduler-platform",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${priority-lanes.enabled:false}"
+    )
+    public void handleLowLane(List<ConsumerRecord<String, ScheduledTaskRef>> records) {
+        dispatch(dedup(refsOf(records)), PriorityLane.LOW);
+    }
+
+    private static List<ScheduledTaskRef> refsOf(List<ConsumerRecord<String, ScheduledTaskRef>> records) {
+        long now = System.currentTimeMillis();
+        List<ScheduledTaskRef> refs = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, ScheduledTaskRef> record : records) {
+            ScheduledTaskRef ref = record.value();
+            if (ref == null) {
+                Header failure = record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER);
+                if (failure != null) {
+                    // Undecodable record: skipped with the batch rather than retried forever
+                    log.error("Skipping undecodable record {}-{}@{} (key {})",
+                            record.topic(), record.partition(), record.offset(), record.key());
+                }
+                continue;
+            }
+            // Lane forwards and requeues carry the time the timer originally fired
+            Header firedAt = record.headers().lastHeader(SchedulingLagRecorder.HEADER_FIRED_AT);
+            ref.setFiredAt(firedAt != null
+                    ? Long.parseLong(new String(firedAt.value(), StandardCharsets.UTF_8))
+                    : record.timestamp());
+            ref.setConsumedAt(now);
+            refs.add(ref);
+        }
+        return refs;
+    }
+
+    /**
+     * Re-publish a fired timer to another scheduled-tasks topic, keeping its original fire time
+     */
+    private CompletableFuture<?> forward(String topic, ScheduledTaskRef ref) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, ref.getId(), ref.materialize());
+        SchedulingLagRecorder.addTimestamp(record, SchedulingLagRecorder.HEADER_FIRED_AT, ref.getFiredAt());
+        return kafkaTemplate.send(record);
+    }
+
+    private Map<String, ScheduledTaskRef> dedup(List<ScheduledTaskRef> tasks) {
+        // Remove duplicates based on task id only, keeping the first occurrence
+        Map<String, ScheduledTaskRef> uniqueTasks = new HashMap<>(tasks.size() * 2);
+        for (ScheduledTaskRef task : tasks) {
+            if (task != null && task.getId() != null) {
+                uniqueTasks.putIfAbsent(task.getId(), task);
+            }
+        }
 
         log.info("Processing {} unique tasks (removed {} duplicates)",
                 uniqueTasks.size(), tasks.size() - uniqueTasks.size());
+        return uniqueTasks;
+    }
 
-        // Extract task IDs for batch fetch
-        List<String> taskIds = uniqueTasks.stream()
-                .map(TaskMetaData::getId)
-                .collect(Collectors.toList());
+    /**
+     * Split fired timers by priority using a payload-free read. HIGH tasks are dispatched right
+     * away; MEDIUM and LOW timers are forwarded to their lane topics, whose own consumers work
+     * through them, so a LOW burst queues up in its lane topic instead of ahead of HIGH tasks.
+     * The forwards are acked before this batch's offsets are committed.
+     */
+    private void routeToLanes(Map<String, ScheduledTaskRef> uniqueTasks) {
+        List<TaskSummary> priorities = taskSummaryRepository.findPrioritiesByIdIn(new ArrayList<>(uniqueTasks.keySet()));
+        Map<String, ScheduledTaskRef> high = new HashMap<>();
+        List<CompletableFuture<?>> forwards = new ArrayList<>();
+        for (TaskSummary summary : priorities) {
+            ScheduledTaskRef ref = uniqueTasks.get(summary.getId());
+            switch (PriorityLane.of(summary.getPriority())) {
+                case HIGH -> high.put(summary.getId(), ref);
+                case MEDIUM -> forwards.add(forward(mediumLaneTopic, ref));
+                case LOW -> forwards.add(forward(lowLaneTopic, ref));
+            }
+        }
+        log.info("Routed {} tasks: {} HIGH dispatched, {} forwarded to MEDIUM/LOW lanes",
+                priorities.size(), high.size(), forwards.size());
+        if (!high.isEmpty()) {
+            dispatch(high, PriorityLane.HIGH);
+        }
+        CompletableFuture.allOf(forwards.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * Put held-back timers back on the topic they came from, behind the timers of other tenants.
+     * When a whole batch is held back the caller first waits for the next token, so a single
+     * throttled tenant does not spin through its own requeued records.
+     */
+    private void requeue(TenantFairShare.Admission admission, PriorityLane lane) {
+        if (admission.admitted().isEmpty() && admission.waitNanos() > 0) {
+            LockSupport.parkNanos(Math.min(admission.waitNanos(), TimeUnit.MILLISECONDS.toNanos(fairShareMaxWaitMs)));
+        }
+        String topic = lane == PriorityLane.MEDIUM ? mediumLaneTopic
+                : lane == PriorityLane.LOW ? lowLaneTopic
+                : scheduledTasksTopic;
+        List<CompletableFuture<?>> sends = new ArrayList<>(admission.heldBack().size());
+        for (ScheduledTaskRef ref : admission.heldBack()) {
+            sends.add(forward(topic, ref));
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+        log.info("Held back {} tasks of tenants over their delivery rate, requeued to {}",
+                admission.heldBack().size(), topic);
+    }
+
+    private static List<Task> inOrder(List<Task> tasks, List<ScheduledTaskRef> order) {
+        Map<String, Task> byId = new HashMap<>(tasks.size() * 2);
+        tasks.forEach(task -> byId.put(task.getId(), task));
+        List<Task> ordered = new ArrayList<>(tasks.size());
+        for (ScheduledTaskRef ref : order) {
+            Task task = byId.get(ref.getId());
+            if (task != null) {
+                ordered.add(task);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Deliver a batch of fired timers
+     *
+     * @param lane priority lane whose share of the dispatch threads to use, null for the
+     *             common pool when priority lanes are off
+     */
+    private void dispatch(Map<String, ScheduledTaskRef> uniqueTasks, PriorityLane lane) {
+        List<ScheduledTaskRef> fairOrder = null;
+        if (tenantFairShare.isEnabled()) {
+            // Tenants over their rate are held back before anything is read from Cassandra
+            TenantFairShare.Admission admission = tenantFairShare.admit(uniqueTasks.values());
+            if (!admission.heldBack().isEmpty()) {
+                requeue(admission, lane);
+                uniqueTasks = new HashMap<>(uniqueTasks);
+                uniqueTasks.keySet().retainAll(admission.admitted().stream().map(ScheduledTaskRef::getId).toList());
+            }
+            fairOrder = admission.admitted();
+        }
 
         // Batch fetch all tasks from Cassandra using IN clause
-        log.info("Batch fetching {} tasks from Cassandra", taskIds.size());
-        List<Task> taskList = taskRepository.findAllByIdIn(taskIds);
+        log.info("Batch fetching {} tasks from Cassandra", uniqueTasks.size());
+        List<Task> taskList = uniqueTasks.isEmpty()
+                ? List.of()
+                : taskRepository.findAllByIdIn(new ArrayList<>(uniqueTasks.keySet()));
         log.info("Fetched {} tasks from Cassandra", taskList.size());
+        long fetchedAt = System.currentTimeMillis();
+        uniqueTasks.values().forEach(ref -> ref.setFetchedAt(fetchedAt));
+        if (fairOrder != null) {
+            taskList = inOrder(taskList, fairOrder);
+        }
 
-        // Create a map of task ID to TaskMetaData for easy lookup
-        java.util.Map<String, TaskMetaData> taskMetaDataMap = uniqueTasks.stream()
-                .collect(Collectors.toMap(TaskMetaData::getId, t -> t));
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            processInTransaction(taskList, uniqueTasks);
+            return;
+        }
 
-        // Process tasks in parallel
+        // Process tasks in parallel, each future completes once the task's status update is done
         List<CompletableFuture<Void>> futures = new ArrayList<>();
         for (Task task : taskList) {
-            TaskMetaData taskMetaData = taskMetaDataMap.get(task.getId());
-            Long scheduledAt = taskMetaData != null ? taskMetaData.getScheduledAt() : null;
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> processTask(task, scheduledAt));
-            futures.add(future);
+            ScheduledTaskRef ref = uniqueTasks.get(task.getId());
+            CompletableFuture<CompletableFuture<Void>> started = lane != null
+                    ? laneDispatcher.submit(lane, task.getScheduledAt(), () -> processTask(task, ref))
+                    : CompletableFuture.supplyAsync(() -> processTask(task, ref));
+            futures.add(started.thenCompose(acked -> acked));
         }
 
-        // Wait for all futures to complete
+        // Wait for all deliveries to be acked, so the batch's offsets are committed after them
         CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
         log.info("Completed processing {} tasks", taskList.size());
@@ -130,26 +351,210 @@ public class ScheduledTaskListener {
         */
     }
 
-    private void processTask(Task task, Long scheduledAt) {
+    /**
+     * Exactly-once path, used when the container runs each poll batch in a Kafka transaction.
+     * Deliveries are sent on the container thread so they join the transaction together with
+     * the offset commit, and the Cassandra status updates wait for the commit: an aborted batch
+     * is redelivered with its tasks still CREATED and is simply delivered again. Envelopes are
+     * flushed by the batcher just before the commit.
+     */
+    private void processInTransaction(List<Task> taskList, Map<String, ScheduledTaskRef> uniqueTasks) {
+        List<Task> delivered = new ArrayList<>(taskList.size());
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                CompletableFuture.allOf(delivered.stream()
+                        .map(task -> CompletableFuture.runAsync(() -> markDelivered(task)))
+                        .toArray(CompletableFuture[]::new)).join();
+                log.info("Committed transaction with {} deliveries", delivered.size());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    committed.complete(null);
+                } else {
+                    committed.completeExceptionally(new IllegalStateException("Delivery transaction rolled back"));
+                }
+            }
+        });
+        for (Task task : taskList) {
+            // Failures propagate so the transaction aborts instead of committing a partial batch
+            if (deliver(task, uniqueTasks.get(task.getId()), committed) != null) {
+                delivered.add(task);
+            }
+        }
+    }
+
+    /**
+     * @return completes once the task is marked DELIVERED, or left CREATED after a failed send
+     */
+    private CompletableFuture<Void> processTask(Task task, ScheduledTaskRef ref) {
         try {
-            log.info("Processing task: {} with status: {} and scheduledAt from metadata: {}", 
-                    task.getId(), task.getStatus(), scheduledAt);
-
-            // Check if status is SCHEDULED
-            if ("CREATED".equals(task.getStatus()) && task.getScheduledAt().equals(scheduledAt)) {
-                // Publish message to Kafka
-                kafkaTemplate.send(deliveredTasksTopic, task.getId(), task);
-                log.info("Published task {} to Kafka topic: {}", task.getId(), deliveredTasksTopic);
-
-                // Update status to DELIVERED and save immediately
-                task.setStatus("DELIVERED");
-                taskRepository.save(task);
-                log.info("Updated task {} status to DELIVERED in Cassandra", task.getId());
-            } else {
-                log.warn("Task {} has status {} - skipping", task.getId(), task.getStatus());
+            if (deliveryLedger.isDelivered(task, ref)) {
+                // Published here before the status update was lost, only the status is left to fix
+                log.info("Task {} already delivered by this node, updating status only", task.getId());
+                markDelivered(task);
+                return CompletableFuture.completedFuture(null);
             }
+            CompletableFuture<?> acked = deliver(task, ref, DELIVERED_ON_ACK);
+            if (acked == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            // A delivery waiting in an envelope is not delivered yet: the ledger entry and the status
+            // follow the broker ack, so a failed send is never skipped as delivered on redelivery
+            return acked.thenRunAsync(() -> {
+                deliveryLedger.recordDelivered(task);
+                markDelivered(task);
+            }).exceptionally(e -> {
+                log.error("Error processing task {}, left CREATED: {}", task.getId(), e.getMessage(), e);
+                return null;
+            });
         } catch (Exception e) {
             log.error("Error processing task {}: {}", task.getId(), e.getMessage(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Publish a task whose timer fired
+     *
+     * @param visible completes once acked records are visible to consumers: right away outside a
+     *                transaction, on commit inside one
+     * @return completes when the broker acked every record of the delivery, null when the task
+     *         was skipped because it changed after the timer was set or its payload expired
+     */
+    private CompletableFuture<?> deliver(Task task, ScheduledTaskRef ref, CompletableFuture<Void> visible) {
+        try {
+            return publishFired(task, ref, visible);
+        } catch (SharedPayloadExpiredException e) {
+            // Thrown before anything is published; the task stays CREATED with the reason recorded
+            log.error("Cannot deliver task {}: {}", task.getId(), e.getMessage());
+            taskRepository.updateExecutionResult(task.getId(), "Delivery failed: " + e.getMessage(), Instant.now());
+            return null;
+        }
+    }
+
+    private CompletableFuture<?> publishFired(Task task, ScheduledTaskRef ref, CompletableFuture<Void> visible) {
+        Long scheduledAt = ref != null ? ref.getScheduledAt() : null;
+        log.info("Processing task: {} with status: {} and scheduledAt from metadata: {}",
+                task.getId(), task.getStatus(), scheduledAt);
+
+        // Check if status is SCHEDULED
+        if ("CREATED".equals(task.getStatus()) && task.getScheduledAt().equals(scheduledAt)) {
+            recordStageLag(task, ref);
+            if (FanOutService.isFanOut(task)) {
+                // One delivery per recipient, all carrying the template payload
+                sharedPayloadStore.resolveForDelivery(task);
+                // Recipient outcomes count as DISPATCHED only once the deliveries are visible, so a
+                // rolled back batch leaves nothing that a resumed expansion would skip
+                return fanOutService.expand(task, delivery -> publishDelivery(delivery, task.getId(), ref)
+                        .thenCombine(visible, (acked, committed) -> null));
+            }
+            return publishDelivery(task, task.getId(), ref);
         }
+        log.warn("Task {} has status {} and scheduledAt {}, timer record had scheduledAt {} - skipping",
+                task.getId(), task.getStatus(), task.getScheduledAt(), scheduledAt);
+        return null;
+    }
+
+    private void recordStageLag(Task task, ScheduledTaskRef ref) {
+        schedulingLagRecorder.recordSince(SchedulingLagRecorder.Stage.FIRE, task.getTenant(), task.getScheduledAt(), ref.getFiredAt());
+        schedulingLagRecorder.recordSince(SchedulingLagRecorder.Stage.CONSUME, task.getTenant(), task.getScheduledAt(), ref.getConsumedAt());
+        schedulingLagRecorder.recordSince(SchedulingLagRecorder.Stage.FETCH, task.getTenant(), task.getScheduledAt(), ref.getFetchedAt());
+    }
+
+    /**
+     * Encoded size of the payload as it goes on the wire, without encoding it
+     */
+    static int utf8Length(String value) {
+        int bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired, the encoder writes a one-byte replacement
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private void markDelivered(Task task) {
+        // Update status to DELIVERED, without rewriting the payload
+        task.setStatus("DELIVERED");
+        taskRepository.updateStatus(task.getId(), "DELIVERED", Instant.now());
+        log.info("Updated task {} status to DELIVERED in Cassandra", task.getId());
+        taskEventBus.publish(TaskEvent.of(TaskEvent.Type.DELIVERED, task));
+    }
+
+    private CompletableFuture<?> publishDelivery(Task task, String payloadOwnerId, ScheduledTaskRef stages) {
+        if (claimCheckEnabled) {
+            // Large payloads stay in Cassandra; the record carries a reference the consumer can fetch
+            sharedPayloadStore.resolveForDelivery(task);
+            int payloadSize = task.getPayload() != null ? utf8Length(task.getPayload()) : 0;
+            if (payloadSize >= claimCheckThresholdBytes) {
+                payloadCache.put(payloadOwnerId, task.getPayload());
+                DeliveredTaskRef ref = DeliveredTaskRef.of(task, payloadOwnerId, payloadSize);
+                if (envelopeBatcher.isEnabled()) {
+                    return envelopeBatcher.add(ref, lagHeaders(task, stages));
+                }
+                CompletableFuture<?> acked = send(task, ref, stages);
+                log.info("Published claim check for task {} ({} byte payload) to Kafka topic: {}",
+                        task.getId(), payloadSize, deliveredTasksTopic);
+                return acked;
+            }
+        } else if (!deliverCompressed || task.getPayloadHash() != null) {
+            // Consumers cannot resolve shared payloads, those are always delivered as text
+            sharedPayloadStore.resolveForDelivery(task);
+        }
+        // Consumers that understand payloadCodec/payloadData can receive the compressed form
+        if (envelopeBatcher.isEnabled()) {
+            return envelopeBatcher.add(task, lagHeaders(task, stages));
+        }
+        CompletableFuture<?> acked = send(task, task, stages);
+        log.info("Published task {} to Kafka topic: {}", task.getId(), deliveredTasksTopic);
+        return acked;
+    }
+
+    /**
+     * Publish to delivered-tasks with the stage timestamps in headers, so consumers can see where
+     * a late task lost its time, and record the end-to-end lag once the broker acks
+     */
+    /**
+     * Stage timestamps of a delivery, sent as record headers or carried in its envelope
+     */
+    private static Map<String, String> lagHeaders(Task task, ScheduledTaskRef stages) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        SchedulingLagRecorder.putTimestamp(headers, SchedulingLagRecorder.HEADER_SCHEDULED_AT, task.getScheduledAt());
+        if (stages != null) {
+            SchedulingLagRecorder.putTimestamp(headers, SchedulingLagRecorder.HEADER_FIRED_AT, stages.getFiredAt());
+            SchedulingLagRecorder.putTimestamp(headers, SchedulingLagRecorder.HEADER_CONSUMED_AT, stages.getConsumedAt());
+            SchedulingLagRecorder.putTimestamp(headers, SchedulingLagRecorder.HEADER_FETCHED_AT, stages.getFetchedAt());
+        }
+        return headers;
+    }
+
+    private CompletableFuture<?> send(Task task, Object value, ScheduledTaskRef stages) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(deliveredTasksTopic, task.getId(), value);
+        lagHeaders(task, stages).forEach((name, epochMs) ->
+                record.headers().add(name, epochMs.getBytes(StandardCharsets.UTF_8)));
+        SchedulingLagRecorder.addTimestamp(record, SchedulingLagRecorder.HEADER_PUBLISHED_AT, System.currentTimeMillis());
+        return kafkaTemplate.send(record).whenComplete((result, e) -> {
+            if (e == null) {
+                schedulingLagRecorder.recordSince(SchedulingLagRecorder.Stage.DELIVER_ACK,
+                        task.getTenant(), task.getScheduledAt(), System.currentTimeMillis());
+            }
+        });
     }
 }
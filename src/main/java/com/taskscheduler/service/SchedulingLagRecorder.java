@@ -0,0 +1,188 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.Untraced;
+import com.taskscheduler.dto.SchedulingLagResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduling lag per pipeline stage and tenant. For the stages after a timer fires the lag is
+ * how late the task is at that point compared to its scheduledAt; for REQUEST_ACK it is the
+ * intake hop from create to the task-requests ack. Every sample goes to a Micrometer timer
+ * (Prometheus histogram buckets) and to an HdrHistogram recorder that backs the percentile
+ * endpoint with values over the last window and since startup. Both are costly per series,
+ * about 70 bucket series per timer and about 100 KB per HdrHistogram series, so only the first
+ * percentile-tenants tenants get their own; the rest share the "other" timer and histograms.
+ */
+@Component
+@Untraced
+public class SchedulingLagRecorder {
+
+    public enum Stage {
+        // create -> task-requests ack
+        REQUEST_ACK,
+        // scheduledAt -> scheduled-tasks record produced, i.e. when the timer fired
+        FIRE,
+        // scheduledAt -> scheduled-tasks record received by the listener
+        CONSUME,
+        // scheduledAt -> task row fetched from Cassandra
+        FETCH,
+        // scheduledAt -> delivered-tasks ack
+        DELIVER_ACK
+    }
+
+    public static final String HEADER_CREATED_AT = "x-created-at";
+    public static final String HEADER_SCHEDULED_AT = "x-scheduled-at";
+    public static final String HEADER_FIRED_AT = "x-fired-at";
+    public static final String HEADER_CONSUMED_AT = "x-consumed-at";
+    public static final String HEADER_FETCHED_AT = "x-fetched-at";
+    public static final String HEADER_PUBLISHED_AT = "x-published-at";
+
+    private static final String OTHER_TENANTS = "other";
+    private static final String NO_TENANT = "none";
+    // Lags up to a week at millisecond resolution; 2 significant digits (1%) keeps a histogram at 25 KB
+    private static final long MAX_TRACKABLE_MS = TimeUnit.DAYS.toMillis(7);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final MeterRegistry meterRegistry;
+    private final int percentileTenants;
+    private final long windowMs;
+    private final Map<String, String> tenantTags = new ConcurrentHashMap<>();
+    private final Map<Key, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<Key, Series> series = new ConcurrentHashMap<>();
+
+    public SchedulingLagRecorder(MeterRegistry meterRegistry,
+                                 @Value("${lag-histograms.percentile-tenants:10}") int percentileTenants,
+                                 @Value("${lag-histograms.window-ms:60000}") long windowMs) {
+        this.meterRegistry = meterRegistry;
+        this.percentileTenants = percentileTenants;
+        this.windowMs = windowMs;
+    }
+
+    public void record(Stage stage, String tenant, long lagMs) {
+        long clamped = Math.max(0, Math.min(lagMs, MAX_TRACKABLE_MS));
+        Key key = new Key(stage, tag(tenant != null ? tenant : NO_TENANT));
+        timers.computeIfAbsent(key, this::newTimer).record(clamped, TimeUnit.MILLISECONDS);
+        series.computeIfAbsent(key, k -> new Series()).recorder.recordValue(clamped);
+    }
+
+    /**
+     * Record the lag of a fired task at a stage, relative to its scheduledAt
+     */
+    public void recordSince(Stage stage, String tenant, Long scheduledAt, long at) {
+        if (scheduledAt != null) {
+            record(stage, tenant, at - scheduledAt);
+        }
+    }
+
+    /**
+     * Stamp a stage time on an outgoing record as a decimal epoch-millis header
+     */
+    public static void addTimestamp(ProducerRecord<?, ?> record, String header, Long epochMs) {
+        if (epochMs != null && epochMs > 0) {
+            record.headers().add(header, Long.toString(epochMs).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Same as {@link #addTimestamp(ProducerRecord, String, Long)} for a delivery inside an envelope
+     */
+    public static void putTimestamp(Map<String, String> headers, String header, Long epochMs) {
+        if (epochMs != null && epochMs > 0) {
+            headers.put(header, Long.toString(epochMs));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${lag-histograms.window-ms:60000}")
+    public void rotate() {
+        for (Series lag : series.values()) {
+            synchronized (lag) {
+                lag.window = lag.recorder.getIntervalHistogram(lag.window);
+                lag.total.add(lag.window);
+            }
+        }
+    }
+
+    public SchedulingLagResponse report(String stage, String tenant) {
+        List<SchedulingLagResponse.StageLag> stages = new ArrayList<>();
+        series.entrySet().stream()
+                .filter(e -> stage == null || e.getKey().stage.name().equalsIgnoreCase(stage))
+                .filter(e -> tenant == null || e.getKey().tenant.equals(tenant))
+                .sorted(Comparator.comparing((Map.Entry<Key, Series> e) -> e.getKey().stage)
+                        .thenComparing(e -> e.getKey().tenant))
+                .forEach(e -> {
+                    SchedulingLagResponse.StageLag lag = new SchedulingLagResponse.StageLag();
+                    lag.setStage(e.getKey().stage.name());
+                    lag.setTenant(e.getKey().tenant);
+                    synchronized (e.getValue()) {
+                        lag.setWindow(percentiles(e.getValue().window));
+                        lag.setTotal(percentiles(e.getValue().total));
+                    }
+                    stages.add(lag);
+                });
+        SchedulingLagResponse response = new SchedulingLagResponse();
+        response.setWindowMs(windowMs);
+        response.setStages(stages);
+        return response;
+    }
+
+    private String tag(String tenant) {
+        String tag = tenantTags.get(tenant);
+        if (tag != null) {
+            return tag;
+        }
+        return tenantTags.size() < percentileTenants
+                ? tenantTags.computeIfAbsent(tenant, t -> t)
+                : OTHER_TENANTS;
+    }
+
+    private Timer newTimer(Key key) {
+        return Timer.builder("taskscheduler_scheduling_lag_seconds")
+                .description("How late tasks are at each pipeline stage compared to scheduledAt (create for REQUEST_ACK)")
+                .tag("stage", key.stage.name())
+                .tag("tenant", key.tenant)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofHours(1))
+                .register(meterRegistry);
+    }
+
+    private static SchedulingLagResponse.Percentiles percentiles(Histogram histogram) {
+        SchedulingLagResponse.Percentiles percentiles = new SchedulingLagResponse.Percentiles();
+        percentiles.setCount(histogram.getTotalCount());
+        if (histogram.getTotalCount() > 0) {
+            percentiles.setMean(histogram.getMean());
+            percentiles.setP50(histogram.getValueAtPercentile(50));
+            percentiles.setP90(histogram.getValueAtPercentile(90));
+            percentiles.setP99(histogram.getValueAtPercentile(99));
+            percentiles.setP999(histogram.getValueAtPercentile(99.9));
+            percentiles.setMax(histogram.getMaxValue());
+        }
+        return percentiles;
+    }
+
+    private record Key(Stage stage, String tenant) {
+    }
+
+    private static final class Series {
+        private final Recorder recorder = new Recorder(MAX_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+        // Recycled by the recorder on every rotation
+        private Histogram window = recorder.getIntervalHistogram();
+        private final Histogram total = new Histogram(MAX_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+    }
+}
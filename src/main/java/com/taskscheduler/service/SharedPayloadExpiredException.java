@@ -0,0 +1,19 @@
+package com.taskscheduler.service;
+
+import lombok.Getter;
+
+/**
+ * A task references a shared payload whose row has already expired, so there is nothing to deliver
+ */
+@Getter
+public class SharedPayloadExpiredException extends RuntimeException {
+
+    private final String taskId;
+    private final String hash;
+
+    public SharedPayloadExpiredException(String taskId, String hash) {
+        super("Shared payload " + hash + " of task " + taskId + " has expired");
+        this.taskId = taskId;
+        this.hash = hash;
+    }
+}
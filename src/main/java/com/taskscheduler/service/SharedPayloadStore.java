@@ -0,0 +1,234 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.Untraced;
+import com.taskscheduler.model.SharedPayload;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.repository.SharedPayloadRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed storage for payloads that many tasks share, e.g. one notification fanned
+ * out to thousands of recipients. The payload is written once to shared_payloads keyed by its
+ * SHA-256 and tasks keep only payload_hash. Instead of reference counting, a shared row lives
+ * until retention after the latest task that references it is due, and every new reference
+ * or reschedule with a later due time extends that TTL. Resolving goes through a small cache
+ * of hot payloads, so a campaign firing at once reads its payload from Cassandra once.
+ */
+@Slf4j
+@Service
+public class SharedPayloadStore {
+
+    private final SharedPayloadRepository sharedPayloadRepository;
+    private final PayloadCompressor payloadCompressor;
+    private final boolean enabled;
+    private final int minBytes;
+    private final long retentionMs;
+
+    // hash -> payload text of recently written or resolved payloads
+    private final Map<String, String> hotPayloads;
+    // hash -> expiry already stored in Cassandra, so repeated references skip the write
+    private final Map<String, Long> knownExpiry;
+
+    private final Counter dedupedBytes;
+    private final Counter sharedWrites;
+    private final Counter hotHits;
+    private final Counter hotMisses;
+
+    public SharedPayloadStore(SharedPayloadRepository sharedPayloadRepository,
+                              PayloadCompressor payloadCompressor,
+                              MeterRegistry meterRegistry,
+                              @Value("${payload-dedup.enabled:false}") boolean enabled,
+                              @Value("${payload-dedup.min-bytes:256}") int minBytes,
+                              @Value("${payload-dedup.retention-ms:604800000}") long retentionMs,
+                              @Value("${payload-dedup.hot-cache-size:1024}") int hotCacheSize) {
+        this.sharedPayloadRepository = sharedPayloadRepository;
+        this.payloadCompressor = payloadCompressor;
+        this.enabled = enabled;
+        this.minBytes = minBytes;
+        this.retentionMs = retentionMs;
+        this.hotPayloads = lruMap(hotCacheSize);
+        this.knownExpiry = lruMap(hotCacheSize * 16);
+
+        this.dedupedBytes = Counter.builder("taskscheduler_payload_dedup_bytes_total")
+                .description("Payload bytes not written because the payload was already shared")
+                .register(meterRegistry);
+        this.sharedWrites = Counter.builder("taskscheduler_payload_dedup_writes_total")
+                .description("Writes to shared_payloads, including TTL extensions")
+                .register(meterRegistry);
+        this.hotHits = Counter.builder("taskscheduler_payload_dedup_cache_requests_total")
+                .description("Hot payload cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.hotMisses = Counter.builder("taskscheduler_payload_dedup_cache_requests_total")
+                .description("Hot payload cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Move the payload of a task about to be written into shared storage, leaving only its hash.
+     * Payloads below min-bytes stay on the task and go through regular compression.
+     */
+    public void share(Task task) {
+        String payload = task.getPayload();
+        if (!enabled || payload == null || payload.length() < minBytes) {
+            return;
+        }
+        String hash = hash(payload);
+        long now = System.currentTimeMillis();
+        long dueAt = task.getScheduledAt() != null ? Math.max(task.getScheduledAt(), now) : now;
+        long expiresAt = dueAt + retentionMs;
+
+        Long stored = storedExpiry(hash);
+        if (stored != null && stored >= expiresAt) {
+            dedupedBytes.increment(payload.length());
+        } else {
+            ByteBuffer compressed = payloadCompressor.encode(payload);
+            write(hash, compressed == null ? payload : null,
+                    compressed == null ? null : payloadCompressor.codecName(), compressed, expiresAt, now);
+        }
+        synchronized (hotPayloads) {
+            hotPayloads.put(hash, payload);
+        }
+        task.setPayload(null);
+        task.setPayloadHash(hash);
+    }
+
+    /**
+     * Keep a shared payload alive until retention after a referencing task's new due time.
+     * The row is rewritten as stored, only with a longer TTL.
+     *
+     * @return false when the payload has already expired
+     */
+    public boolean extend(String hash, Long scheduledAt) {
+        long now = System.currentTimeMillis();
+        long expiresAt = (scheduledAt != null ? Math.max(scheduledAt, now) : now) + retentionMs;
+        Long stored = storedExpiry(hash);
+        if (stored != null && stored >= expiresAt) {
+            return true;
+        }
+        SharedPayload shared = sharedPayloadRepository.findById(hash).orElse(null);
+        if (shared == null) {
+            log.warn("Shared payload {} has expired, cannot extend it to {}", hash, expiresAt);
+            return false;
+        }
+        write(hash, shared.getPayload(), shared.getPayloadCodec(), shared.getPayloadData(), expiresAt, now);
+        return true;
+    }
+
+    private void write(String hash, String payload, String payloadCodec, ByteBuffer payloadData, long expiresAt, long now) {
+        int ttlSeconds = (int) Math.min(Integer.MAX_VALUE, (expiresAt - now) / 1000 + 1);
+        sharedPayloadRepository.insertWithTtl(hash, payload, payloadCodec, payloadData, expiresAt, ttlSeconds);
+        sharedWrites.increment();
+        synchronized (knownExpiry) {
+            knownExpiry.put(hash, expiresAt);
+        }
+    }
+
+    /**
+     * Restore the payload text of a task read from storage, whether it is shared, compressed
+     * or plain
+     */
+    @Untraced
+    public Task resolve(Task task) {
+        if (task == null) {
+            return null;
+        }
+        if (task.getPayloadHash() != null) {
+            task.setPayload(load(task.getPayloadHash(), task.getId()));
+            task.setPayloadHash(null);
+            return task;
+        }
+        return payloadCompressor.decompress(task);
+    }
+
+    /**
+     * Like {@link #resolve}, but a task whose shared payload has expired cannot be delivered
+     *
+     * @throws SharedPayloadExpiredException instead of leaving the payload null
+     */
+    @Untraced
+    public Task resolveForDelivery(Task task) {
+        String hash = task.getPayloadHash();
+        resolve(task);
+        if (hash != null && task.getPayload() == null) {
+            throw new SharedPayloadExpiredException(task.getId(), hash);
+        }
+        return task;
+    }
+
+    public List<Task> resolveAll(List<Task> tasks) {
+        tasks.forEach(this::resolve);
+        return tasks;
+    }
+
+    private String load(String hash, String taskId) {
+        synchronized (hotPayloads) {
+            String payload = hotPayloads.get(hash);
+            if (payload != null) {
+                hotHits.increment();
+                return payload;
+            }
+        }
+        hotMisses.increment();
+        SharedPayload shared = sharedPayloadRepository.findById(hash).orElse(null);
+        if (shared == null) {
+            log.warn("Shared payload {} of task {} has expired", hash, taskId);
+            return null;
+        }
+        String payload = shared.getPayloadCodec() == null
+                ? shared.getPayload()
+                : payloadCompressor.decode(shared.getPayloadCodec(), shared.getPayloadData(), "Shared payload " + hash);
+        synchronized (hotPayloads) {
+            hotPayloads.put(hash, payload);
+        }
+        return payload;
+    }
+
+    private Long storedExpiry(String hash) {
+        synchronized (knownExpiry) {
+            Long known = knownExpiry.get(hash);
+            if (known != null) {
+                return known;
+            }
+        }
+        Long stored = sharedPayloadRepository.findById(hash).map(SharedPayload::getExpiresAt).orElse(null);
+        if (stored != null) {
+            synchronized (knownExpiry) {
+                knownExpiry.put(hash, stored);
+            }
+        }
+        return stored;
+    }
+
+    private static String hash(String payload) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static <V> Map<String, V> lruMap(int maxEntries) {
+        return new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.Untraced;
+import com.taskscheduler.dto.TaskEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for task lifecycle events.
+ * Publishing is synchronous on the caller thread, so listeners must only buffer and return.
+ */
+@Slf4j
+@Component
+public class TaskEventBus {
+
+    private final List<Consumer<TaskEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    public void subscribe(Consumer<TaskEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(Consumer<TaskEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    @Untraced
+    public void publish(TaskEvent event) {
+        for (Consumer<TaskEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                log.warn("Task event listener failed for task {}: {}", event.getTaskId(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.dto.TaskEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Fans task lifecycle events from the {@link TaskEventBus} out to Server-Sent Events clients.
+ * Every client owns a bounded buffer that coalesces events per task id, so a client only
+ * receives the latest state of each task per flush and a slow client can never hold memory
+ * beyond its buffer capacity.
+ */
+@Slf4j
+@Service
+public class TaskEventStreamService {
+
+    private final TaskEventBus taskEventBus;
+    private final int bufferCapacity;
+    private final long emitterTimeoutMs;
+    private final Set<StreamClient> clients = ConcurrentHashMap.newKeySet();
+    private final Counter droppedEvents;
+    private final Consumer<TaskEvent> listener = this::onEvent;
+
+    public TaskEventStreamService(TaskEventBus taskEventBus,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${task-events.stream.buffer-capacity:1000}") int bufferCapacity,
+                                  @Value("${task-events.stream.emitter-timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.taskEventBus = taskEventBus;
+        this.bufferCapacity = bufferCapacity;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.droppedEvents = Counter.builder("taskscheduler_stream_events_dropped_total")
+                .description("Task events dropped because a stream client buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_stream_clients", clients, Set::size)
+                .description("Number of connected task event stream clients")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        taskEventBus.subscribe(listener);
+    }
+
+    @PreDestroy
+    public void stop() {
+        taskEventBus.unsubscribe(listener);
+        clients.forEach(client -> client.emitter.complete());
+        clients.clear();
+    }
+
+    /**
+     * Register a new stream client, optionally restricted to a single tenant
+     */
+    public SseEmitter subscribe(String tenant) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        StreamClient client = new StreamClient(emitter, tenant == null || tenant.isBlank() ? null : tenant);
+        emitter.onCompletion(() -> clients.remove(client));
+        emitter.onTimeout(() -> clients.remove(client));
+        emitter.onError(e -> clients.remove(client));
+        clients.add(client);
+        log.info("Task event stream client connected (tenant: {}), {} clients", client.tenant, clients.size());
+        return emitter;
+    }
+
+    public void onEvent(TaskEvent event) {
+        for (StreamClient client : clients) {
+            if (client.accepts(event) && !client.offer(event, bufferCapacity)) {
+                droppedEvents.increment();
+            }
+        }
+    }
+
+    /**
+     * Drain every client buffer and push the coalesced events as one SSE message per client
+     */
+    @Scheduled(fixedDelayString = "${task-events.stream.flush-interval-ms:250}")
+    public void flush() {
+        for (StreamClient client : clients) {
+            List<TaskEvent> events = client.drain();
+            if (events.isEmpty()) {
+                continue;
+            }
+            try {
+                client.emitter.send(SseEmitter.event().name("tasks").data(events));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping task event stream client: {}", e.getMessage());
+                clients.remove(client);
+                client.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    /**
+     * Keep idle connections alive through proxies and detect disconnected clients
+     */
+    @Scheduled(fixedDelayString = "${task-events.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (StreamClient client : clients) {
+            try {
+                client.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                clients.remove(client);
+                client.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private static final class StreamClient {
+        private final SseEmitter emitter;
+        private final String tenant;
+        private final LinkedHashMap<String, TaskEvent> pending = new LinkedHashMap<>();
+
+        private StreamClient(SseEmitter emitter, String tenant) {
+            this.emitter = emitter;
+            this.tenant = tenant;
+        }
+
+        private boolean accepts(TaskEvent event) {
+            return tenant == null || tenant.equals(event.getTenant());
+        }
+
+        /**
+         * Buffer the event, replacing any pending event for the same task.
+         * Returns false when the oldest pending event had to be evicted to make room.
+         */
+        private synchronized boolean offer(TaskEvent event, int capacity) {
+            if (pending.remove(event.getTaskId()) != null) {
+                pending.put(event.getTaskId(), event);
+                return true;
+            }
+            boolean evicted = false;
+            if (pending.size() >= capacity) {
+                Iterator<Map.Entry<String, TaskEvent>> oldest = pending.entrySet().iterator();
+                oldest.next();
+                oldest.remove();
+                evicted = true;
+            }
+            pending.put(event.getTaskId(), event);
+            return !evicted;
+        }
+
+        private synchronized List<TaskEvent> drain() {
+            if (pending.isEmpty()) {
+                return List.of();
+            }
+            List<TaskEvent> events = new ArrayList<>(pending.values());
+            pending.clear();
+            return events;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.taskscheduler.service;
+
+/**
+ * No task with the requested id, mapped to 404 Not Found
+ */
+public class TaskNotFoundException extends RuntimeException {
+
+    public TaskNotFoundException(String taskId) {
+        super("Task not found with id: " + taskId);
+    }
+}
@@ -0,0 +1,451 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.dto.FacetSearchResponse;
+import com.taskscheduler.dto.TaskEvent;
+import com.taskscheduler.model.Task;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over task attributes for filter and facet queries.
+ * Indexed fields are tenant, priority, assignedTo, createdBy, status and the configured
+ * parameter keys (as "param.&lt;key&gt;"). Each (field, value) term maps to a compressed
+ * {@link PostingList} of document ids. The index is updated from the create/update path
+ * and from lifecycle events, and can be rebuilt from Cassandra.
+ *
+ * Locking is two-level. The index lock is taken exclusively only to add or re-index a whole
+ * task and to swap in a rebuilt generation. Lifecycle events change a single field, so they
+ * hold the index lock shared plus the write lock of that field; searches hold it shared plus
+ * the read locks of the fields they filter and facet on. Delivery traffic therefore only
+ * waits for, and holds up, searches that touch the status field.
+ */
+@Slf4j
+@Service
+public class TaskSearchIndex {
+
+    public static final String PARAM_PREFIX = "param.";
+    private static final String INDEX_COLUMNS = "id, tenant, parameters, created_by, assigned_to, priority, status";
+    private static final Set<String> ATTRIBUTE_FIELDS = Set.of("tenant", "priority", "assignedTo", "createdBy", "status");
+
+    private final TokenRangeScanner tokenRangeScanner;
+    private final TaskEventBus taskEventBus;
+    private final Set<String> parameterKeys;
+    private final boolean allParameterKeys;
+    private final boolean rebuildOnStartup;
+    private final ExecutorService rebuildExecutor;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, ReentrantReadWriteLock> fieldLocks = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuildRunning = new AtomicBoolean();
+    private final Consumer<TaskEvent> listener = this::onEvent;
+    private IndexState state = new IndexState();
+    // Receives live updates while a rebuild is scanning, swapped in when the scan completes
+    private IndexState rebuilding;
+
+    public TaskSearchIndex(TokenRangeScanner tokenRangeScanner,
+                           TaskEventBus taskEventBus,
+                           MeterRegistry meterRegistry,
+                           @Value("${task-index.parameter-keys:}") String parameterKeys,
+                           @Value("${task-index.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                           @Qualifier("searchIndexRebuildExecutor") ExecutorService rebuildExecutor) {
+        this.tokenRangeScanner = tokenRangeScanner;
+        this.taskEventBus = taskEventBus;
+        this.parameterKeys = Arrays.stream(parameterKeys.split(","))
+                .map(String::trim)
+                .filter(key -> !key.isEmpty())
+                .collect(Collectors.toSet());
+        this.allParameterKeys = this.parameterKeys.contains("*");
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.rebuildExecutor = rebuildExecutor;
+
+        Gauge.builder("taskscheduler_index_documents", this, index -> index.read(s -> s.docIds.size()))
+                .description("Number of tasks in the search index")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_index_posting_bytes", this, TaskSearchIndex::postingBytes)
+                .description("Encoded size of all posting lists in the search index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        taskEventBus.subscribe(listener);
+    }
+
+    @PreDestroy
+    public void stop() {
+        taskEventBus.unsubscribe(listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            startRebuild();
+        }
+    }
+
+    /**
+     * Start a rebuild in the background unless one is already running
+     *
+     * @return false when a rebuild is already running
+     */
+    public boolean startRebuild() {
+        if (!rebuildRunning.compareAndSet(false, true)) {
+            log.info("Search index rebuild already running");
+            return false;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    runRebuild();
+                } finally {
+                    rebuildRunning.set(false);
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            rebuildRunning.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Index or re-index a task after it was written
+     */
+    public void index(Task task) {
+        Map<String, String> terms = termsOf(task);
+        lock.writeLock().lock();
+        try {
+            state.put(task.getId(), terms);
+            if (rebuilding != null) {
+                rebuilding.put(task.getId(), terms);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onEvent(TaskEvent event) {
+        // Create and update are indexed with the full task, events only move the status
+        if (event.getType() != TaskEvent.Type.DELIVERED && event.getType() != TaskEvent.Type.CANCELLED) {
+            return;
+        }
+        ReentrantReadWriteLock.WriteLock fieldLock = fieldLock("status").writeLock();
+        lock.readLock().lock();
+        fieldLock.lock();
+        try {
+            state.updateTerm(event.getTaskId(), "status", event.getStatus());
+            if (rebuilding != null) {
+                rebuilding.updateTerm(event.getTaskId(), "status", event.getStatus());
+            }
+        } finally {
+            fieldLock.unlock();
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the index from Cassandra with a parallel token range scan, on the caller thread
+     */
+    public boolean rebuild() {
+        if (!rebuildRunning.compareAndSet(false, true)) {
+            log.info("Search index rebuild already running");
+            return false;
+        }
+        try {
+            return runRebuild();
+        } finally {
+            rebuildRunning.set(false);
+        }
+    }
+
+    private boolean runRebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            lock.writeLock().lock();
+            try {
+                rebuilding = new IndexState();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            // Parallel scan over the token ring, reading only the indexed columns
+            TokenRangeScanner.ScanOptions options = TokenRangeScanner.ScanOptions.of("tasks", INDEX_COLUMNS);
+            TokenRangeScanner.ScanResult result = tokenRangeScanner.scan(options, Task.class, task -> {
+                Map<String, String> terms = termsOf(task);
+                lock.writeLock().lock();
+                try {
+                    rebuilding.putIfAbsent(task.getId(), terms);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            if (result.getFailedRanges() > 0) {
+                throw new IllegalStateException(result.getFailedRanges() + " token ranges failed");
+            }
+
+            lock.writeLock().lock();
+            try {
+                state = rebuilding;
+            } finally {
+                rebuilding = null;
+                lock.writeLock().unlock();
+            }
+            log.info("Search index rebuilt with {} tasks in {}ms", result.getRows(), System.currentTimeMillis() - start);
+            return true;
+        } catch (Exception e) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Search index rebuild failed: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Task ids matching all filters (field -> value) with value counts for the facet fields
+     */
+    public FacetSearchResponse search(Map<String, String> filters, List<String> facetFields, int limit) {
+        filters.keySet().forEach(this::checkField);
+        facetFields.forEach(this::checkField);
+
+        // Sorted, so concurrent searches take their field locks in one order
+        List<ReentrantReadWriteLock.ReadLock> locked = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<String> fields = new TreeSet<>(filters.keySet());
+            fields.addAll(facetFields);
+            for (String field : fields) {
+                ReentrantReadWriteLock.ReadLock fieldLock = fieldLock(field).readLock();
+                fieldLock.lock();
+                locked.add(fieldLock);
+            }
+            BitSet matches = state.match(filters);
+            FacetSearchResponse response = new FacetSearchResponse();
+            response.setTotal(matches.cardinality());
+
+            List<String> ids = new ArrayList<>(Math.min(limit, response.getTotal()));
+            for (int doc = matches.nextSetBit(0); doc >= 0 && ids.size() < limit; doc = matches.nextSetBit(doc + 1)) {
+                ids.add(state.docIds.get(doc));
+            }
+            response.setIds(ids);
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            for (String field : facetFields) {
+                facets.put(field, state.facetCounts(field, matches));
+            }
+            response.setFacets(facets);
+            return response;
+        } finally {
+            locked.forEach(ReentrantReadWriteLock.ReadLock::unlock);
+            lock.readLock().unlock();
+        }
+    }
+
+    private ReentrantReadWriteLock fieldLock(String field) {
+        return fieldLocks.computeIfAbsent(field, f -> new ReentrantReadWriteLock());
+    }
+
+    private void checkField(String field) {
+        boolean parameter = field.startsWith(PARAM_PREFIX)
+                && (allParameterKeys || parameterKeys.contains(field.substring(PARAM_PREFIX.length())));
+        if (!parameter && !ATTRIBUTE_FIELDS.contains(field)) {
+            throw new IllegalArgumentException("Bad Request: Field is not indexed: " + field);
+        }
+    }
+
+    private Map<String, String> termsOf(Task task) {
+        Map<String, String> terms = new HashMap<>();
+        putTerm(terms, "tenant", task.getTenant());
+        putTerm(terms, "priority", task.getPriority());
+        putTerm(terms, "assignedTo", task.getAssignedTo());
+        putTerm(terms, "createdBy", task.getCreatedBy());
+        putTerm(terms, "status", task.getStatus());
+        if (task.getParameters() != null) {
+            task.getParameters().forEach((key, value) -> {
+                if (allParameterKeys || parameterKeys.contains(key)) {
+                    putTerm(terms, PARAM_PREFIX + key, value);
+                }
+            });
+        }
+        return terms;
+    }
+
+    private static void putTerm(Map<String, String> terms, String field, String value) {
+        if (value != null) {
+            terms.put(field, value);
+        }
+    }
+
+    private <T> T read(java.util.function.Function<IndexState, T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(state);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double postingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (String field : state.postings.keySet()) {
+                ReentrantReadWriteLock.ReadLock fieldLock = fieldLock(field).readLock();
+                fieldLock.lock();
+                try {
+                    bytes += state.postingBytes(field);
+                } finally {
+                    fieldLock.unlock();
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Document id mapping, forward terms and postings of one index generation
+     */
+    private static final class IndexState {
+        private final Map<String, Integer> docsByTaskId = new HashMap<>();
+        private final List<String> docIds = new ArrayList<>();
+        private final List<Map<String, String>> docTerms = new ArrayList<>();
+        // field -> value -> postings; a field's values are guarded by its field lock
+        private final Map<String, Map<String, PostingList>> postings = new ConcurrentHashMap<>();
+
+        void put(String taskId, Map<String, String> terms) {
+            Integer doc = docsByTaskId.get(taskId);
+            if (doc == null) {
+                doc = docIds.size();
+                docsByTaskId.put(taskId, doc);
+                docIds.add(taskId);
+                docTerms.add(new HashMap<>());
+            }
+            Map<String, String> current = docTerms.get(doc);
+            for (Map.Entry<String, String> old : List.copyOf(current.entrySet())) {
+                if (!old.getValue().equals(terms.get(old.getKey()))) {
+                    removePosting(old.getKey(), old.getValue(), doc);
+                    current.remove(old.getKey());
+                }
+            }
+            for (Map.Entry<String, String> term : terms.entrySet()) {
+                if (current.put(term.getKey(), term.getValue()) == null) {
+                    postings.computeIfAbsent(term.getKey(), f -> new HashMap<>())
+                            .computeIfAbsent(term.getValue(), v -> new PostingList())
+                            .add(doc);
+                }
+            }
+        }
+
+        void putIfAbsent(String taskId, Map<String, String> terms) {
+            if (!docsByTaskId.containsKey(taskId)) {
+                put(taskId, terms);
+            }
+        }
+
+        void updateTerm(String taskId, String field, String value) {
+            Integer doc = docsByTaskId.get(taskId);
+            if (doc == null || value == null) {
+                return;
+            }
+            Map<String, String> terms = new HashMap<>(docTerms.get(doc));
+            terms.put(field, value);
+            put(taskId, terms);
+        }
+
+        BitSet match(Map<String, String> filters) {
+            BitSet result = new BitSet(docIds.size());
+            if (filters.isEmpty()) {
+                result.set(0, docIds.size());
+                return result;
+            }
+            // Intersect starting from the shortest posting list
+            List<PostingList> lists = new ArrayList<>(filters.size());
+            for (Map.Entry<String, String> filter : filters.entrySet()) {
+                PostingList list = postings.getOrDefault(filter.getKey(), Map.of()).get(filter.getValue());
+                if (list == null) {
+                    return result;
+                }
+                lists.add(list);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+            for (int doc : lists.get(0).toArray()) {
+                result.set(doc);
+            }
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                BitSet other = new BitSet(docIds.size());
+                for (int doc : lists.get(i).toArray()) {
+                    other.set(doc);
+                }
+                result.and(other);
+            }
+            return result;
+        }
+
+        Map<String, Integer> facetCounts(String field, BitSet matches) {
+            Map<String, Integer> counts = new HashMap<>();
+            postings.getOrDefault(field, Map.of()).forEach((value, list) -> {
+                int count = 0;
+                for (int doc : list.toArray()) {
+                    if (matches.get(doc)) {
+                        count++;
+                    }
+                }
+                if (count > 0) {
+                    counts.put(value, count);
+                }
+            });
+            // Most frequent values first
+            return counts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+        }
+
+        long postingBytes(String field) {
+            long bytes = 0;
+            for (PostingList list : postings.getOrDefault(field, Map.of()).values()) {
+                bytes += list.encodedBytes();
+            }
+            return bytes;
+        }
+
+        private void removePosting(String field, String value, int doc) {
+            Map<String, PostingList> values = postings.get(field);
+            PostingList list = values != null ? values.get(value) : null;
+            if (list != null) {
+                list.remove(doc);
+                if (list.size() == 0) {
+                    values.remove(value);
+                }
+            }
+        }
+    }
+}
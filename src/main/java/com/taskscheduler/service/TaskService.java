@@ -1,48 +1,118 @@
 package com.taskscheduler.service;
 
 import com.taskscheduler.dto.CreateTaskRequest;
+import com.taskscheduler.dto.TaskEvent;
 import com.taskscheduler.dto.UpdateTaskRequest;
 import com.taskscheduler.model.Task;
 import com.taskscheduler.model.TaskMetaData;
+import com.taskscheduler.model.TaskSummary;
 import com.taskscheduler.repository.TaskMetaDataRepository;
 import com.taskscheduler.repository.TaskRepository;
+import com.taskscheduler.repository.TaskSummaryRepository;
 import io.micrometer.core.annotation.Timed;
 import io.micrometer.core.annotation.Counted;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.logging.log4j.util.Strings;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.beans.PropertyDescriptor;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class TaskService {
 
+    // fields= values understood by the list and search endpoints besides an explicit field list
+    public static final String FIELDS_ALL = "all";
+    public static final String FIELDS_SUMMARY = "summary";
+
+    // Tasks due within this horizon get a timer through task-requests, later ones wait in tasksmetadata
+    public static final long TIMER_HORIZON_MS = 30L * 24 * 60 * 60 * 1000;
+    private static final long DAY_MS = 24 * 60 * 60 * 1000;
+
+    private static final Set<String> TASK_FIELDS = propertyNames(Task.class);
+    private static final Set<String> SUMMARY_FIELDS = propertyNames(TaskSummary.class);
+
     private final TaskRepository taskRepository;
     private final TaskMetaDataRepository taskRepositoryMetaData;
+    private final TaskSummaryRepository taskSummaryRepository;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TaskEventBus taskEventBus;
+    private final TaskSearchIndex taskSearchIndex;
+    private final TokenRangeScanner tokenRangeScanner;
+    private final PayloadCompressor payloadCompressor;
+    private final PayloadCache payloadCache;
+    private final SharedPayloadStore sharedPayloadStore;
+    private final FanOutService fanOutService;
+    private final OutboxRelay outboxRelay;
+    private final TenantAdmissionControl tenantAdmissionControl;
+    private final SchedulingLagRecorder schedulingLagRecorder;
     private final String taskRequestsTopic;
 
     public TaskService(TaskRepository taskRepository,TaskMetaDataRepository taskRepositoryMetaData,
+                       TaskSummaryRepository taskSummaryRepository,
                        KafkaTemplate<String, Object> kafkaTemplate,
+                       TaskEventBus taskEventBus,
+                       TaskSearchIndex taskSearchIndex,
+                       TokenRangeScanner tokenRangeScanner,
+                       PayloadCompressor payloadCompressor,
+                       PayloadCache payloadCache,
+                       SharedPayloadStore sharedPayloadStore,
+                       FanOutService fanOutService,
+                       OutboxRelay outboxRelay,
+                       TenantAdmissionControl tenantAdmissionControl,
+                       SchedulingLagRecorder schedulingLagRecorder,
                        @Value("${kafka.topics.task-requests}") String taskRequestsTopic) {
         this.taskRepository = taskRepository;
         this.kafkaTemplate = kafkaTemplate;
         this.taskRequestsTopic = taskRequestsTopic;
         this.taskRepositoryMetaData = taskRepositoryMetaData;
+        this.taskSummaryRepository = taskSummaryRepository;
+        this.taskEventBus = taskEventBus;
+        this.taskSearchIndex = taskSearchIndex;
+        this.tokenRangeScanner = tokenRangeScanner;
+        this.payloadCompressor = payloadCompressor;
+        this.payloadCache = payloadCache;
+        this.sharedPayloadStore = sharedPayloadStore;
+        this.fanOutService = fanOutService;
+        this.outboxRelay = outboxRelay;
+        this.tenantAdmissionControl = tenantAdmissionControl;
+        this.schedulingLagRecorder = schedulingLagRecorder;
     }
 
     @Transactional
     @Timed(value = "taskscheduler_database_save_duration_seconds", description = "Time taken to save tasks to database")
     @Counted(value = "taskscheduler_tasks_created_total", description = "Total number of tasks created")
     public Task createTask(CreateTaskRequest request) {
+        // Rejected before anything reaches Cassandra or Kafka
+        tenantAdmissionControl.admit(request.getTenant());
+        Task savedTask = saveAndSchedule(request, null);
+        taskEventBus.publish(TaskEvent.of(TaskEvent.Type.CREATED, savedTask));
+        return savedTask;
+    }
+
+    /**
+     * @param existing the stored task when rescheduling, carries over the fan-out recipients
+     */
+    private Task saveAndSchedule(CreateTaskRequest request, Task existing) {
         Task task = new Task();
         task.setId(Strings.isBlank(request.getId()) ? UUID.randomUUID().toString() : request.getId());
         task.setStatus("CREATED");
@@ -68,32 +138,55 @@ public class TaskService {
         task.setStatus("CREATED");
         log.info("Creating task with id: {}", request.getId());
 
-        // Save to Cassandra
-        Task savedTask = taskRepository.save(task);
-        log.info("Task saved to Cassandra: {}", savedTask.getId());
+        // Fan-out recipients are stored before the task row, so they are in place when its timer fires
+        if (request.getRecipients() != null && !request.getRecipients().isEmpty()) {
+            fanOutService.storeRecipients(task.getId(), request.getRecipients());
+            task.setTaskType(FanOutService.TASK_TYPE);
+            task.setRecipientCount(request.getRecipients().size());
+        } else if (existing != null) {
+            task.setTaskType(existing.getTaskType());
+            task.setRecipientCount(existing.getRecipientCount());
+        }
 
-        // Calculate 30 days later in milliseconds
-        long thirtyDaysLater = System.currentTimeMillis() + (30L * 24 * 60 * 60 * 1000);
+        // Save to Cassandra, shared payloads are stored once by hash and large ones compressed
+        String payload = task.getPayload();
+        sharedPayloadStore.share(task);
+        payloadCompressor.compress(task);
+        // With the outbox, the timer registration is written atomically with the task and relayed later
+        boolean viaOutbox = outboxRelay.isEnabled() && isWithinTimerHorizon(request.getScheduledAt());
+        Task savedTask = viaOutbox ? outboxRelay.saveWithOutbox(task) : taskRepository.save(task);
+        log.info("Task saved to Cassandra: {} (payload codec: {})", savedTask.getId(), savedTask.getPayloadCodec());
+        // The caller gets the payload back as it was sent
+        savedTask.setPayload(payload);
+        savedTask.setPayloadCodec(null);
+        savedTask.setPayloadData(null);
+        savedTask.setPayloadHash(null);
+        payloadCache.remove(savedTask.getId());
+        taskSearchIndex.index(savedTask);
 
         // Send TaskMetaData to task-requests topic for Flink only if scheduledAt is within 30 days
-        if (request.getScheduledAt() != null && request.getScheduledAt() < thirtyDaysLater) {
+        if (viaOutbox) {
+            log.info("TaskMetaData queued in outbox for task-requests topic: {}", savedTask.getId());
+        } else if (isWithinTimerHorizon(request.getScheduledAt())) {
             TaskMetaData taskMetaData = new TaskMetaData();
             taskMetaData.setId(savedTask.getId());
             taskMetaData.setTenant(savedTask.getTenant());
             taskMetaData.setScheduledAt(savedTask.getScheduledAt());
             taskMetaData.setStatus(savedTask.getStatus());
             
-            kafkaTemplate.send(taskRequestsTopic, savedTask.getId(), taskMetaData);
+            long createdAt = savedTask.getCreatedAt().toEpochMilli();
+            ProducerRecord<String, Object> record = new ProducerRecord<>(taskRequestsTopic, savedTask.getId(), taskMetaData);
+            SchedulingLagRecorder.addTimestamp(record, SchedulingLagRecorder.HEADER_CREATED_AT, createdAt);
+            kafkaTemplate.send(record).whenComplete((result, e) -> {
+                if (e == null) {
+                    schedulingLagRecorder.record(SchedulingLagRecorder.Stage.REQUEST_ACK,
+                            savedTask.getTenant(), System.currentTimeMillis() - createdAt);
+                }
+            });
             log.info("TaskMetaData sent to task-requests topic: {} (payload stored only in Cassandra)", savedTask.getId());
         } else {
-            long bucketId = 0;
-            // Set bucketId as the epoch of the day for scheduledAt
-            if (request.getScheduledAt() != null) {
-                long scheduledAt = request.getScheduledAt();
-                bucketId = scheduledAt - (scheduledAt % (24 * 60 * 60 * 1000));
-            }
             TaskMetaData taskMetaData = new TaskMetaData();
-            taskMetaData.setBucketId(bucketId);
+            taskMetaData.setBucketId(bucketIdFor(request.getScheduledAt()));
             taskMetaData.setId(request.getId());
             taskMetaData.setScheduledAt(request.getScheduledAt());
             taskRepositoryMetaData.save(taskMetaData);
@@ -103,6 +196,17 @@ public class TaskService {
         return savedTask;
     }
 
+    public static boolean isWithinTimerHorizon(Long scheduledAt) {
+        return scheduledAt != null && scheduledAt < System.currentTimeMillis() + TIMER_HORIZON_MS;
+    }
+
+    /**
+     * tasksmetadata partition of a task: the epoch of the day (UTC) of scheduledAt
+     */
+    public static long bucketIdFor(Long scheduledAt) {
+        return scheduledAt != null ? scheduledAt - (scheduledAt % DAY_MS) : 0;
+    }
+
     @Transactional
     @Timed(value = "taskscheduler_database_update_duration_seconds", description = "Time taken to Update tasks to database")
     @Counted(value = "taskscheduler_tasks_updated_total", description = "Total number of tasks updated")
@@ -111,6 +215,7 @@ public class TaskService {
 
         // Fetch existing task from Cassandra
         Task existingTask = taskRepository.findById(request.getId())
+                .map(sharedPayloadStore::resolve)
                 .orElseThrow(() -> new IllegalArgumentException("Bad Request: Task not found with id: " + request.getId()));
         
         // Update scheduledAt attribute
@@ -133,8 +238,9 @@ public class TaskService {
         updatedRequest.setRetryDelayMs(existingTask.getRetryDelayMs());
         updatedRequest.setParameters(existingTask.getParameters());
         
-        // Call createTask which will handle Kafka publishing and Cassandra save
-        Task updatedTask = createTask(updatedRequest);
+        // Reuse the create path which will handle Kafka publishing and Cassandra save
+        Task updatedTask = saveAndSchedule(updatedRequest, existingTask);
+        taskEventBus.publish(TaskEvent.of(TaskEvent.Type.RESCHEDULED, updatedTask));
         log.info("Task updated via createTask: {}", updatedTask.getId());
         
         return updatedTask;
@@ -144,12 +250,27 @@ public class TaskService {
     @Timed(value = "taskscheduler_database_query_duration_seconds", description = "Time taken to query tasks from database")
     public Task getTask(String taskId) {
         return taskRepository.findById(taskId)
-                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+                .map(sharedPayloadStore::resolve)
+                .orElseThrow(() -> new TaskNotFoundException(taskId));
+    }
+
+    /**
+     * Payload lookup behind claim-check deliveries; served from the payload cache when the
+     * delivery was recent.
+     */
+    public String getTaskPayload(String taskId) {
+        String payload = payloadCache.get(taskId);
+        if (payload != null) {
+            return payload;
+        }
+        Task task = getTask(taskId);
+        payloadCache.put(taskId, task.getPayload());
+        return task.getPayload();
     }
 
     @Transactional(readOnly = true)
     public List<Task> getAllTasksSortedByTime() {
-        List<Task> tasks = taskRepository.findAll();
+        List<Task> tasks = getAllTasks();
         // Sort by scheduledAt (DESC order - newest first)
         tasks.sort((t1, t2) -> {
             if (t1.getScheduledAt() == null && t2.getScheduledAt() == null) return 0;
@@ -162,7 +283,24 @@ public class TaskService {
     
     @Transactional(readOnly = true)
     public List<Task> getAllTasks() {
-        return taskRepository.findAll();
+        return sharedPayloadStore.resolveAll(scanAll("*", Task.class));
+    }
+
+    /**
+     * Full-table read spread over the token ring instead of a single coordinator query
+     */
+    private <T> List<T> scanAll(String columns, Class<T> type) {
+        List<T> rows = Collections.synchronizedList(new ArrayList<>());
+        streamAll(columns, type, rows::add);
+        return rows;
+    }
+
+    private <T> void streamAll(String columns, Class<T> type, Consumer<T> handler) {
+        TokenRangeScanner.ScanResult result = tokenRangeScanner.scan(
+                TokenRangeScanner.ScanOptions.of("tasks", columns), type, handler);
+        if (result.getFailedRanges() > 0) {
+            throw new IllegalStateException("Failed to read " + result.getFailedRanges() + " token ranges of tasks");
+        }
     }
     
     @Transactional(readOnly = true)
@@ -184,11 +322,125 @@ public class TaskService {
             tasks = taskRepository.findByCreatedAtBetween(startDate, endDate);
         }
         
-        return tasks;
+        return sharedPayloadStore.resolveAll(tasks);
+    }
+
+    /**
+     * Rows of a full-table listing, handed to the sink as the scan reads them. The sink is called
+     * concurrently from the scan threads.
+     */
+    @FunctionalInterface
+    public interface TaskRows {
+        void forEach(Consumer<Object> sink);
+    }
+
+    /**
+     * List all tasks restricted to the requested fields, without collecting the table in memory.
+     * "summary" reads only the summary columns; an explicit comma-separated field list
+     * reads the summary columns when they cover the request and the full row otherwise.
+     * The fields are validated here, the scan runs when the rows are iterated.
+     */
+    public TaskRows getAllTasks(String fields) {
+        if (isAllFields(fields)) {
+            return sink -> streamAll("*", Task.class, task -> sink.accept(sharedPayloadStore.resolve(task)));
+        }
+        if (FIELDS_SUMMARY.equalsIgnoreCase(fields.trim())) {
+            return sink -> streamAll(TaskSummaryRepository.SUMMARY_COLUMNS, TaskSummary.class, sink::accept);
+        }
+        Set<String> selected = parseFields(fields);
+        if (SUMMARY_FIELDS.containsAll(selected)) {
+            return sink -> streamAll(TaskSummaryRepository.SUMMARY_COLUMNS, TaskSummary.class,
+                    summary -> sink.accept(selectFields(summary, selected)));
+        }
+        return sink -> streamAll("*", Task.class,
+                task -> sink.accept(selectFields(sharedPayloadStore.resolve(task), selected)));
+    }
+
+    /**
+     * Time range search restricted to the requested fields, see {@link #getAllTasks(String)}
+     */
+    @Transactional(readOnly = true)
+    public List<?> searchTasksByTimeRange(Instant startDate, Instant endDate, String priority, String tenant,
+                                          String fields) {
+        if (isAllFields(fields)) {
+            return searchTasksByTimeRange(startDate, endDate, priority, tenant);
+        }
+        if (FIELDS_SUMMARY.equalsIgnoreCase(fields.trim())) {
+            return searchSummariesByTimeRange(startDate, endDate, priority, tenant);
+        }
+        Set<String> selected = parseFields(fields);
+        List<?> rows = SUMMARY_FIELDS.containsAll(selected)
+                ? searchSummariesByTimeRange(startDate, endDate, priority, tenant)
+                : searchTasksByTimeRange(startDate, endDate, priority, tenant);
+        return selectFields(rows, selected);
+    }
+
+    private List<TaskSummary> searchSummariesByTimeRange(Instant startDate, Instant endDate,
+                                                         String priority, String tenant) {
+        boolean hasPriority = priority != null && !priority.isEmpty();
+        boolean hasTenant = tenant != null && !tenant.isEmpty();
+        if (hasPriority && hasTenant) {
+            return taskSummaryRepository.findByCreatedAtBetweenAndPriorityAndTenant(startDate, endDate, priority, tenant);
+        } else if (hasPriority) {
+            return taskSummaryRepository.findByCreatedAtBetweenAndPriority(startDate, endDate, priority);
+        } else if (hasTenant) {
+            return taskSummaryRepository.findByCreatedAtBetweenAndTenant(startDate, endDate, tenant);
+        }
+        return taskSummaryRepository.findByCreatedAtBetween(startDate, endDate);
+    }
+
+    private static boolean isAllFields(String fields) {
+        return fields == null || fields.isBlank() || FIELDS_ALL.equalsIgnoreCase(fields.trim());
+    }
+
+    private static Set<String> parseFields(String fields) {
+        Set<String> selected = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (String field : selected) {
+            if (!TASK_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Bad Request: Unknown task field: " + field);
+            }
+        }
+        return selected;
+    }
+
+    private static List<Map<String, Object>> selectFields(List<?> rows, Set<String> fields) {
+        List<Map<String, Object>> projected = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            projected.add(selectFields(row, fields));
+        }
+        return projected;
+    }
+
+    private static Map<String, Object> selectFields(Object row, Set<String> fields) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(row);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            values.put(field, wrapper.getPropertyValue(field));
+        }
+        return values;
+    }
+
+    private static Set<String> propertyNames(Class<?> type) {
+        Set<String> names = new LinkedHashSet<>();
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+            if (!"class".equals(descriptor.getName())) {
+                names.add(descriptor.getName());
+            }
+        }
+        return names;
     }
 
     @Transactional
     public void updateTaskStatus(String taskId, String status) {
         taskRepository.updateStatus(taskId, status, Instant.now());
+        if ("CANCELLED".equals(status)) {
+            TaskSummary summary = taskSummaryRepository.findSummaryById(taskId);
+            if (summary != null) {
+                taskEventBus.publish(TaskEvent.of(TaskEvent.Type.CANCELLED, summary));
+            }
+        }
     }
 }
@@ -0,0 +1,276 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.dto.TaskEvent;
+import com.taskscheduler.dto.TaskStatsResponse;
+import com.taskscheduler.model.TaskStats;
+import com.taskscheduler.repository.TaskStatsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Streaming aggregation of task lifecycle events into hourly (tenant, event type) counters.
+ * Events are counted in memory, flushed periodically as increments to the task_stats counter
+ * table, and aggregate reads cost one row per bucket instead of one row per task. The buckets
+ * count lifecycle events (CREATED, RESCHEDULED, DELIVERED, CANCELLED), not the current status
+ * of tasks.
+ *
+ * Counter updates are not idempotent. A flush that fails before reaching Cassandra keeps its
+ * delta for the next flush, but one that times out may already be applied and is dropped
+ * instead, so the rollup can undercount after a timeout and never double counts.
+ */
+@Slf4j
+@Service
+public class TaskStatsAggregator {
+
+    private static final long HOUR_MS = 60L * 60 * 1000;
+    private static final long DAY_MS = 24 * HOUR_MS;
+
+    private final TaskEventBus taskEventBus;
+    private final TaskStatsRepository taskStatsRepository;
+    private final MeterRegistry meterRegistry;
+    private final int gaugeMaxTenants;
+    private final long gaugeReloadMs;
+
+    // Unflushed increments per (tenant, hour, event type)
+    private final ConcurrentHashMap<StatsKey, LongAdder> pendingDeltas = new ConcurrentHashMap<>();
+    // Today's totals per (tenant, event type) backing the Prometheus gauges
+    private final ConcurrentHashMap<GaugeKey, AtomicLong> todayTotals = new ConcurrentHashMap<>();
+    // When each tenant's gauges were last loaded from the rollup, which includes other nodes' events
+    private final Map<String, Long> gaugesLoadedAt = new HashMap<>();
+    private long gaugeDay;
+    private final Consumer<TaskEvent> listener = this::onEvent;
+
+    public TaskStatsAggregator(TaskEventBus taskEventBus,
+                               TaskStatsRepository taskStatsRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${task-stats.gauge-max-tenants:50}") int gaugeMaxTenants,
+                               @Value("${task-stats.gauge-reload-ms:300000}") long gaugeReloadMs) {
+        this.taskEventBus = taskEventBus;
+        this.taskStatsRepository = taskStatsRepository;
+        this.meterRegistry = meterRegistry;
+        this.gaugeMaxTenants = gaugeMaxTenants;
+        this.gaugeReloadMs = gaugeReloadMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        taskEventBus.subscribe(listener);
+    }
+
+    @PreDestroy
+    public void stop() {
+        taskEventBus.unsubscribe(listener);
+        flush();
+    }
+
+    public void onEvent(TaskEvent event) {
+        if (event.getTenant() == null || event.getType() == null) {
+            return;
+        }
+        long eventTime = event.getTimestamp() != null ? event.getTimestamp().toEpochMilli() : System.currentTimeMillis();
+        StatsKey key = new StatsKey(event.getTenant(), hourBucket(eventTime), event.getType().name());
+        // Incrementing inside compute serializes with the swap in flush, so no increment is lost
+        pendingDeltas.compute(key, (k, adder) -> {
+            LongAdder target = adder != null ? adder : new LongAdder();
+            target.increment();
+            return target;
+        });
+    }
+
+    /**
+     * Write the accumulated increments to Cassandra and refresh the gauges from the rollup
+     */
+    @Scheduled(fixedDelayString = "${task-stats.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        long now = System.currentTimeMillis();
+        long previousHour = hourBucket(now) - HOUR_MS;
+        startGaugeDay(now);
+        Map<String, Map<String, Long>> flushedToday = new HashMap<>();
+        int written = 0;
+        for (Map.Entry<StatsKey, LongAdder> entry : pendingDeltas.entrySet()) {
+            StatsKey key = entry.getKey();
+            LongAdder adder = entry.getValue();
+            // Buckets older than the previous hour no longer receive events, retire them;
+            // the others get a fresh adder so the old one can be summed without racing increments
+            boolean swapped = key.hourBucket() < previousHour
+                    ? pendingDeltas.remove(key, adder)
+                    : adder.sum() != 0 && pendingDeltas.replace(key, adder, new LongAdder());
+            long delta = swapped ? adder.sum() : 0;
+            if (delta == 0) {
+                continue;
+            }
+            try {
+                taskStatsRepository.incrementCount(key.tenant(), key.hourBucket(), key.eventType(), delta);
+                written++;
+                if (key.hourBucket() >= gaugeDay) {
+                    flushedToday.computeIfAbsent(key.tenant(), t -> new HashMap<>())
+                            .merge(key.eventType(), delta, Long::sum);
+                }
+            } catch (QueryTimeoutException e) {
+                // The increment may have been applied, adding it again could double count
+                log.warn("Task stats flush for tenant {} timed out, dropping a delta of {}: {}",
+                        key.tenant(), delta, e.getMessage());
+            } catch (Exception e) {
+                // Not applied, keep the delta for the next flush
+                pendingDeltas.compute(key, (k, pending) -> {
+                    LongAdder target = pending != null ? pending : new LongAdder();
+                    target.add(delta);
+                    return target;
+                });
+                log.warn("Failed to flush task stats for tenant {}: {}", key.tenant(), e.getMessage());
+            }
+        }
+        if (written > 0) {
+            log.debug("Flushed {} task stats buckets", written);
+            updateGauges(flushedToday, now);
+        }
+    }
+
+    /**
+     * Aggregated counts for a tenant (or all tenants) over [from, to), rounded out to whole hours
+     */
+    public TaskStatsResponse getStats(String tenant, Instant from, Instant to) {
+        long fromHour = hourBucket(from.toEpochMilli());
+        long toHour = hourBucket(to.toEpochMilli() - 1) + HOUR_MS;
+        boolean allTenants = tenant == null || tenant.isBlank();
+
+        Map<StatsKey, Long> counts = new HashMap<>();
+        List<TaskStats> rows = allTenants
+                ? taskStatsRepository.findByHourRange(fromHour, toHour)
+                : taskStatsRepository.findByTenantAndHourRange(tenant, fromHour, toHour);
+        for (TaskStats row : rows) {
+            counts.merge(new StatsKey(row.getTenant(), row.getHourBucket(), row.getEventType()),
+                    row.getTaskCount() != null ? row.getTaskCount() : 0L, Long::sum);
+        }
+        // Include increments that have not been flushed yet
+        pendingDeltas.forEach((key, adder) -> {
+            if (key.hourBucket() >= fromHour && key.hourBucket() < toHour
+                    && (allTenants || key.tenant().equals(tenant))) {
+                long pending = adder.sum();
+                if (pending != 0) {
+                    counts.merge(key, pending, Long::sum);
+                }
+            }
+        });
+
+        List<TaskStats> buckets = new ArrayList<>(counts.size());
+        Map<String, Long> totals = new LinkedHashMap<>();
+        for (TaskEvent.Type type : TaskEvent.Type.values()) {
+            totals.put(type.name(), 0L);
+        }
+        counts.forEach((key, count) -> {
+            TaskStats bucket = new TaskStats();
+            bucket.setTenant(key.tenant());
+            bucket.setHourBucket(key.hourBucket());
+            bucket.setEventType(key.eventType());
+            bucket.setTaskCount(count);
+            buckets.add(bucket);
+            totals.merge(key.eventType(), count, Long::sum);
+        });
+        buckets.sort(Comparator.comparing(TaskStats::getHourBucket)
+                .thenComparing(TaskStats::getTenant)
+                .thenComparing(TaskStats::getEventType));
+
+        TaskStatsResponse response = new TaskStatsResponse();
+        response.setTenant(allTenants ? null : tenant);
+        response.setFrom(Instant.ofEpochMilli(fromHour));
+        response.setTo(Instant.ofEpochMilli(toHour));
+        response.setTotals(totals);
+        response.setPendingEstimate(Math.max(0, totals.get(TaskEvent.Type.CREATED.name())
+                - totals.get(TaskEvent.Type.DELIVERED.name())
+                - totals.get(TaskEvent.Type.CANCELLED.name())));
+        response.setBuckets(buckets);
+        return response;
+    }
+
+    private void startGaugeDay(long now) {
+        long dayStart = now / DAY_MS * DAY_MS;
+        if (gaugeDay != dayStart) {
+            // New UTC day, totals of tenants without events today start again from zero
+            gaugeDay = dayStart;
+            todayTotals.values().forEach(total -> total.set(0));
+            gaugesLoadedAt.clear();
+        }
+    }
+
+    /**
+     * Add this node's flushed deltas to the gauges. A tenant's gauges are loaded from the rollup
+     * when first seen today and again every reload interval, to pick up other nodes' events,
+     * instead of querying Cassandra per tenant on every flush.
+     */
+    private void updateGauges(Map<String, Map<String, Long>> flushedToday, long now) {
+        flushedToday.forEach((tenant, deltas) -> {
+            Long loadedAt = gaugesLoadedAt.get(tenant);
+            if (loadedAt == null || now - loadedAt >= gaugeReloadMs) {
+                Map<String, Long> byEventType = new HashMap<>();
+                for (TaskStats row : taskStatsRepository.findByTenantAndHourRange(tenant, gaugeDay, gaugeDay + DAY_MS)) {
+                    byEventType.merge(row.getEventType(), row.getTaskCount() != null ? row.getTaskCount() : 0L, Long::sum);
+                }
+                for (TaskEvent.Type type : TaskEvent.Type.values()) {
+                    AtomicLong total = gaugeFor(tenant, type.name());
+                    if (total != null) {
+                        total.set(byEventType.getOrDefault(type.name(), 0L));
+                    }
+                }
+                gaugesLoadedAt.put(tenant, now);
+                return;
+            }
+            deltas.forEach((eventType, delta) -> {
+                AtomicLong total = gaugeFor(tenant, eventType);
+                if (total != null) {
+                    total.addAndGet(delta);
+                }
+            });
+        });
+    }
+
+    private AtomicLong gaugeFor(String tenant, String eventType) {
+        GaugeKey key = new GaugeKey(tenant, eventType);
+        AtomicLong existing = todayTotals.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        // Bound the tag cardinality of the exported gauges
+        if (todayTotals.size() >= gaugeMaxTenants * TaskEvent.Type.values().length) {
+            return null;
+        }
+        return todayTotals.computeIfAbsent(key, k -> {
+            AtomicLong total = new AtomicLong();
+            Gauge.builder("taskscheduler_tasks_today", total, AtomicLong::get)
+                    .description("Task lifecycle events today (UTC) per tenant and event type")
+                    .tag("tenant", tenant)
+                    .tag("event", eventType)
+                    .register(meterRegistry);
+            return total;
+        });
+    }
+
+    static long hourBucket(long epochMillis) {
+        return epochMillis - Math.floorMod(epochMillis, HOUR_MS);
+    }
+
+    private record StatsKey(String tenant, long hourBucket, String eventType) {
+    }
+
+    private record GaugeKey(String tenant, String eventType) {
+    }
+}
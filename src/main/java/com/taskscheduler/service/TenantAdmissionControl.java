@@ -0,0 +1,216 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.SchedulingConfig;
+import com.taskscheduler.dto.TaskEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Per-tenant admission control on task creation: a create rate enforced with a
+ * {@link TokenBucket} per tenant, and a ceiling on pending (CREATED) tasks.
+ * Pending counts are kept in memory as a baseline plus a LongAdder of lifecycle events seen
+ * since, and the baseline is periodically reconciled with a throttled scan of the tasks table,
+ * which also picks up tasks created or delivered through other instances.
+ * Tenants are client-supplied, so neither map keeps a tenant forever: rate buckets that have
+ * refilled completely are dropped once a minute, and pending counts back at zero are dropped
+ * after each reconcile.
+ */
+@Slf4j
+@Service
+public class TenantAdmissionControl {
+
+    private static final String NO_TENANT = "";
+    private static final long EVICT_INTERVAL_MS = 60_000;
+
+    private final TaskEventBus taskEventBus;
+    private final TokenRangeScanner tokenRangeScanner;
+    private final boolean enabled;
+    private final double createRate;
+    private final int createBurst;
+    private final long maxPending;
+    private final long pendingRetryAfterSeconds;
+    private final long reconcileMaxRowsPerSecond;
+
+    private final Map<String, TokenBucket> rateBuckets = new ConcurrentHashMap<>();
+    private final Map<String, PendingCount> pending = new ConcurrentHashMap<>();
+    private final Consumer<TaskEvent> listener = this::onEvent;
+    private final AtomicLong nextEvictionAt = new AtomicLong(System.currentTimeMillis() + EVICT_INTERVAL_MS);
+
+    private final Counter rateRejections;
+    private final Counter pendingRejections;
+
+    public TenantAdmissionControl(TaskEventBus taskEventBus,
+                                  TokenRangeScanner tokenRangeScanner,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${admission.enabled:false}") boolean enabled,
+                                  @Value("${admission.create-rate:200}") double createRate,
+                                  @Value("${admission.create-burst:1000}") int createBurst,
+                                  @Value("${admission.max-pending:1000000}") long maxPending,
+                                  @Value("${admission.pending-retry-after-seconds:60}") long pendingRetryAfterSeconds,
+                                  @Value("${admission.reconcile-max-rows-per-second:20000}") long reconcileMaxRowsPerSecond) {
+        this.taskEventBus = taskEventBus;
+        this.tokenRangeScanner = tokenRangeScanner;
+        this.enabled = enabled;
+        this.createRate = createRate;
+        this.createBurst = createBurst;
+        this.maxPending = maxPending;
+        this.pendingRetryAfterSeconds = pendingRetryAfterSeconds;
+        this.reconcileMaxRowsPerSecond = reconcileMaxRowsPerSecond;
+        this.rateRejections = Counter.builder("taskscheduler_admission_rejected_total")
+                .description("Task creates rejected by tenant admission control")
+                .tag("reason", "rate")
+                .register(meterRegistry);
+        this.pendingRejections = Counter.builder("taskscheduler_admission_rejected_total")
+                .description("Task creates rejected by tenant admission control")
+                .tag("reason", "pending")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_admission_tenants", pending, Map::size)
+                .description("Tenants tracked by admission control")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            taskEventBus.subscribe(listener);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        taskEventBus.unsubscribe(listener);
+    }
+
+    /**
+     * Admit one create for the tenant or throw with a retry-after hint
+     */
+    public void admit(String tenant) {
+        if (!enabled) {
+            return;
+        }
+        evictIdleTenants();
+        String key = tenant != null ? tenant : NO_TENANT;
+        // A lookup only, a tenant gets a pending count once it has tasks
+        if (maxPending > 0 && getPending(key) >= maxPending) {
+            pendingRejections.increment();
+            throw new TenantQuotaExceededException(tenant,
+                    "Tenant " + tenant + " has reached its limit of " + maxPending + " pending tasks",
+                    pendingRetryAfterSeconds);
+        }
+        TokenBucket bucket = rateBuckets.computeIfAbsent(key, t -> new TokenBucket(createRate, createBurst));
+        if (bucket.tryAcquireUpTo(1) == 0) {
+            rateRejections.increment();
+            long retryAfter = Math.max(1, (bucket.nanosUntilNext() + 999_999_999L) / 1_000_000_000L);
+            throw new TenantQuotaExceededException(tenant,
+                    "Tenant " + tenant + " exceeded its create rate of " + createRate + " tasks per second",
+                    retryAfter);
+        }
+    }
+
+    public long getPending(String tenant) {
+        PendingCount count = pending.get(tenant != null ? tenant : NO_TENANT);
+        return count != null ? count.value() : 0;
+    }
+
+    private void onEvent(TaskEvent event) {
+        String tenant = event.getTenant() != null ? event.getTenant() : NO_TENANT;
+        switch (event.getType()) {
+            case CREATED -> pendingCount(tenant).delta.increment();
+            case DELIVERED, CANCELLED -> pendingCount(tenant).delta.decrement();
+            default -> {
+                // rescheduled tasks stay pending
+            }
+        }
+    }
+
+    /**
+     * Replace the in-memory baselines with CREATED counts from Cassandra. Events seen while
+     * the scan runs are kept on top of the new baseline. Runs on its own scheduler thread, the
+     * throttled scan takes minutes on a large table.
+     */
+    @Scheduled(fixedDelayString = "${admission.reconcile-interval-ms:300000}",
+            initialDelayString = "${admission.reconcile-initial-delay-ms:30000}",
+            scheduler = SchedulingConfig.ADMISSION_RECONCILE_SCHEDULER)
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Long> deltaAtStart = new ConcurrentHashMap<>();
+        pending.forEach((tenant, count) -> deltaAtStart.put(tenant, count.delta.sum()));
+
+        Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+        TokenRangeScanner.ScanOptions options = TokenRangeScanner.ScanOptions.of("tasks", "tenant, status");
+        options.setMaxRowsPerSecond(reconcileMaxRowsPerSecond);
+        TokenRangeScanner.ScanResult result = tokenRangeScanner.scanRows(options, row -> {
+            if ("CREATED".equals(row.getString("status"))) {
+                String tenant = row.getString("tenant");
+                counts.computeIfAbsent(tenant != null ? tenant : NO_TENANT, t -> new LongAdder()).increment();
+            }
+        });
+        if (result.getFailedRanges() > 0) {
+            log.warn("Admission reconcile skipped: {} token ranges failed", result.getFailedRanges());
+            return;
+        }
+
+        Set<String> tenants = new HashSet<>(pending.keySet());
+        tenants.addAll(counts.keySet());
+        for (String tenant : tenants) {
+            PendingCount count = pendingCount(tenant);
+            LongAdder stored = counts.get(tenant);
+            count.baseline = stored != null ? stored.sum() : 0;
+            count.delta.add(-deltaAtStart.getOrDefault(tenant, 0L));
+        }
+        // Zero is what an absent tenant reads as. Only reconcile sets baselines, so this cannot
+        // race with it; an event landing on a dropped count is corrected by the next reconcile.
+        pending.values().removeIf(count -> count.value() == 0);
+        log.info("Reconciled pending task counts of {} tenants from {} rows in {} ms",
+                tenants.size(), result.getRows(), result.getDurationMs());
+    }
+
+    /**
+     * A full bucket is the same as a new one, so dropping it loses no rate state
+     */
+    private void evictIdleTenants() {
+        long now = System.currentTimeMillis();
+        long due = nextEvictionAt.get();
+        if (now >= due && nextEvictionAt.compareAndSet(due, now + EVICT_INTERVAL_MS)) {
+            evictIdleTenants(now);
+        }
+    }
+
+    void evictIdleTenants(long now) {
+        rateBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    int trackedRateTenants() {
+        return rateBuckets.size();
+    }
+
+    private PendingCount pendingCount(String tenant) {
+        return pending.computeIfAbsent(tenant, t -> new PendingCount());
+    }
+
+    private static final class PendingCount {
+        private volatile long baseline;
+        private final LongAdder delta = new LongAdder();
+
+        long value() {
+            return baseline + delta.sum();
+        }
+    }
+}
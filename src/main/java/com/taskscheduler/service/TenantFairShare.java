@@ -0,0 +1,191 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.dto.ScheduledTaskRef;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-tenant fair share in the delivery stage. Every tenant has a {@link TokenBucket} refilled at
+ * tenant-rate times its weight; fired timers beyond a tenant's tokens are held back and handed
+ * back to the caller to requeue. The admitted timers of a batch are interleaved by deficit round
+ * robin over tenants, weighted the same way, so one tenant's burst no longer occupies the head
+ * of the dispatch queue. Buckets are looked up in a ConcurrentHashMap and updated with a single
+ * CAS, so limiting adds no lock to the delivery path. The tenant comes from the record's routing
+ * fields, so no record is fully decoded here. Buckets that have refilled completely are dropped
+ * once a minute, as are stale held-back marks, so tenants that stop firing are forgotten.
+ */
+@Component
+public class TenantFairShare {
+
+    private static final String NO_TENANT = "";
+    private static final String OTHER_TENANTS = "other";
+    private static final long HELD_BACK_WINDOW_MS = 10_000;
+    private static final long EVICT_INTERVAL_MS = 60_000;
+
+    @Getter
+    private final boolean enabled;
+    private final double tenantRate;
+    private final int burst;
+    private final Map<String, Integer> weights;
+    private final int maxTaggedTenants;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Counter> heldBackCounters = new ConcurrentHashMap<>();
+    // tenant -> last time it was held back, for the held-back tenants gauge
+    private final Map<String, Long> lastHeldBack = new ConcurrentHashMap<>();
+    private final AtomicLong nextEvictionAt = new AtomicLong(System.currentTimeMillis() + EVICT_INTERVAL_MS);
+
+    public TenantFairShare(MeterRegistry meterRegistry,
+                           @Value("${delivery.fair-share.enabled:false}") boolean enabled,
+                           @Value("${delivery.fair-share.tenant-rate:500}") double tenantRate,
+                           @Value("${delivery.fair-share.burst:1000}") int burst,
+                           @Value("${delivery.fair-share.tenant-weights:}") String tenantWeights,
+                           @Value("${delivery.fair-share.metrics-max-tenants:50}") int maxTaggedTenants) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.tenantRate = tenantRate;
+        this.burst = burst;
+        this.weights = parseWeights(tenantWeights);
+        this.maxTaggedTenants = maxTaggedTenants;
+        Gauge.builder("taskscheduler_delivery_tenants_held_back", this, TenantFairShare::heldBackTenants)
+                .description("Tenants held back by the delivery rate limit in the last 10 seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Split a batch of fired timers into the ones to dispatch now, in fair order, and the ones
+     * held back because their tenant is over its rate
+     */
+    public Admission admit(Collection<ScheduledTaskRef> refs) {
+        evictIdleTenants();
+        Map<String, ArrayDeque<ScheduledTaskRef>> byTenant = new LinkedHashMap<>();
+        for (ScheduledTaskRef ref : refs) {
+            byTenant.computeIfAbsent(tenantOf(ref), t -> new ArrayDeque<>()).add(ref);
+        }
+
+        List<ScheduledTaskRef> heldBack = new ArrayList<>();
+        long waitNanos = Long.MAX_VALUE;
+        for (Map.Entry<String, ArrayDeque<ScheduledTaskRef>> entry : byTenant.entrySet()) {
+            String tenant = entry.getKey();
+            ArrayDeque<ScheduledTaskRef> queue = entry.getValue();
+            TokenBucket bucket = buckets.computeIfAbsent(tenant,
+                    t -> new TokenBucket(tenantRate * weightOf(t), burst * weightOf(t)));
+            int granted = bucket.tryAcquireUpTo(queue.size());
+            int held = queue.size() - granted;
+            if (held > 0) {
+                // The newest timers are held back, requeued oldest first so their fire order holds
+                int from = heldBack.size();
+                for (int i = 0; i < held; i++) {
+                    heldBack.add(queue.pollLast());
+                }
+                Collections.reverse(heldBack.subList(from, heldBack.size()));
+                waitNanos = Math.min(waitNanos, bucket.nanosUntilNext());
+                lastHeldBack.put(tenant, System.currentTimeMillis());
+                heldBackCounter(tenant).increment(held);
+            }
+        }
+        return new Admission(interleave(byTenant), heldBack, waitNanos == Long.MAX_VALUE ? 0 : waitNanos);
+    }
+
+    // Deficit round robin over tenants, each round a tenant dispatches up to its weight
+    private List<ScheduledTaskRef> interleave(Map<String, ArrayDeque<ScheduledTaskRef>> byTenant) {
+        List<ScheduledTaskRef> ordered = new ArrayList<>();
+        boolean remaining = true;
+        while (remaining) {
+            remaining = false;
+            for (Map.Entry<String, ArrayDeque<ScheduledTaskRef>> entry : byTenant.entrySet()) {
+                ArrayDeque<ScheduledTaskRef> queue = entry.getValue();
+                for (int quantum = weightOf(entry.getKey()); quantum > 0 && !queue.isEmpty(); quantum--) {
+                    ordered.add(queue.poll());
+                }
+                remaining |= !queue.isEmpty();
+            }
+        }
+        return ordered;
+    }
+
+    private Counter heldBackCounter(String tenant) {
+        Counter counter = heldBackCounters.get(tenant);
+        if (counter == null) {
+            // Bounded tag cardinality: past the first tenants everyone shares one series
+            String tag = heldBackCounters.size() < maxTaggedTenants ? tenant : OTHER_TENANTS;
+            counter = heldBackCounters.computeIfAbsent(tag,
+                    t -> Counter.builder("taskscheduler_delivery_held_back_total")
+                            .description("Fired tasks held back because their tenant was over its delivery rate")
+                            .tag("tenant", t.isEmpty() ? "none" : t)
+                            .register(meterRegistry));
+        }
+        return counter;
+    }
+
+    /**
+     * A full bucket is the same as a new one, so dropping it loses no rate state. A bucket dropped
+     * while another thread is taking from it costs at most one extra burst for that tenant.
+     */
+    private void evictIdleTenants() {
+        long now = System.currentTimeMillis();
+        long due = nextEvictionAt.get();
+        if (now >= due && nextEvictionAt.compareAndSet(due, now + EVICT_INTERVAL_MS)) {
+            evictIdleTenants(now);
+        }
+    }
+
+    void evictIdleTenants(long now) {
+        buckets.values().removeIf(TokenBucket::isFull);
+        lastHeldBack.values().removeIf(at -> at < now - HELD_BACK_WINDOW_MS);
+    }
+
+    int trackedTenants() {
+        return buckets.size();
+    }
+
+    private double heldBackTenants() {
+        long cutoff = System.currentTimeMillis() - HELD_BACK_WINDOW_MS;
+        lastHeldBack.values().removeIf(at -> at < cutoff);
+        return lastHeldBack.size();
+    }
+
+    private int weightOf(String tenant) {
+        return weights.getOrDefault(tenant, 1);
+    }
+
+    private static String tenantOf(ScheduledTaskRef ref) {
+        String tenant = ref.getTenant();
+        return tenant != null ? tenant : NO_TENANT;
+    }
+
+    private static Map<String, Integer> parseWeights(String tenantWeights) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String entry : tenantWeights.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length == 2) {
+                weights.put(parts[0].trim(), Math.max(1, Integer.parseInt(parts[1].trim())));
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * @param admitted  timers to dispatch now, in fair order
+     * @param heldBack  timers of tenants over their rate, to requeue
+     * @param waitNanos time until the earliest held-back tenant has a token again
+     */
+    public record Admission(List<ScheduledTaskRef> admitted, List<ScheduledTaskRef> heldBack, long waitNanos) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.taskscheduler.service;
+
+import lombok.Getter;
+
+/**
+ * A create was rejected by tenant admission control, mapped to 429 Too Many Requests
+ */
+@Getter
+public class TenantQuotaExceededException extends RuntimeException {
+
+    private final String tenant;
+    private final long retryAfterSeconds;
+
+    public TenantQuotaExceededException(String tenant, String message, long retryAfterSeconds) {
+        super(message);
+        this.tenant = tenant;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,119 @@
+package com.taskscheduler.service;
+
+/**
+ * Open-addressing map from timer id hash to scheduledAt on two primitive arrays, 16 bytes per
+ * slot, so tens of millions of pending timers fit without an object per entry. Linear probing
+ * with backward-shift deletion keeps lookups tombstone-free. Key 0 marks an empty slot, which
+ * {@link TimerSegmentStore#idHash} never produces. Not thread-safe.
+ */
+final class TimerIndex {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    TimerIndex(int expectedSize) {
+        int wanted = (int) Math.min(MAX_CAPACITY, Math.max(16, expectedSize * 4L / 3 + 1));
+        allocate(Integer.highestOneBit(wanted - 1) << 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(long key, long missing) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == 0) {
+                return missing;
+            }
+        }
+    }
+
+    void put(long key, long value) {
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeAt) {
+            grow();
+        }
+    }
+
+    boolean remove(long key) {
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        // Shift later entries of the probe run back so no lookup stops early at the hole
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!stays) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = 0;
+        values[i] = 0;
+        size--;
+        return true;
+    }
+
+    TimerIndex copy() {
+        TimerIndex copy = new TimerIndex(0);
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.mask = mask;
+        copy.size = size;
+        copy.resizeAt = resizeAt;
+        return copy;
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    private void grow() {
+        if (keys.length == MAX_CAPACITY) {
+            throw new IllegalStateException("Timer index is full at " + size + " timers");
+        }
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int j = slot(oldKeys[i]);
+                while (keys[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * 0.75);
+    }
+}
@@ -0,0 +1,683 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.SchedulingConfig;
+import com.taskscheduler.config.Untraced;
+import com.taskscheduler.dto.TaskEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Persistent set of pending timers (tasks within the timer horizon) so the timing layer can
+ * restart from local disk instead of reloading the horizon from Kafka or tasksmetadata.
+ *
+ * Every change is appended to a memory-mapped segment file as a record of a 24-byte header
+ * (scheduledAt, version, check, id and tenant lengths) followed by the UTF-8 task id and
+ * tenant, padded to 8 bytes; a removal is a record with scheduledAt = Long.MIN_VALUE and no
+ * tenant. The check covers the whole record and the version is written last. Versions increase
+ * by one per record, so a segment is named after its first version and record i of it must
+ * carry first + i. The live set is kept in a {@link TimerIndex} by id hash. Compaction folds
+ * the latest snapshot and the sealed segments into a new snapshot holding only live timers:
+ * one pass over the immutable inputs finds the latest scheduledAt per id, a second copies the
+ * matching records to a temp file, which is forced and renamed before the inputs are dropped.
+ * Recovery loads the newest snapshot and replays the segments after it, stopping at the first
+ * zero or torn record, and wipes whatever follows in the active segment before appending there
+ * again. The recovered timers are then handed to {@link TimerStoreReplay} with their ids and
+ * tenants, which re-emits them to task-requests; compaction waits until that is done.
+ *
+ * Fed by task lifecycle events and the daily tasksmetadata load.
+ */
+@Slf4j
+@Component
+@Untraced
+public class TimerSegmentStore {
+
+    static final int HEADER_BYTES = 24;
+    static final int MAX_FIELD_BYTES = 1024;
+    static final int MAX_RECORD_BYTES = recordBytes(MAX_FIELD_BYTES, MAX_FIELD_BYTES);
+    private static final long REMOVED = Long.MIN_VALUE;
+    private static final byte[] NO_TENANT = new byte[0];
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final int IO_BUFFER_BYTES = 1 << 23;
+
+    @FunctionalInterface
+    public interface PendingTimerVisitor {
+        void visit(String id, String tenant, long scheduledAt);
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(String id, byte[] tenant, long scheduledAt, long version) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RecordSource {
+        void forEach(RecordVisitor visitor) throws IOException;
+    }
+
+    private enum Read { RECORD, END, TORN }
+
+    private record Replayed(int records, long bytes) {
+    }
+
+    private final TaskEventBus taskEventBus;
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int compactAfterSegments;
+    private final int expectedTimers;
+    private final boolean replayOnStart;
+    private final Consumer<TaskEvent> listener = this::onEvent;
+
+    private final Timer recoveryTime;
+    private final Timer compactionTime;
+
+    private TimerIndex index;
+    private long nextVersion = 1;
+    private Path snapshot;
+    private final List<Path> sealedSegments = new ArrayList<>();
+    private MappedByteBuffer active;
+    private long activeFirstVersion;
+    private int activeRecords;
+    private int activeBytes;
+    private int activeCapacity;
+
+    // What recovery read, kept until TimerStoreReplay has re-emitted it; compaction waits meanwhile
+    private boolean replayPending;
+    private TimerIndex recoveredTimers;
+    private List<Path> recoveredFiles;
+    private long recoveredCovered;
+    private long recoveredActiveBytes;
+
+    public TimerSegmentStore(TaskEventBus taskEventBus,
+                             MeterRegistry meterRegistry,
+                             @Value("${timer-store.enabled:false}") boolean enabled,
+                             @Value("${timer-store.path:./timer-store}") String path,
+                             @Value("${timer-store.segment-bytes:33554432}") int segmentBytes,
+                             @Value("${timer-store.compact-after-segments:8}") int compactAfterSegments,
+                             @Value("${timer-store.expected-timers:1000000}") int expectedTimers,
+                             @Value("${timer-store.replay.enabled:true}") boolean replayOnStart) {
+        if (segmentBytes < MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("timer-store.segment-bytes must be at least " + MAX_RECORD_BYTES);
+        }
+        this.taskEventBus = taskEventBus;
+        this.enabled = enabled;
+        this.dir = Paths.get(path);
+        this.segmentBytes = segmentBytes;
+        this.compactAfterSegments = compactAfterSegments;
+        this.expectedTimers = expectedTimers;
+        this.replayOnStart = replayOnStart;
+        this.recoveryTime = Timer.builder("taskscheduler_timer_store_recovery_seconds")
+                .description("Time to rebuild the pending timers from snapshot and segments")
+                .register(meterRegistry);
+        this.compactionTime = Timer.builder("taskscheduler_timer_store_compaction_seconds")
+                .description("Time to fold sealed segments into a new snapshot")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_timer_store_pending", this, TimerSegmentStore::size)
+                .description("Pending timers held by the timer store")
+                .register(meterRegistry);
+        Gauge.builder("taskscheduler_timer_store_segments", this, store -> store.segmentCount())
+                .description("Segment files not yet folded into a snapshot")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(dir);
+        recover();
+        taskEventBus.subscribe(listener);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        taskEventBus.unsubscribe(listener);
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    public synchronized void upsert(String id, String tenant, long scheduledAt) {
+        if (index == null) {
+            return;
+        }
+        byte[] idBytes = utf8(id);
+        byte[] tenantBytes = tenant != null ? utf8(tenant) : NO_TENANT;
+        if (idBytes.length > MAX_FIELD_BYTES || tenantBytes.length > MAX_FIELD_BYTES) {
+            log.warn("Timer of task {} not persisted: id or tenant longer than {} bytes", id, MAX_FIELD_BYTES);
+            return;
+        }
+        append(idBytes, tenantBytes, scheduledAt);
+        index.put(idHash(id), scheduledAt);
+    }
+
+    public synchronized void remove(String id) {
+        if (index == null) {
+            return;
+        }
+        if (index.remove(idHash(id))) {
+            append(utf8(id), NO_TENANT, REMOVED);
+        }
+    }
+
+    public synchronized Long scheduledAt(String id) {
+        if (index == null) {
+            return null;
+        }
+        long scheduledAt = index.get(idHash(id), REMOVED);
+        return scheduledAt != REMOVED ? scheduledAt : null;
+    }
+
+    public synchronized int size() {
+        return index != null ? index.size() : 0;
+    }
+
+    /**
+     * Visit, once, every timer that was pending when the store was recovered, with the id and
+     * tenant it was stored with. Reads the files recovery read, off the write lock; later calls
+     * visit nothing.
+     */
+    public void forEachRecoveredTimer(PendingTimerVisitor visitor) throws IOException {
+        TimerIndex pending;
+        List<Path> files;
+        synchronized (this) {
+            if (recoveredTimers == null) {
+                return;
+            }
+            pending = recoveredTimers;
+            files = recoveredFiles;
+            recoveredTimers = null;
+            recoveredFiles = null;
+        }
+        try {
+            forEachLive(files, recoveredCovered, recoveredActiveBytes, pending,
+                    (id, tenant, scheduledAt, version) -> visitor.visit(id,
+                            tenant.length > 0 ? new String(tenant, StandardCharsets.UTF_8) : null, scheduledAt));
+        } finally {
+            synchronized (this) {
+                replayPending = false;
+            }
+        }
+    }
+
+    /**
+     * Push appended records to disk; a process crash keeps them anyway, this covers the host
+     */
+    @Scheduled(fixedDelayString = "${timer-store.sync-interval-ms:1000}")
+    public synchronized void sync() {
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    /**
+     * Runs on its own scheduler thread: rewriting the snapshot takes seconds at millions of timers
+     */
+    @Scheduled(fixedDelayString = "${timer-store.compaction-interval-ms:60000}",
+            scheduler = SchedulingConfig.TIMER_COMPACTION_SCHEDULER)
+    public void compact() {
+        List<Path> inputs;
+        Path base;
+        long covered;
+        synchronized (this) {
+            if (index == null || replayPending || sealedSegments.size() < compactAfterSegments) {
+                return;
+            }
+            inputs = List.copyOf(sealedSegments);
+            base = snapshot;
+            covered = activeFirstVersion - 1;
+        }
+        long start = System.nanoTime();
+        try {
+            TimerIndex merged = new TimerIndex(size());
+            long baseVersion = base != null
+                    ? readSnapshot(base, (id, tenant, scheduledAt, version) -> merged.put(idHash(id), scheduledAt))
+                    : 0;
+            for (Path segment : inputs) {
+                readSegment(segment, Long.MAX_VALUE, baseVersion,
+                        (id, tenant, scheduledAt, version) -> apply(merged, idHash(id), scheduledAt));
+            }
+            int live = merged.size();
+            List<Path> sources = new ArrayList<>(inputs.size() + 1);
+            if (base != null) {
+                sources.add(base);
+            }
+            sources.addAll(inputs);
+            Path written = writeSnapshot(covered, visitor -> forEachLive(sources, baseVersion, Long.MAX_VALUE, merged, visitor));
+            synchronized (this) {
+                sealedSegments.removeAll(inputs);
+                snapshot = written;
+            }
+            if (base != null) {
+                Files.deleteIfExists(base);
+            }
+            for (Path segment : inputs) {
+                Files.deleteIfExists(segment);
+            }
+            compactionTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.info("Compacted {} timer segments into {} ({} pending timers)",
+                    inputs.size(), written.getFileName(), live);
+        } catch (IOException e) {
+            log.error("Timer store compaction failed, segments kept: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 64-bit hash of a task id, never 0 (the empty slot marker of the index)
+     */
+    static long idHash(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = mix(h);
+        return h != 0 ? h : 1;
+    }
+
+    static int recordBytes(int idBytes, int tenantBytes) {
+        return (HEADER_BYTES + idBytes + tenantBytes + 7) & ~7;
+    }
+
+    private void onEvent(TaskEvent event) {
+        switch (event.getType()) {
+            case CREATED, RESCHEDULED -> {
+                if (TaskService.isWithinTimerHorizon(event.getScheduledAt())) {
+                    upsert(event.getTaskId(), event.getTenant(), event.getScheduledAt());
+                } else {
+                    remove(event.getTaskId());
+                }
+            }
+            case DELIVERED, CANCELLED -> remove(event.getTaskId());
+        }
+    }
+
+    private synchronized int segmentCount() {
+        return sealedSegments.size() + (active != null ? 1 : 0);
+    }
+
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        try (Stream<Path> leftovers = Files.list(dir)) {
+            for (Path tmp : leftovers.filter(p -> p.getFileName().toString().endsWith(TMP_SUFFIX)).toList()) {
+                Files.delete(tmp);
+            }
+        }
+        List<Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        List<Path> segments = list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+
+        TimerIndex recovered = new TimerIndex(expectedTimers);
+        long covered = 0;
+        if (!snapshots.isEmpty()) {
+            snapshot = snapshots.get(snapshots.size() - 1);
+            covered = readSnapshot(snapshot, (id, tenant, scheduledAt, version) -> recovered.put(idHash(id), scheduledAt));
+            // Older snapshots are left over from a compaction that stopped before its cleanup
+            for (Path old : snapshots.subList(0, snapshots.size() - 1)) {
+                Files.delete(old);
+            }
+        }
+        long lastVersion = covered;
+        Replayed last = new Replayed(0, 0);
+        for (Path segment : segments) {
+            last = readSegment(segment, Long.MAX_VALUE, covered,
+                    (id, tenant, scheduledAt, version) -> apply(recovered, idHash(id), scheduledAt));
+            lastVersion = Math.max(lastVersion, versionOf(segment) + last.records() - 1);
+        }
+        index = recovered;
+        nextVersion = lastVersion + 1;
+
+        if (segments.isEmpty()) {
+            openSegment(nextVersion);
+        } else {
+            Path lastSegment = segments.get(segments.size() - 1);
+            sealedSegments.addAll(segments.subList(0, segments.size() - 1));
+            mapSegment(lastSegment, versionOf(lastSegment));
+            activeRecords = last.records();
+            activeBytes = (int) last.bytes();
+            nextVersion = activeFirstVersion + activeRecords;
+            // A torn write can leave stale but well-formed records behind the last good one
+            for (int pos = activeBytes; pos < activeCapacity; pos += Long.BYTES) {
+                active.putLong(pos, 0);
+            }
+        }
+
+        if (replayOnStart && index.size() > 0) {
+            replayPending = true;
+            recoveredTimers = index.copy();
+            recoveredFiles = new ArrayList<>();
+            if (snapshot != null) {
+                recoveredFiles.add(snapshot);
+            }
+            recoveredFiles.addAll(segments);
+            recoveredCovered = covered;
+            recoveredActiveBytes = activeBytes;
+        }
+        long nanos = System.nanoTime() - start;
+        recoveryTime.record(nanos, TimeUnit.NANOSECONDS);
+        log.info("Recovered {} pending timers from {} and {} segments in {} ms",
+                index.size(), snapshot != null ? snapshot.getFileName() : "no snapshot",
+                segments.size(), TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private void append(byte[] id, byte[] tenant, long scheduledAt) {
+        int size = recordBytes(id.length, tenant.length);
+        if (activeBytes + size > activeCapacity) {
+            active.force();
+            sealedSegments.add(segmentPath(activeFirstVersion));
+            try {
+                openSegment(nextVersion);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open timer segment", e);
+            }
+        }
+        encode(active, activeBytes, id, tenant, scheduledAt, nextVersion++);
+        activeBytes += size;
+        activeRecords++;
+    }
+
+    private void openSegment(long firstVersion) throws IOException {
+        mapSegment(segmentPath(firstVersion), firstVersion);
+        activeRecords = 0;
+        activeBytes = 0;
+    }
+
+    private void mapSegment(Path path, long firstVersion) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long bytes = Math.max(channel.size(), segmentBytes);
+            active = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            activeCapacity = (int) bytes;
+            activeFirstVersion = firstVersion;
+        }
+    }
+
+    /**
+     * Apply the records of a segment newer than the given version
+     *
+     * @param limit bytes of the segment to read at most
+     * @return the well-formed records of the segment and the bytes they take
+     */
+    private Replayed readSegment(Path segment, long limit, long after, RecordVisitor visitor) throws IOException {
+        long firstVersion = versionOf(segment);
+        int records = 0;
+        try (RecordReader reader = new RecordReader(segment, limit)) {
+            Read read;
+            while ((read = reader.next()) == Read.RECORD) {
+                if (reader.version != firstVersion + records) {
+                    read = Read.TORN;
+                    break;
+                }
+                if (reader.version > after) {
+                    visitor.visit(reader.id, reader.tenant, reader.scheduledAt, reader.version);
+                }
+                records++;
+            }
+            if (read == Read.TORN) {
+                log.warn("Torn timer record {} in {}, ignoring the rest of the segment", records, segment.getFileName());
+            }
+            return new Replayed(records, reader.consumed);
+        }
+    }
+
+    /**
+     * @return the version the snapshot covers
+     */
+    private long readSnapshot(Path path, RecordVisitor visitor) throws IOException {
+        long covered = versionOf(path);
+        try (RecordReader reader = new RecordReader(path, Long.MAX_VALUE)) {
+            Read read;
+            while ((read = reader.next()) == Read.RECORD) {
+                if (reader.version != covered) {
+                    throw new IOException("Corrupt timer snapshot " + path.getFileName());
+                }
+                visitor.visit(reader.id, reader.tenant, reader.scheduledAt, reader.version);
+            }
+            if (read == Read.TORN || reader.consumed != reader.size) {
+                throw new IOException("Corrupt timer snapshot " + path.getFileName());
+            }
+        }
+        return covered;
+    }
+
+    /**
+     * Visit the first record of each live timer in the given snapshot and segments, consuming
+     * the live set: a record counts when its scheduledAt is the timer's latest one
+     *
+     * @param lastLimit bytes to read of the last segment
+     */
+    private void forEachLive(List<Path> files, long covered, long lastLimit, TimerIndex live, RecordVisitor visitor)
+            throws IOException {
+        RecordVisitor first = (id, tenant, scheduledAt, version) -> {
+            long hash = idHash(id);
+            if (scheduledAt != REMOVED && live.get(hash, REMOVED) == scheduledAt) {
+                live.remove(hash);
+                visitor.visit(id, tenant, scheduledAt, version);
+            }
+        };
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            if (file.getFileName().toString().startsWith(SNAPSHOT_PREFIX)) {
+                readSnapshot(file, first);
+            } else {
+                readSegment(file, i == files.size() - 1 ? lastLimit : Long.MAX_VALUE, covered, first);
+            }
+        }
+    }
+
+    private Path writeSnapshot(long covered, RecordSource timers) throws IOException {
+        Path target = dir.resolve(String.format("%s%019d%s", SNAPSHOT_PREFIX, covered, SNAPSHOT_SUFFIX));
+        Path tmp = dir.resolve(target.getFileName() + TMP_SUFFIX);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            timers.forEach((id, tenant, scheduledAt, version) -> {
+                byte[] idBytes = utf8(id);
+                int size = recordBytes(idBytes.length, tenant.length);
+                if (buffer.remaining() < size) {
+                    drain(channel, buffer);
+                }
+                encode(buffer, buffer.position(), idBytes, tenant, scheduledAt, covered);
+                buffer.position(buffer.position() + size);
+            });
+            drain(channel, buffer);
+            channel.force(true);
+        }
+        return Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Write a record at an absolute position, the version last
+     */
+    private static void encode(ByteBuffer buffer, int pos, byte[] id, byte[] tenant, long scheduledAt, long version) {
+        int end = pos + recordBytes(id.length, tenant.length);
+        buffer.putLong(pos, scheduledAt);
+        buffer.putInt(pos + 16, checksum(id, tenant, scheduledAt, version));
+        buffer.putShort(pos + 20, (short) id.length);
+        buffer.putShort(pos + 22, (short) tenant.length);
+        buffer.put(pos + HEADER_BYTES, id);
+        buffer.put(pos + HEADER_BYTES + id.length, tenant);
+        for (int padding = pos + HEADER_BYTES + id.length + tenant.length; padding < end; padding++) {
+            buffer.put(padding, (byte) 0);
+        }
+        buffer.putLong(pos + 8, version);
+    }
+
+    private static void apply(TimerIndex target, long idHash, long scheduledAt) {
+        if (scheduledAt == REMOVED) {
+            target.remove(idHash);
+        } else {
+            target.put(idHash, scheduledAt);
+        }
+    }
+
+    private List<Path> list(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix);
+                    })
+                    .sorted(Comparator.comparingLong(TimerSegmentStore::versionOf))
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long firstVersion) {
+        return dir.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, firstVersion, SEGMENT_SUFFIX));
+    }
+
+    private static long versionOf(Path path) {
+        String name = path.getFileName().toString();
+        int start = name.indexOf('-') + 1;
+        return Long.parseLong(name.substring(start, name.indexOf('.', start)));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(byte[] id, byte[] tenant, long scheduledAt, long version) {
+        long h = 0xcbf29ce484222325L ^ ((long) id.length << 16 | tenant.length);
+        for (byte b : id) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        for (byte b : tenant) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return (int) mix(h ^ Long.rotateLeft(scheduledAt, 21) ^ Long.rotateLeft(version, 42));
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Sequential reader over the records of a segment or snapshot file
+     */
+    private static final class RecordReader implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+        private final long size;
+        private final long limit;
+        private long read;
+        private long consumed;
+
+        private String id;
+        private byte[] tenant;
+        private long scheduledAt;
+        private long version;
+
+        private RecordReader(Path file, long limit) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+            this.limit = Math.min(limit, size);
+            buffer.flip();
+        }
+
+        /**
+         * END at a zero version or when no further header fits, TORN at a record that fails its check
+         */
+        private Read next() throws IOException {
+            if (!fill(HEADER_BYTES)) {
+                return Read.END;
+            }
+            int pos = buffer.position();
+            long recordVersion = buffer.getLong(pos + 8);
+            if (recordVersion == 0) {
+                return Read.END;
+            }
+            int idLength = buffer.getShort(pos + 20) & 0xFFFF;
+            int tenantLength = buffer.getShort(pos + 22) & 0xFFFF;
+            if (idLength == 0 || idLength > MAX_FIELD_BYTES || tenantLength > MAX_FIELD_BYTES) {
+                return Read.TORN;
+            }
+            int recordBytes = recordBytes(idLength, tenantLength);
+            if (!fill(recordBytes)) {
+                return Read.TORN;
+            }
+            pos = buffer.position();
+            byte[] idBytes = new byte[idLength];
+            byte[] tenantBytes = tenantLength > 0 ? new byte[tenantLength] : NO_TENANT;
+            buffer.get(pos + HEADER_BYTES, idBytes);
+            buffer.get(pos + HEADER_BYTES + idLength, tenantBytes);
+            long recordScheduledAt = buffer.getLong(pos);
+            if (buffer.getInt(pos + 16) != checksum(idBytes, tenantBytes, recordScheduledAt, recordVersion)) {
+                return Read.TORN;
+            }
+            buffer.position(pos + recordBytes);
+            consumed += recordBytes;
+            id = new String(idBytes, StandardCharsets.UTF_8);
+            tenant = tenantBytes;
+            scheduledAt = recordScheduledAt;
+            version = recordVersion;
+            return Read.RECORD;
+        }
+
+        private boolean fill(int bytes) throws IOException {
+            while (buffer.remaining() < bytes) {
+                if (read >= limit) {
+                    return false;
+                }
+                buffer.compact();
+                buffer.limit(buffer.position() + (int) Math.min(buffer.remaining(), limit - read));
+                int n = channel.read(buffer);
+                buffer.flip();
+                if (n < 0) {
+                    return false;
+                }
+                read += n;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
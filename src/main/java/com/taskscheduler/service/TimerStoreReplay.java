@@ -0,0 +1,124 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.model.TaskMetaData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-registers the timers the {@link TimerSegmentStore} recovered at startup by publishing them
+ * to task-requests again, so a timing layer that lost its state gets the horizon back from local
+ * disk instead of a reload from tasksmetadata. Runs once, on its own executor after startup,
+ * paced so it does not crowd out live intake. Registering a timer the timing layer still holds
+ * is idempotent, and a timer that was delivered or cancelled meanwhile is dropped by the
+ * listener's status check.
+ */
+@Slf4j
+@Service
+public class TimerStoreReplay {
+
+    private static final int SENDS_PER_JOIN = 1000;
+
+    private final TimerSegmentStore timerSegmentStore;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String taskRequestsTopic;
+    private final boolean enabled;
+    private final long maxPerSecond;
+    private final ExecutorService executor;
+
+    private final Counter replayed;
+    private final Counter failures;
+
+    public TimerStoreReplay(TimerSegmentStore timerSegmentStore,
+                            KafkaTemplate<String, Object> kafkaTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${kafka.topics.task-requests}") String taskRequestsTopic,
+                            @Value("${timer-store.replay.enabled:true}") boolean enabled,
+                            @Value("${timer-store.replay.max-per-second:20000}") long maxPerSecond,
+                            @Qualifier("timerStoreReplayExecutor") ExecutorService executor) {
+        this.timerSegmentStore = timerSegmentStore;
+        this.kafkaTemplate = kafkaTemplate;
+        this.taskRequestsTopic = taskRequestsTopic;
+        this.enabled = enabled;
+        this.maxPerSecond = maxPerSecond;
+        this.executor = executor;
+        this.replayed = Counter.builder("taskscheduler_timer_store_replayed_total")
+                .description("Recovered timers re-published to task-requests")
+                .register(meterRegistry);
+        this.failures = Counter.builder("taskscheduler_timer_store_replay_failures_total")
+                .description("Recovered timers whose re-publish failed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayOnStartup() {
+        if (enabled) {
+            executor.execute(this::replay);
+        }
+    }
+
+    /**
+     * @return number of recovered timers published and acknowledged
+     */
+    public int replay() {
+        PacingThrottle throttle = new PacingThrottle(maxPerSecond);
+        AtomicInteger acked = new AtomicInteger();
+        List<CompletableFuture<SendResult<String, Object>>> inFlight = new ArrayList<>(SENDS_PER_JOIN);
+        long start = System.currentTimeMillis();
+        try {
+            timerSegmentStore.forEachRecoveredTimer((id, tenant, scheduledAt) -> {
+                throttle.acquire();
+                inFlight.add(kafkaTemplate.send(taskRequestsTopic, id, toMetaData(id, tenant, scheduledAt))
+                        .whenComplete((result, e) -> {
+                            if (e == null) {
+                                acked.incrementAndGet();
+                                replayed.increment();
+                            } else {
+                                failures.increment();
+                                log.warn("Replay of timer {} failed: {}", id, e.getMessage());
+                            }
+                        }));
+                if (inFlight.size() == SENDS_PER_JOIN) {
+                    awaitAll(inFlight);
+                }
+            });
+            awaitAll(inFlight);
+        } catch (Exception e) {
+            log.error("Timer store replay stopped after {} timers: {}", acked.get(), e.getMessage(), e);
+            return acked.get();
+        }
+        if (acked.get() > 0) {
+            log.info("Replayed {} recovered timers to {} in {} ms",
+                    acked.get(), taskRequestsTopic, System.currentTimeMillis() - start);
+        }
+        return acked.get();
+    }
+
+    private static void awaitAll(List<CompletableFuture<SendResult<String, Object>>> sends) {
+        // Failures are counted and logged per send, waiting only bounds what is in flight
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        sends.clear();
+    }
+
+    private static TaskMetaData toMetaData(String id, String tenant, long scheduledAt) {
+        TaskMetaData taskMetaData = new TaskMetaData();
+        taskMetaData.setId(id);
+        taskMetaData.setTenant(tenant);
+        taskMetaData.setScheduledAt(scheduledAt);
+        taskMetaData.setStatus("CREATED");
+        return taskMetaData;
+    }
+}
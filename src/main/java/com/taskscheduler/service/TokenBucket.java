@@ -0,0 +1,61 @@
+package com.taskscheduler.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking token bucket shared across threads, the try-acquire counterpart of
+ * {@link PacingThrottle}. State is a single theoretical arrival time (GCRA), so taking tokens
+ * is one CAS and needs no refill thread.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong arrival;
+
+    /**
+     * @param perSecond sustained tokens per second
+     * @param burst     tokens that may be taken at once after an idle period
+     */
+    public TokenBucket(double perSecond, int burst) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / perSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        // Start full
+        this.arrival = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    /**
+     * Take up to the requested number of tokens
+     *
+     * @return the number of tokens taken, 0 when the bucket is empty
+     */
+    public int tryAcquireUpTo(int requested) {
+        while (true) {
+            long now = System.nanoTime();
+            long current = arrival.get();
+            long start = Math.max(current, now - burstNanos);
+            int granted = (int) Math.min(requested, (now - start) / intervalNanos);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (arrival.compareAndSet(current, start + granted * intervalNanos)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * @return true when the bucket has refilled to its burst, so it is indistinguishable from a new one
+     */
+    public boolean isFull() {
+        return arrival.get() <= System.nanoTime() - burstNanos;
+    }
+
+    /**
+     * Nanoseconds until the next token becomes available, 0 if one is available now
+     */
+    public long nanosUntilNext() {
+        long now = System.nanoTime();
+        return Math.max(0, arrival.get() + intervalNanos - now);
+    }
+}
@@ -0,0 +1,247 @@
+package com.taskscheduler.service;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
+import com.taskscheduler.model.ScanCheckpoint;
+import com.taskscheduler.repository.ScanCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.cassandra.core.convert.CassandraConverter;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Parallel full-table scan over the Cassandra token ring.
+ * The ring is split into sub-ranges that are read concurrently, each one routed by the driver
+ * to a replica owning it, so a scan spreads over the whole cluster instead of one coordinator.
+ * Rows are streamed to a caller supplied handler, optionally throttled to a rate, and named
+ * scans checkpoint every completed range so a restarted scan skips finished ranges. Ranges are
+ * read on the shared tokenRangeScanExecutor, a scan occupying at most its concurrency of threads.
+ */
+@Slf4j
+@Service
+public class TokenRangeScanner {
+
+    private final CqlSession session;
+    private final CassandraConverter cassandraConverter;
+    private final ScanCheckpointRepository checkpointRepository;
+    private final ExecutorService executor;
+    private final int defaultConcurrency;
+    private final int defaultSplitsPerRange;
+    private final int defaultPageSize;
+    private final Counter rowsScanned;
+    private final Counter rangesCompleted;
+
+    public TokenRangeScanner(CqlSession session,
+                             CassandraConverter cassandraConverter,
+                             ScanCheckpointRepository checkpointRepository,
+                             MeterRegistry meterRegistry,
+                             @Qualifier("tokenRangeScanExecutor") ExecutorService executor,
+                             @Value("${task-scan.concurrency:8}") int defaultConcurrency,
+                             @Value("${task-scan.splits-per-range:4}") int defaultSplitsPerRange,
+                             @Value("${task-scan.page-size:1000}") int defaultPageSize) {
+        this.session = session;
+        this.cassandraConverter = cassandraConverter;
+        this.checkpointRepository = checkpointRepository;
+        this.executor = executor;
+        this.defaultConcurrency = defaultConcurrency;
+        this.defaultSplitsPerRange = defaultSplitsPerRange;
+        this.defaultPageSize = defaultPageSize;
+        this.rowsScanned = Counter.builder("taskscheduler_scan_rows_total")
+                .description("Rows read by token range scans")
+                .register(meterRegistry);
+        this.rangesCompleted = Counter.builder("taskscheduler_scan_ranges_completed_total")
+                .description("Token ranges completed by token range scans")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scan settings, unset values fall back to the task-scan.* configuration
+     */
+    @Data
+    public static class ScanOptions {
+        private String table = "tasks";
+        private String partitionKey = "id";
+        private String columns = "*";
+        // Resumable scans checkpoint completed ranges under this id, null for a one-off scan
+        private String scanId;
+        private Integer concurrency;
+        private Integer splitsPerRange;
+        private Integer pageSize;
+        // Upper bound on rows handed to the handler per second, 0 for unthrottled
+        private long maxRowsPerSecond;
+
+        public static ScanOptions of(String table, String columns) {
+            ScanOptions options = new ScanOptions();
+            options.setTable(table);
+            options.setColumns(columns);
+            return options;
+        }
+    }
+
+    @Data
+    public static class ScanResult {
+        private int ranges;
+        private int skippedRanges;
+        private int failedRanges;
+        private long rows;
+        private long durationMs;
+    }
+
+    /**
+     * Scan and map every row to the given entity type. The handler is called concurrently.
+     */
+    public <T> ScanResult scan(ScanOptions options, Class<T> entityType, Consumer<T> handler) {
+        return scanRows(options, row -> handler.accept(cassandraConverter.read(entityType, row)));
+    }
+
+    /**
+     * Scan raw rows. The handler is called concurrently from the scan threads and must be thread-safe.
+     */
+    public ScanResult scanRows(ScanOptions options, Consumer<Row> handler) {
+        long start = System.currentTimeMillis();
+        int concurrency = options.getConcurrency() != null ? options.getConcurrency() : defaultConcurrency;
+        int splits = options.getSplitsPerRange() != null ? options.getSplitsPerRange() : defaultSplitsPerRange;
+        int pageSize = options.getPageSize() != null ? options.getPageSize() : defaultPageSize;
+
+        TokenMap tokenMap = session.getMetadata().getTokenMap()
+                .orElseThrow(() -> new IllegalStateException("Token metadata is not available, cannot split the scan"));
+        List<TokenRange> ranges = splitRing(tokenMap, splits);
+
+        Set<String> completed = options.getScanId() == null ? Set.of()
+                : checkpointRepository.findByScanId(options.getScanId()).stream()
+                        .map(ScanCheckpoint::getRangeStart)
+                        .collect(Collectors.toSet());
+
+        PreparedStatement statement = session.prepare("SELECT " + options.getColumns() + " FROM " + options.getTable()
+                + " WHERE token(" + options.getPartitionKey() + ") > ? AND token(" + options.getPartitionKey() + ") <= ?");
+        PacingThrottle throttle = new PacingThrottle(options.getMaxRowsPerSecond());
+        AtomicLong rows = new AtomicLong();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        log.info("Starting token range scan of {} ({} ranges, concurrency {}, scanId {})",
+                options.getTable(), ranges.size(), concurrency, options.getScanId());
+        ConcurrentLinkedQueue<TokenRange> remaining = new ConcurrentLinkedQueue<>();
+        for (TokenRange range : ranges) {
+            if (completed.contains(tokenMap.format(range.getStart()))) {
+                skipped.incrementAndGet();
+            } else {
+                remaining.add(range);
+            }
+        }
+        // Each worker takes ranges until none are left, bounding this scan's share of the pool
+        Runnable worker = () -> {
+            for (TokenRange range = remaining.poll(); range != null; range = remaining.poll()) {
+                try {
+                    long count = scanRange(statement, range, pageSize, throttle, handler);
+                    rows.addAndGet(count);
+                    rangesCompleted.increment();
+                    if (options.getScanId() != null) {
+                        checkpoint(options.getScanId(), tokenMap.format(range.getStart()),
+                                tokenMap.format(range.getEnd()), count);
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    log.error("Token range {} of {} failed: {}", range, options.getTable(), e.getMessage(), e);
+                }
+            }
+        };
+        List<Future<?>> workers = new ArrayList<>(concurrency);
+        try {
+            for (int i = 0; i < Math.min(concurrency, remaining.size()); i++) {
+                workers.add(executor.submit(worker));
+            }
+            for (Future<?> future : workers) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            remaining.clear();
+            workers.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Token range scan interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Token range scan failed", e.getCause());
+        }
+
+        ScanResult result = new ScanResult();
+        result.setRanges(ranges.size());
+        result.setSkippedRanges(skipped.get());
+        result.setFailedRanges(failed.get());
+        result.setRows(rows.get());
+        result.setDurationMs(System.currentTimeMillis() - start);
+        log.info("Token range scan of {} finished: {}", options.getTable(), result);
+        return result;
+    }
+
+    /**
+     * Forget the checkpoints of a named scan so the next run starts over
+     */
+    public void resetCheckpoints(String scanId) {
+        checkpointRepository.deleteByScanId(scanId);
+    }
+
+    private long scanRange(PreparedStatement statement, TokenRange range, int pageSize,
+                           PacingThrottle throttle, Consumer<Row> handler) {
+        long count = 0;
+        BoundStatement bound = statement.bind()
+                .setToken(0, range.getStart())
+                .setToken(1, range.getEnd())
+                .setPageSize(pageSize);
+        ResultSet resultSet = session.execute(bound);
+        for (Row row : resultSet) {
+            throttle.acquire();
+            handler.accept(row);
+            count++;
+        }
+        rowsScanned.increment(count);
+        return count;
+    }
+
+    private void checkpoint(String scanId, String rangeStart, String rangeEnd, long count) {
+        ScanCheckpoint checkpoint = new ScanCheckpoint();
+        checkpoint.setScanId(scanId);
+        checkpoint.setRangeStart(rangeStart);
+        checkpoint.setRangeEnd(rangeEnd);
+        checkpoint.setRowsScanned(count);
+        checkpoint.setCompletedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+    }
+
+    /**
+     * Split every primary range of the ring and unwrap the range that wraps around the minimum token
+     */
+    private static List<TokenRange> splitRing(TokenMap tokenMap, int splitsPerRange) {
+        List<TokenRange> result = new ArrayList<>();
+        for (TokenRange range : tokenMap.getTokenRanges()) {
+            // A single node owns the full ring as (t, t], which has to be split to be queryable
+            int splits = range.getStart().equals(range.getEnd()) ? Math.max(2, splitsPerRange) : splitsPerRange;
+            List<TokenRange> parts = splits > 1 ? range.splitEvenly(splits) : List.of(range);
+            for (TokenRange part : parts) {
+                result.addAll(part.unwrap());
+            }
+        }
+        return result;
+    }
+}
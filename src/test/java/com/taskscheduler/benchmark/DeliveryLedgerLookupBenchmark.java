@@ -0,0 +1,141 @@
+package com.taskscheduler.benchmark;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.taskscheduler.config.RocksDBMetricsConfig;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.repository.TaskRepository;
+import com.taskscheduler.service.LocalStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.cassandra.core.CassandraTemplate;
+import org.springframework.data.cassandra.repository.support.CassandraRepositoryFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The delivery ledger check against the Cassandra read it saves: a LocalStateStore.get of the
+ * ledger column family (hit, and miss answered by the bloom filter) vs TaskRepository.findById
+ * on the tasks table. Needs a Cassandra node with the taskscheduler schema, set with
+ * -Dcassandra.host, -Dcassandra.port, -Dcassandra.keyspace and -Dcassandra.datacenter
+ * (defaults as in application.yml). The benchmark writes bench- prefixed rows and deletes them
+ * afterwards. main runs the JMH benchmarks (us/op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeliveryLedgerLookupBenchmark {
+
+    private static final int TASKS = 10_000;
+    private static final long SCHEDULED_AT = 1_792_368_000_000L;
+
+    private Path stateDir;
+    private LocalStateStore localStateStore;
+    private CqlSession session;
+    private TaskRepository taskRepository;
+    private List<String> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stateDir = Files.createTempDirectory("ledger-bench");
+        localStateStore = new LocalStateStore(new RocksDBMetricsConfig.RocksDBMetrics(new SimpleMeterRegistry()),
+                true, stateDir.toString(), 64L << 20, 172_800);
+        localStateStore.open();
+
+        session = CqlSession.builder()
+                .addContactPoint(new InetSocketAddress(System.getProperty("cassandra.host", "localhost"),
+                        Integer.getInteger("cassandra.port", 9042)))
+                .withLocalDatacenter(System.getProperty("cassandra.datacenter", "datacenter1"))
+                .withKeyspace(System.getProperty("cassandra.keyspace", "taskscheduler"))
+                .build();
+        CassandraTemplate cassandraTemplate = new CassandraTemplate(session);
+        taskRepository = new CassandraRepositoryFactory(cassandraTemplate).getRepository(TaskRepository.class);
+
+        ids = new ArrayList<>(TASKS);
+        List<Task> tasks = new ArrayList<>(TASKS);
+        byte[] ledgerEntry = ByteBuffer.allocate(Long.BYTES).putLong(SCHEDULED_AT).array();
+        for (int i = 0; i < TASKS; i++) {
+            Task task = new Task();
+            task.setId("bench-" + i);
+            task.setTenant("acme-payments");
+            task.setStatus("CREATED");
+            task.setScheduledAt(SCHEDULED_AT);
+            task.setCreatedAt(Instant.now());
+            task.setPayload("{\"amount\":1250,\"currency\":\"EUR\"}");
+            tasks.add(task);
+            ids.add(task.getId());
+            localStateStore.put(LocalStateStore.Namespace.DELIVERY_LEDGER, task.getId(), ledgerEntry);
+        }
+        taskRepository.saveAll(tasks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        taskRepository.deleteAllById(ids);
+        session.close();
+        localStateStore.close();
+        try (Stream<Path> files = Files.walk(stateDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] ledgerHit() {
+        return localStateStore.get(LocalStateStore.Namespace.DELIVERY_LEDGER, randomId());
+    }
+
+    @Benchmark
+    public byte[] ledgerMiss() {
+        return localStateStore.get(LocalStateStore.Namespace.DELIVERY_LEDGER, randomId() + "-never-delivered");
+    }
+
+    @Benchmark
+    public Optional<Task> cassandraFindById() {
+        return taskRepository.findById(randomId());
+    }
+
+    private String randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(TASKS));
+    }
+
+    public static void main(String[] args) throws Exception {
+        // The forked benchmark JVM does not inherit system properties
+        List<String> cassandraProperties = Stream.of("cassandra.host", "cassandra.port", "cassandra.keyspace", "cassandra.datacenter")
+                .filter(name -> System.getProperty(name) != null)
+                .map(name -> "-D" + name + "=" + System.getProperty(name))
+                .toList();
+        new Runner(new OptionsBuilder()
+                .include(DeliveryLedgerLookupBenchmark.class.getSimpleName())
+                .jvmArgsAppend(cassandraProperties.toArray(String[]::new))
+                .build()).run();
+    }
+}
@@ -0,0 +1,53 @@
+package com.taskscheduler.benchmark;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+/**
+ * The service advice of TracingAspect before attributes were allowlisted and gated on sampling:
+ * every argument is stringified on every call. Kept only as the baseline of TracingAspectBenchmark.
+ */
+@Aspect
+public class LegacyTracingAspect {
+
+    private final Tracer tracer;
+
+    public LegacyTracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Around("execution(* com.taskscheduler.service..*(..))")
+    public Object traceServiceMethods(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        String spanName = signature.getDeclaringType().getSimpleName() + "." + signature.getName();
+
+        Span span = tracer.spanBuilder(spanName)
+                .setSpanKind(SpanKind.INTERNAL)
+                .startSpan();
+
+        try (Scope scope = span.makeCurrent()) {
+            Object[] args = joinPoint.getArgs();
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] != null) {
+                    span.setAttribute("arg." + i, args[i].toString());
+                }
+            }
+            Object result = joinPoint.proceed();
+            span.setAttribute("success", true);
+            return result;
+        } catch (Exception e) {
+            span.recordException(e);
+            span.setAttribute("success", false);
+            span.setAttribute("error.message", e.getMessage());
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.taskscheduler.benchmark;
+
+import com.taskscheduler.config.TaskMetaDataDeserializer;
+import com.taskscheduler.config.TaskMetaDataSerializer;
+import com.taskscheduler.model.TaskMetaData;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskMetaData on task-requests: the binary wire format against the JSON serializer it replaces.
+ * main prints the record sizes, then runs the JMH benchmarks (ns/op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskMetaDataSerdeBenchmark {
+
+    private static final String TOPIC = "task-requests";
+
+    private JsonSerializer<Object> jsonSerializer;
+    private TaskMetaDataSerializer binarySerializer;
+    private TaskMetaDataDeserializer deserializer;
+    private TaskMetaData metaData;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() {
+        jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.configure(Map.of(), false);
+        binarySerializer = new TaskMetaDataSerializer();
+        binarySerializer.configure(Map.of(TaskMetaDataSerializer.BINARY_TOPICS_CONFIG, TOPIC), false);
+        deserializer = new TaskMetaDataDeserializer();
+        deserializer.configure(Map.of("spring.json.trusted.packages", "*"), false);
+        metaData = sample();
+        json = jsonSerializer.serialize(TOPIC, new RecordHeaders(), metaData);
+        binary = binarySerializer.serialize(TOPIC, new RecordHeaders(), metaData);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jsonSerializer.close();
+        binarySerializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), metaData);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binarySerializer.serialize(TOPIC, new RecordHeaders(), metaData);
+    }
+
+    @Benchmark
+    public TaskMetaData deserializeJson() {
+        return deserializer.deserialize(TOPIC, new RecordHeaders(), json);
+    }
+
+    @Benchmark
+    public TaskMetaData deserializeBinary() {
+        return deserializer.deserialize(TOPIC, new RecordHeaders(), binary);
+    }
+
+    static TaskMetaData sample() {
+        TaskMetaData metaData = new TaskMetaData();
+        metaData.setId("20261018_221744_123-7f3c9a2e-4b1d-4e8a-9c55-1a2b3c4d5e6f");
+        metaData.setTenant("acme-payments");
+        metaData.setScheduledAt(1_792_368_000_000L);
+        metaData.setStatus("CREATED");
+        return metaData;
+    }
+
+    public static void main(String[] args) throws Exception {
+        TaskMetaDataSerdeBenchmark sizes = new TaskMetaDataSerdeBenchmark();
+        sizes.setUp();
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        sizes.jsonSerializer.serialize(TOPIC, jsonHeaders, sizes.metaData);
+        int headerBytes = 0;
+        for (Header header : jsonHeaders) {
+            headerBytes += header.key().length() + header.value().length;
+        }
+        System.out.printf("JSON:   %d value bytes + %d type header bytes%n", sizes.json.length, headerBytes);
+        System.out.printf("binary: %d value bytes, no headers%n", sizes.binary.length);
+        sizes.tearDown();
+        new Runner(new OptionsBuilder().include(TaskMetaDataSerdeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,133 @@
+package com.taskscheduler.benchmark;
+
+import com.taskscheduler.config.TracingAspect;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.model.TaskMetaData;
+import com.taskscheduler.service.TracedCallsFixture;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cost of tracing a service call through the Spring AOP proxy: the current TracingAspect against
+ * {@link LegacyTracingAspect}, at full and at the default 10% sampling. Spans go through an SDK
+ * tracer to an in-memory exporter that only counts them, so the numbers are the aspect and SDK
+ * cost without any network export. main runs the JMH benchmarks (ns/op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingAspectBenchmark {
+
+    @Param({"legacy", "current"})
+    public String aspect;
+
+    @Param({"1.0", "0.1"})
+    public double sampling;
+
+    private SdkTracerProvider tracerProvider;
+    private CountingExporter exporter;
+    private TracedCallsFixture service;
+    private Task task;
+    private List<TaskMetaData> batch;
+
+    @Setup
+    public void setUp() {
+        exporter = new CountingExporter();
+        tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(sampling)))
+                .build();
+        Tracer tracer = tracerProvider.get("tracing-benchmark");
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new TracedCallsFixture());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect("legacy".equals(aspect)
+                ? new LegacyTracingAspect(tracer)
+                : new TracingAspect(tracer, "id,taskId,tenant,priority,status,jobId,recipient", 8, 128, ""));
+        service = proxyFactory.getProxy();
+
+        task = new Task();
+        task.setId("20261018_221744_123-7f3c9a2e-4b1d-4e8a-9c55-1a2b3c4d5e6f");
+        task.setTenant("acme-payments");
+        task.setScheduledAt(1_792_368_000_000L);
+        task.setStatus("CREATED");
+        task.setPayload("x".repeat(4096));
+        batch = new ArrayList<>(500);
+        for (int i = 0; i < 500; i++) {
+            TaskMetaData metaData = new TaskMetaData();
+            metaData.setId(task.getId() + "-" + i);
+            metaData.setTenant(task.getTenant());
+            metaData.setScheduledAt(task.getScheduledAt());
+            metaData.setStatus("CREATED");
+            batch.add(metaData);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tracerProvider.close();
+    }
+
+    @Benchmark
+    public String deliverTask() {
+        return service.deliver(task);
+    }
+
+    @Benchmark
+    public int publishBatch() {
+        return service.publishBatch(task.getTenant(), batch);
+    }
+
+    private static final class CountingExporter implements SpanExporter {
+        private final LongAdder spans = new LongAdder();
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spanData) {
+            spans.add(spanData.size());
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(TracingAspectBenchmark.class.getSimpleName()).build()).run();
+    }
+}
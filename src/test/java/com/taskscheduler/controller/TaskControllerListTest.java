@@ -0,0 +1,73 @@
+package com.taskscheduler.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskscheduler.SchedulerCron.DailyTaskScheduler;
+import com.taskscheduler.model.TaskSummary;
+import com.taskscheduler.service.BulkTaskJobService;
+import com.taskscheduler.service.FanOutService;
+import com.taskscheduler.service.SchedulingLagRecorder;
+import com.taskscheduler.service.TaskEventStreamService;
+import com.taskscheduler.service.TaskSearchIndex;
+import com.taskscheduler.service.TaskService;
+import com.taskscheduler.service.TaskStatsAggregator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TaskControllerListTest {
+
+    private final TaskService taskService = mock(TaskService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        TaskController controller = new TaskController(taskService, mock(DailyTaskScheduler.class),
+                mock(TaskEventStreamService.class), mock(TaskStatsAggregator.class), mock(TaskSearchIndex.class),
+                mock(BulkTaskJobService.class), mock(FanOutService.class), mock(SchedulingLagRecorder.class),
+                new ObjectMapper().findAndRegisterModules());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void streamsScannedRowsAsJsonArray() throws Exception {
+        when(taskService.getAllTasks("summary")).thenReturn(sink -> {
+            sink.accept(summary("t1"));
+            sink.accept(summary("t2"));
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/tasks").param("fields", "summary"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value("t1"))
+                .andExpect(jsonPath("$[1].id").value("t2"));
+    }
+
+    @Test
+    void unknownFieldIsRejectedBeforeStreaming() throws Exception {
+        when(taskService.getAllTasks("nope")).thenThrow(new IllegalArgumentException("Bad Request: Unknown task field: nope"));
+
+        mockMvc.perform(get("/api/tasks").param("fields", "nope"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static TaskSummary summary(String id) {
+        TaskSummary summary = new TaskSummary();
+        summary.setId(id);
+        return summary;
+    }
+}
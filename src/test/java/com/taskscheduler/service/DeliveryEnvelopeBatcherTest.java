@@ -0,0 +1,64 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.model.Task;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeliveryEnvelopeBatcherTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DeliveryEnvelopeBatcher batcher = new DeliveryEnvelopeBatcher(kafkaTemplate, meterRegistry,
+            new SchedulingLagRecorder(meterRegistry, 10, 60_000), "delivered-tasks", true, 500, 900_000, 50, false);
+
+    @Test
+    void deliveryIsAckedOnlyWithItsEnvelope() {
+        CompletableFuture<SendResult<String, Object>> sent = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), any(), any())).thenReturn(sent);
+
+        CompletableFuture<Void> first = batcher.add(task("t1"));
+        CompletableFuture<Void> second = batcher.add(task("t2"));
+        assertThat(first).isNotDone();
+
+        batcher.flushAll();
+        assertThat(first).isNotDone();
+
+        sent.complete(null);
+        assertThat(first).isCompleted();
+        assertThat(second).isCompleted();
+    }
+
+    @Test
+    void failedEnvelopeFailsEveryDelivery() {
+        CompletableFuture<SendResult<String, Object>> sent = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), any(), any())).thenReturn(sent);
+
+        CompletableFuture<Void> first = batcher.add(task("t1"));
+        CompletableFuture<Void> second = batcher.add(task("t2"));
+        batcher.flushAll();
+        sent.completeExceptionally(new IllegalStateException("broker down"));
+
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isCompletedExceptionally();
+    }
+
+    private static Task task(String id) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTenant("acme");
+        task.setScheduledAt(System.currentTimeMillis());
+        task.setPayload("{}");
+        return task;
+    }
+}
@@ -0,0 +1,110 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.TaskMetaDataSerializer;
+import com.taskscheduler.dto.DeliveredTaskRef;
+import com.taskscheduler.dto.DeliveryEnvelope;
+import com.taskscheduler.model.Task;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * What the batcher packs, the unpacker gives back one delivery at a time, each with its own headers.
+ */
+class DeliveryEnvelopeUnpackerTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DeliveryEnvelopeBatcher batcher = new DeliveryEnvelopeBatcher(kafkaTemplate, meterRegistry,
+            new SchedulingLagRecorder(meterRegistry, 10, 60_000), "delivered-tasks", true, 500, 900_000, 50, false);
+
+    @Test
+    void envelopeRoundTripKeepsDeliveriesAndTheirHeaders() throws IOException {
+        when(kafkaTemplate.send(anyString(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        Task first = task("t1", "{\"amount\":1}");
+        Task second = task("t2", "{\"amount\":2}");
+        DeliveredTaskRef ref = DeliveredTaskRef.of(task("t3", "x".repeat(100)), "t3", 100);
+
+        batcher.add(first, Map.of(SchedulingLagRecorder.HEADER_SCHEDULED_AT, "1000", SchedulingLagRecorder.HEADER_FIRED_AT, "1005"));
+        batcher.add(second);
+        batcher.add(ref, Map.of(SchedulingLagRecorder.HEADER_SCHEDULED_AT, "3000"));
+        batcher.flushAll();
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate).send(eq("delivered-tasks"), eq("acme"), sent.capture());
+        byte[] json;
+        try (TaskMetaDataSerializer serializer = new TaskMetaDataSerializer()) {
+            json = serializer.serialize("delivered-tasks", sent.getValue());
+        }
+        RecordHeaders recordHeaders = new RecordHeaders();
+        recordHeaders.add("x-source", "scheduler".getBytes(StandardCharsets.UTF_8));
+
+        for (List<DeliveryEnvelopeUnpacker.Delivery> deliveries : List.of(
+                DeliveryEnvelopeUnpacker.unpack(json, recordHeaders),
+                DeliveryEnvelopeUnpacker.unpack(sent.getValue(), recordHeaders))) {
+            assertThat(deliveries).hasSize(3);
+
+            Task unpackedFirst = (Task) deliveries.get(0).value();
+            assertThat(unpackedFirst.getId()).isEqualTo("t1");
+            assertThat(unpackedFirst.getPayload()).isEqualTo("{\"amount\":1}");
+            assertThat(deliveries.get(0).headers())
+                    .containsEntry(SchedulingLagRecorder.HEADER_SCHEDULED_AT, "1000")
+                    .containsEntry(SchedulingLagRecorder.HEADER_FIRED_AT, "1005")
+                    .containsKey(SchedulingLagRecorder.HEADER_PUBLISHED_AT)
+                    .containsEntry("x-source", "scheduler");
+
+            assertThat(((Task) deliveries.get(1).value()).getId()).isEqualTo("t2");
+            assertThat(deliveries.get(1).headers()).containsOnly(Map.entry("x-source", "scheduler"));
+
+            DeliveredTaskRef unpackedRef = (DeliveredTaskRef) deliveries.get(2).value();
+            assertThat(unpackedRef.getPayloadRef()).isEqualTo("/api/tasks/t3/payload");
+            assertThat(unpackedRef.getPayloadSize()).isEqualTo(100);
+            assertThat(deliveries.get(2).headers())
+                    .containsEntry(SchedulingLagRecorder.HEADER_SCHEDULED_AT, "3000")
+                    .doesNotContainKey(SchedulingLagRecorder.HEADER_FIRED_AT);
+        }
+    }
+
+    @Test
+    void singleDeliveryKeepsTheRecordHeaders() throws IOException {
+        RecordHeaders recordHeaders = new RecordHeaders();
+        recordHeaders.add(SchedulingLagRecorder.HEADER_SCHEDULED_AT, "1000".getBytes(StandardCharsets.UTF_8));
+        byte[] json;
+        try (TaskMetaDataSerializer serializer = new TaskMetaDataSerializer()) {
+            json = serializer.serialize("delivered-tasks", task("t1", "{}"));
+        }
+
+        List<DeliveryEnvelopeUnpacker.Delivery> deliveries = DeliveryEnvelopeUnpacker.unpack(json, recordHeaders);
+
+        assertThat(deliveries).hasSize(1);
+        assertThat(((Task) deliveries.get(0).value()).getId()).isEqualTo("t1");
+        assertThat(deliveries.get(0).headers()).containsEntry(SchedulingLagRecorder.HEADER_SCHEDULED_AT, "1000");
+    }
+
+    private static Task task(String id, String payload) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTenant("acme");
+        task.setStatus("DELIVERED");
+        task.setScheduledAt(1_700_000_000_000L);
+        task.setPayload(payload);
+        return task;
+    }
+}
@@ -0,0 +1,155 @@
+package com.taskscheduler.service;
+
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.taskscheduler.model.RecipientOutcome;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.model.TaskRecipients;
+import com.taskscheduler.repository.RecipientOutcomeRepository;
+import com.taskscheduler.repository.TaskRecipientsRepository;
+import com.taskscheduler.repository.TaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.cassandra.core.CassandraBatchOperations;
+import org.springframework.data.cassandra.core.CassandraOperations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FanOutServiceTest {
+
+    private final TaskRecipientsRepository recipientsRepository = mock(TaskRecipientsRepository.class);
+    private final RecipientOutcomeRepository outcomeRepository = mock(RecipientOutcomeRepository.class);
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    private final CassandraOperations cassandraOperations = mock(CassandraOperations.class);
+    private final CassandraBatchOperations batch = mock(CassandraBatchOperations.class);
+    private final FanOutService fanOutService = new FanOutService(recipientsRepository, outcomeRepository,
+            taskRepository, cassandraOperations, new SimpleMeterRegistry(), 1000, 1_000_000);
+
+    @Test
+    void outcomesAreWrittenOnlyOnceDeliveriesAreAcked() throws InterruptedException {
+        stubChunks(List.of("a", "b"));
+        when(outcomeRepository.findByTaskId("t1", 1)).thenReturn(List.of());
+        Map<String, CompletableFuture<Void>> acks = new ConcurrentHashMap<>();
+        CountDownLatch published = new CountDownLatch(2);
+
+        // expand blocks on each chunk's acks, so it runs off the test thread
+        CompletableFuture<Void> expanded = CompletableFuture.supplyAsync(() -> fanOutService.expand(template(), delivery -> {
+            CompletableFuture<Void> acked = new CompletableFuture<>();
+            acks.put(delivery.getAssignedTo(), acked);
+            published.countDown();
+            return acked;
+        })).thenCompose(done -> done);
+        assertThat(published.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(expanded).isNotDone();
+        verify(batch, never()).insert(anyList());
+
+        acks.get("a").complete(null);
+        acks.get("b").completeExceptionally(new IllegalStateException("broker down"));
+        expanded.join();
+
+        Map<String, RecipientOutcome> outcomes = writtenOutcomes();
+        assertThat(outcomes.get("a").getStatus()).isEqualTo(FanOutService.OUTCOME_DISPATCHED);
+        assertThat(outcomes.get("b").getStatus()).isEqualTo(FanOutService.OUTCOME_FAILED);
+        assertThat(outcomes.get("b").getError()).isEqualTo("broker down");
+        verify(taskRepository).updateExecutionResult(eq("t1"), eq("dispatched=1 failed=1"), any());
+    }
+
+    @Test
+    void redeliveredTimerSkipsRecipientsAlreadyDispatched() {
+        stubChunks(List.of("a", "b", "c"));
+        when(outcomeRepository.findByTaskId("t1", 1)).thenReturn(List.of(outcome("a", "DISPATCHED")));
+        when(outcomeRepository.findByTaskIdAndRecipientIn(eq("t1"), anyList()))
+                .thenReturn(List.of(outcome("a", "DISPATCHED"), outcome("b", "FAILED")));
+        List<String> published = new ArrayList<>();
+
+        fanOutService.expand(template(), delivery -> {
+            published.add(delivery.getAssignedTo());
+            return CompletableFuture.completedFuture(null);
+        }).join();
+
+        assertThat(published).containsExactly("b", "c");
+        verify(taskRepository).updateExecutionResult(eq("t1"), eq("dispatched=2 failed=0 skipped=1"), any());
+    }
+
+    @Test
+    void nextChunkIsLoadedOnlyOnceTheCurrentOneIsSettled() throws InterruptedException {
+        stubChunks(List.of("a"), List.of("b"));
+        when(outcomeRepository.findByTaskId("t1", 1)).thenReturn(List.of());
+        CompletableFuture<Void> firstAck = new CompletableFuture<>();
+        CountDownLatch firstPublished = new CountDownLatch(1);
+
+        CompletableFuture<Void> expanded = CompletableFuture.supplyAsync(() -> fanOutService.expand(template(), delivery -> {
+            if (delivery.getAssignedTo().equals("a")) {
+                firstPublished.countDown();
+                return firstAck;
+            }
+            return CompletableFuture.completedFuture(null);
+        })).thenCompose(done -> done);
+        assertThat(firstPublished.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(recipientsRepository, never()).findChunk("t1", 1);
+
+        firstAck.complete(null);
+        expanded.join();
+        verify(recipientsRepository).findChunk("t1", 1);
+        verify(taskRepository).updateExecutionResult(eq("t1"), eq("dispatched=2 failed=0"), any());
+    }
+
+    @SafeVarargs
+    private void stubChunks(List<String>... chunks) {
+        when(recipientsRepository.findChunk(eq("t1"), anyInt())).thenAnswer(invocation -> {
+            int index = invocation.<Integer>getArgument(1);
+            if (index >= chunks.length) {
+                return null;
+            }
+            TaskRecipients chunk = new TaskRecipients();
+            chunk.setTaskId("t1");
+            chunk.setChunk(index);
+            chunk.setRecipients(chunks[index]);
+            return chunk;
+        });
+        when(cassandraOperations.batchOps(DefaultBatchType.UNLOGGED)).thenReturn(batch);
+        when(batch.insert(anyList())).thenReturn(batch);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, RecipientOutcome> writtenOutcomes() {
+        ArgumentCaptor<List<RecipientOutcome>> captor = ArgumentCaptor.forClass(List.class);
+        verify(batch).insert(captor.capture());
+        Map<String, RecipientOutcome> byRecipient = new HashMap<>();
+        captor.getValue().forEach(outcome -> byRecipient.put(outcome.getRecipient(), outcome));
+        return byRecipient;
+    }
+
+    private static Task template() {
+        Task task = new Task();
+        task.setId("t1");
+        task.setTaskType(FanOutService.TASK_TYPE);
+        task.setPayload("{}");
+        return task;
+    }
+
+    private static RecipientOutcome outcome(String recipient, String status) {
+        RecipientOutcome outcome = new RecipientOutcome();
+        outcome.setTaskId("t1");
+        outcome.setRecipient(recipient);
+        outcome.setStatus(status);
+        return outcome;
+    }
+}
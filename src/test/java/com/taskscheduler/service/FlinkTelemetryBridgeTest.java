@@ -0,0 +1,126 @@
+package com.taskscheduler.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.taskscheduler.config.FlinkMetricsConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The bridge against a stubbed Flink REST API: which job it reports, how totals become counter
+ * increments, and how subtask backpressure maps to the 0-100 level intake reads.
+ */
+class FlinkTelemetryBridgeTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FlinkMetricsConfig.FlinkMetrics flinkMetrics = new FlinkMetricsConfig.FlinkMetrics(meterRegistry);
+    // path -> JSON body
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::respond);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void reportsTheNamedRunningJobAndMapsBackpressure() {
+        stubJob(100, 40, 5, 1, 250, 730);
+        FlinkTelemetryBridge bridge = bridge();
+
+        bridge.poll();
+
+        assertThat(gauge("flink_task_manager_count")).isEqualTo(2);
+        assertThat(gauge("flink_active_jobs")).isEqualTo(2);
+        // Max of 730 ms per second backpressured across vertices
+        assertThat(flinkMetrics.getBackpressureLevel()).isEqualTo(73);
+        // The first poll only sets the baseline of the totals
+        assertThat(counter("flink_records_processed_total")).isZero();
+        assertThat(counter("flink_checkpoints_completed_total")).isZero();
+
+        stubJob(160, 70, 7, 1, 1200, 0);
+        bridge.poll();
+
+        assertThat(counter("flink_records_processed_total")).isEqualTo(60);
+        assertThat(counter("flink_tasks_processed_total")).isEqualTo(30);
+        assertThat(counter("flink_checkpoints_completed_total")).isEqualTo(2);
+        assertThat(counter("flink_checkpoints_failed_total")).isZero();
+        assertThat(flinkMetrics.getBackpressureLevel()).isEqualTo(100);
+    }
+
+    @Test
+    void unreachableApiClearsBackpressure() {
+        stubJob(100, 40, 5, 1, 900, 0);
+        FlinkTelemetryBridge bridge = bridge();
+        bridge.poll();
+        assertThat(flinkMetrics.getBackpressureLevel()).isEqualTo(90);
+
+        server.stop(0);
+        bridge.poll();
+
+        assertThat(flinkMetrics.getBackpressureLevel()).isZero();
+    }
+
+    private FlinkTelemetryBridge bridge() {
+        return new FlinkTelemetryBridge(flinkMetrics, true,
+                "http://localhost:" + server.getAddress().getPort(), 2000, "task-scheduler-job");
+    }
+
+    private void stubJob(long written, long read, long completed, long failed,
+                         double sourceBackpressure, double sinkBackpressure) {
+        responses.put("/overview", "{\"taskmanagers\":2,\"jobs-running\":2}");
+        responses.put("/jobs/overview", "{\"jobs\":["
+                + "{\"jid\":\"j0\",\"name\":\"task-scheduler-job\",\"state\":\"CANCELED\"},"
+                + "{\"jid\":\"j1\",\"name\":\"some-other-job\",\"state\":\"RUNNING\"},"
+                + "{\"jid\":\"j2\",\"name\":\"task-scheduler-job\",\"state\":\"RUNNING\"}]}");
+        responses.put("/jobs/j2", "{\"jid\":\"j2\",\"vertices\":["
+                + "{\"id\":\"source\",\"metrics\":{\"write-records\":" + written + "}},"
+                + "{\"id\":\"sink\",\"metrics\":{\"read-records\":" + read + "}}]}");
+        responses.put("/jobs/j2/vertices/source/subtasks/metrics", backpressure(sourceBackpressure));
+        responses.put("/jobs/j2/vertices/sink/subtasks/metrics", backpressure(sinkBackpressure));
+        responses.put("/jobs/j2/checkpoints", "{\"counts\":{\"completed\":" + completed + ",\"failed\":" + failed + "},"
+                + "\"latest\":{\"completed\":{\"end_to_end_duration\":1200}}}");
+        responses.put("/jobs/j2/metrics", "[{\"id\":\"numRestarts\",\"value\":\"0\"}]");
+    }
+
+    private static String backpressure(double max) {
+        return "[{\"id\":\"backPressuredTimeMsPerSecond\",\"min\":0,\"max\":" + max + ",\"avg\":0,\"sum\":0}]";
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String body = responses.get(exchange.getRequestURI().getPath());
+        byte[] bytes = (body != null ? body : "{\"errors\":[\"Not found\"]}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(body != null ? 200 : 404, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+}
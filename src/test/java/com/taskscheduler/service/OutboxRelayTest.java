@@ -0,0 +1,98 @@
+package com.taskscheduler.service;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.taskscheduler.model.TaskOutbox;
+import com.taskscheduler.repository.TaskOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The relay deletes only the acked prefix of a batch and sends the rest again, and leaves the
+ * shards another node holds alone.
+ */
+class OutboxRelayTest {
+
+    private final TaskOutboxRepository outboxRepository = mock(TaskOutboxRepository.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final OutboxShardLeases shardLeases = mock(OutboxShardLeases.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void partiallyAckedBatchDeletesUpToTheLastAckAndResendsTheRest() {
+        TaskOutbox first = row("t1");
+        TaskOutbox second = row("t2");
+        TaskOutbox third = row("t3");
+        when(shardLeases.hold(eq(0), anyLong())).thenReturn(true);
+        when(outboxRepository.findOldest(eq(0), any(), eq(3)))
+                .thenReturn(List.of(first, second, third))
+                .thenReturn(List.of(second, third))
+                .thenReturn(List.of());
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        OutboxRelay relay = relay(1);
+        relay.relay();
+        relay.relay();
+
+        InOrder order = inOrder(outboxRepository);
+        order.verify(outboxRepository).deleteUpTo(0, first.getSeq());
+        order.verify(outboxRepository).deleteUpTo(0, third.getSeq());
+        verify(outboxRepository, never()).deleteUpTo(0, second.getSeq());
+        ArgumentCaptor<ProducerRecord<String, Object>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(5)).send(sent.capture());
+        assertThat(sent.getAllValues()).extracting(ProducerRecord::key)
+                .containsExactly("t1", "t2", "t3", "t2", "t3");
+    }
+
+    @Test
+    void shardsWithoutTheLeaseAreNotRead() {
+        when(shardLeases.hold(eq(1), anyLong())).thenReturn(true);
+        when(outboxRepository.findOldest(eq(1), any(), anyInt())).thenReturn(List.of());
+
+        relay(2).relay();
+
+        verify(outboxRepository, never()).findOldest(eq(0), any(), anyInt());
+        verify(outboxRepository).findOldest(eq(1), any(), anyInt());
+    }
+
+    private OutboxRelay relay(int shards) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new OutboxRelay(mock(CassandraOperations.class), outboxRepository, kafkaTemplate, meterRegistry,
+                new SchedulingLagRecorder(meterRegistry, 10, 60_000), shardLeases, "task-requests",
+                true, shards, 3, 1000, 0);
+    }
+
+    private static TaskOutbox row(String taskId) {
+        TaskOutbox row = new TaskOutbox();
+        row.setShard(0);
+        row.setSeq(Uuids.timeBased());
+        row.setTaskId(taskId);
+        row.setTenant("acme");
+        row.setScheduledAt(1_792_368_000_000L);
+        row.setStatus("CREATED");
+        return row;
+    }
+}
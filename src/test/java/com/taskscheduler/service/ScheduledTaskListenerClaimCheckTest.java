@@ -0,0 +1,90 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.dto.DeliveredTaskRef;
+import com.taskscheduler.dto.ScheduledTaskRef;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.repository.TaskRepository;
+import com.taskscheduler.repository.TaskSummaryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The claim-check threshold is in UTF-8 bytes, the size consumers actually receive.
+ */
+class ScheduledTaskListenerClaimCheckTest {
+
+    private static final int THRESHOLD_BYTES = 16;
+
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+
+    @Test
+    void multiBytePayloadOverTheByteThresholdIsClaimChecked() {
+        // 10 chars, 20 bytes
+        Object sent = deliver("üüüüüüüüüü");
+
+        DeliveredTaskRef ref = assertInstanceOf(DeliveredTaskRef.class, sent);
+        assertEquals(20, ref.getPayloadSize());
+    }
+
+    @Test
+    void asciiPayloadUnderTheThresholdIsDeliveredInline() {
+        assertInstanceOf(Task.class, deliver("abcdefghij"));
+    }
+
+    @Test
+    void utf8LengthMatchesTheEncoder() {
+        for (String value : List.of("", "plain", "äöü", "€uro", "emoji 🚀 ok", "lone \uD800 surrogate")) {
+            assertEquals(value.getBytes(StandardCharsets.UTF_8).length,
+                    ScheduledTaskListener.utf8Length(value), value);
+        }
+    }
+
+    private Object deliver(String payload) {
+        Task task = new Task();
+        task.setId("t1");
+        task.setTenant("acme");
+        task.setStatus("CREATED");
+        task.setScheduledAt(1_700_000_000_000L);
+        task.setPayload(payload);
+        when(taskRepository.findAllByIdIn(anyList())).thenReturn(List.of(task));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        listener().handleScheduledTaskMetadata(List.of(new ConsumerRecord<>("scheduled-tasks", 0, 0, task.getId(),
+                new ScheduledTaskRef(task.getId(), task.getTenant(), task.getScheduledAt(), null, null))));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<ProducerRecord<String, Object>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        return sent.getValue().value();
+    }
+
+    private ScheduledTaskListener listener() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SchedulingLagRecorder lagRecorder = new SchedulingLagRecorder(meterRegistry, 10, 60_000);
+        DeliveryEnvelopeBatcher envelopeBatcher = new DeliveryEnvelopeBatcher(kafkaTemplate, meterRegistry, lagRecorder,
+                "delivered-tasks", false, 500, 900_000, 50, true);
+        return new ScheduledTaskListener(taskRepository, kafkaTemplate, new TaskEventBus(), mock(SharedPayloadStore.class),
+                "delivered-tasks", false, mock(PayloadCache.class), true, THRESHOLD_BYTES, envelopeBatcher,
+                mock(FanOutService.class), mock(TaskSummaryRepository.class), mock(LaneDispatcher.class), false,
+                "scheduled-tasks-medium", "scheduled-tasks-low", "scheduled-tasks", mock(TenantFairShare.class), 1000,
+                mock(ConsumerFlowController.class), lagRecorder, mock(DeliveryLedger.class));
+    }
+}
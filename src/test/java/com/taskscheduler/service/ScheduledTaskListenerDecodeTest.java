@@ -0,0 +1,91 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.config.ScheduledTaskRefDeserializer;
+import com.taskscheduler.dto.ScheduledTaskRef;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.repository.TaskRepository;
+import com.taskscheduler.repository.TaskSummaryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A scheduled-tasks record that cannot be decoded is skipped with its batch instead of failing
+ * every poll of the partition.
+ */
+class ScheduledTaskListenerDecodeTest {
+
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final DeliveryLedger deliveryLedger = mock(DeliveryLedger.class);
+
+    @Test
+    void undecodableRecordIsSkippedAndTheRestDelivered() {
+        RecordHeaders headers = new RecordHeaders();
+        try (ErrorHandlingDeserializer<ScheduledTaskRef> deserializer =
+                     new ErrorHandlingDeserializer<>(new ScheduledTaskRefDeserializer())) {
+            assertNull(deserializer.deserialize("scheduled-tasks", headers,
+                    "not a task".getBytes(StandardCharsets.UTF_8)));
+        }
+        assertNotNull(headers.lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER));
+        ConsumerRecord<String, ScheduledTaskRef> bad = new ConsumerRecord<>("scheduled-tasks", 0, 0,
+                System.currentTimeMillis(), TimestampType.CREATE_TIME, 2, 10, "t0", null, headers, Optional.empty());
+
+        Task task = task();
+        when(taskRepository.findAllByIdIn(anyList())).thenReturn(List.of(task));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        listener().handleScheduledTaskMetadata(List.of(bad, record(task)));
+
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+        verify(deliveryLedger).recordDelivered(task);
+    }
+
+    private ScheduledTaskListener listener() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SchedulingLagRecorder lagRecorder = new SchedulingLagRecorder(meterRegistry, 10, 60_000);
+        DeliveryEnvelopeBatcher envelopeBatcher = new DeliveryEnvelopeBatcher(kafkaTemplate, meterRegistry, lagRecorder,
+                "delivered-tasks", false, 500, 900_000, 50, true);
+        return new ScheduledTaskListener(taskRepository, kafkaTemplate, new TaskEventBus(), mock(SharedPayloadStore.class),
+                "delivered-tasks", false, mock(PayloadCache.class), false, 65536, envelopeBatcher, mock(FanOutService.class),
+                mock(TaskSummaryRepository.class), mock(LaneDispatcher.class), false, "scheduled-tasks-medium",
+                "scheduled-tasks-low", "scheduled-tasks", mock(TenantFairShare.class), 1000,
+                mock(ConsumerFlowController.class), lagRecorder, deliveryLedger);
+    }
+
+    private static ConsumerRecord<String, ScheduledTaskRef> record(Task task) {
+        return new ConsumerRecord<>("scheduled-tasks", 0, 1, task.getId(),
+                new ScheduledTaskRef(task.getId(), task.getTenant(), task.getScheduledAt(), null, null));
+    }
+
+    private static Task task() {
+        Task task = new Task();
+        task.setId("t1");
+        task.setTenant("acme");
+        task.setStatus("CREATED");
+        task.setScheduledAt(1_700_000_000_000L);
+        task.setPayload("{\"n\":1}");
+        return task;
+    }
+}
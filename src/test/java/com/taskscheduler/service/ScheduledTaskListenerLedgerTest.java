@@ -0,0 +1,90 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.dto.ScheduledTaskRef;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.repository.TaskRepository;
+import com.taskscheduler.repository.TaskSummaryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The delivery ledger on the non-transactional path: an entry means the broker acked the
+ * delivery, so a redelivered timer is only skipped when its delivery really went out.
+ */
+class ScheduledTaskListenerLedgerTest {
+
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final DeliveryLedger deliveryLedger = mock(DeliveryLedger.class);
+
+    @Test
+    void failedSendLeavesNoLedgerEntry() {
+        Task task = task();
+        when(taskRepository.findAllByIdIn(anyList())).thenReturn(List.of(task));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        listener().handleScheduledTaskMetadata(List.of(record(task)));
+
+        verify(deliveryLedger, never()).recordDelivered(any());
+        verify(taskRepository, never()).updateStatus(anyString(), anyString(), any());
+    }
+
+    @Test
+    void ackedSendIsRecordedBeforeTheStatusUpdate() {
+        Task task = task();
+        when(taskRepository.findAllByIdIn(anyList())).thenReturn(List.of(task));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        listener().handleScheduledTaskMetadata(List.of(record(task)));
+
+        InOrder order = inOrder(deliveryLedger, taskRepository);
+        order.verify(deliveryLedger).recordDelivered(task);
+        order.verify(taskRepository).updateStatus(eq("t1"), eq("DELIVERED"), any());
+    }
+
+    private ScheduledTaskListener listener() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SchedulingLagRecorder lagRecorder = new SchedulingLagRecorder(meterRegistry, 10, 60_000);
+        DeliveryEnvelopeBatcher envelopeBatcher = new DeliveryEnvelopeBatcher(kafkaTemplate, meterRegistry, lagRecorder,
+                "delivered-tasks", false, 500, 900_000, 50, true);
+        return new ScheduledTaskListener(taskRepository, kafkaTemplate, new TaskEventBus(), mock(SharedPayloadStore.class),
+                "delivered-tasks", false, mock(PayloadCache.class), false, 65536, envelopeBatcher, mock(FanOutService.class),
+                mock(TaskSummaryRepository.class), mock(LaneDispatcher.class), false, "scheduled-tasks-medium",
+                "scheduled-tasks-low", "scheduled-tasks", mock(TenantFairShare.class), 1000,
+                mock(ConsumerFlowController.class), lagRecorder, deliveryLedger);
+    }
+
+    private static ConsumerRecord<String, ScheduledTaskRef> record(Task task) {
+        return new ConsumerRecord<>("scheduled-tasks", 0, 0, task.getId(),
+                new ScheduledTaskRef(task.getId(), task.getTenant(), task.getScheduledAt(), null, null));
+    }
+
+    private static Task task() {
+        Task task = new Task();
+        task.setId("t1");
+        task.setTenant("acme");
+        task.setStatus("CREATED");
+        task.setScheduledAt(1_700_000_000_000L);
+        task.setPayload("{\"n\":1}");
+        return task;
+    }
+}
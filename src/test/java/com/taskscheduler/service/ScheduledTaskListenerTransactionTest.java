@@ -0,0 +1,227 @@
+package com.taskscheduler.service;
+
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.taskscheduler.config.KafkaConfig;
+import com.taskscheduler.config.TaskMetaDataSerializer;
+import com.taskscheduler.dto.ScheduledTaskRef;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.model.TaskRecipients;
+import com.taskscheduler.repository.RecipientOutcomeRepository;
+import com.taskscheduler.repository.TaskRecipientsRepository;
+import com.taskscheduler.repository.TaskRepository;
+import com.taskscheduler.repository.TaskSummaryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.cassandra.core.CassandraBatchOperations;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Crash injection against a real broker: a poll batch that fails part way through must leave
+ * nothing visible to read_committed consumers of delivered-tasks, and its redelivery must
+ * deliver every task exactly once.
+ */
+@EmbeddedKafka(partitions = 1, brokerProperties = {
+        "transaction.state.log.replication.factor=1",
+        "transaction.state.log.min.isr=1"})
+class ScheduledTaskListenerTransactionTest {
+
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    private final SharedPayloadStore sharedPayloadStore = mock(SharedPayloadStore.class);
+    private final TaskRecipientsRepository taskRecipientsRepository = mock(TaskRecipientsRepository.class);
+    private final RecipientOutcomeRepository recipientOutcomeRepository = mock(RecipientOutcomeRepository.class);
+    private final CassandraOperations cassandraOperations = mock(CassandraOperations.class);
+    private final CassandraBatchOperations outcomeBatch = mock(CassandraBatchOperations.class);
+
+    private EmbeddedKafkaBroker broker;
+    private String deliveredTopic;
+    private DefaultKafkaProducerFactory<String, Object> producerFactory;
+    private TransactionTemplate transactionTemplate;
+    private Consumer<String, String> deliveredConsumer;
+
+    @BeforeEach
+    void setUp() {
+        broker = EmbeddedKafkaCondition.getBroker();
+        deliveredTopic = "delivered-" + UUID.randomUUID();
+        broker.addTopics(deliveredTopic);
+
+        producerFactory = new DefaultKafkaProducerFactory<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, TaskMetaDataSerializer.class));
+        producerFactory.setTransactionIdPrefix("test-tx-" + deliveredTopic + "-");
+        transactionTemplate = new TransactionTemplate(KafkaConfig.listenerTransactionManager(producerFactory));
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("verify-" + deliveredTopic, "false", broker);
+        consumerProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        deliveredConsumer = new DefaultKafkaConsumerFactory<>(consumerProps, new StringDeserializer(), new StringDeserializer())
+                .createConsumer();
+        broker.consumeFromAnEmbeddedTopic(deliveredConsumer, deliveredTopic);
+
+        when(cassandraOperations.batchOps(DefaultBatchType.UNLOGGED)).thenReturn(outcomeBatch);
+        when(outcomeBatch.insert(anyList())).thenReturn(outcomeBatch);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deliveredConsumer.close();
+        producerFactory.destroy();
+    }
+
+    @Test
+    void crashMidBatchLeavesNoDeliveryVisibleAndRedeliveryDeliversOnce() {
+        ScheduledTaskListener listener = listener(false);
+        List<Task> tasks = List.of(task("t1"), task("t2"), task("t3"), task("t4"));
+        when(taskRepository.findAllByIdIn(anyList())).thenReturn(tasks);
+        doThrow(new IllegalStateException("injected crash"))
+                .when(sharedPayloadStore).resolveForDelivery(argThat(task -> "t3".equals(task.getId())));
+
+        assertThatThrownBy(() -> runBatch(listener, tasks)).hasMessageContaining("injected crash");
+
+        assertThat(delivered()).isEmpty();
+        verify(taskRepository, never()).updateStatus(anyString(), anyString(), any());
+
+        // The aborted batch is redelivered after the restart
+        doAnswer(invocation -> invocation.getArgument(0)).when(sharedPayloadStore).resolveForDelivery(any());
+        runBatch(listener, tasks);
+
+        assertThat(delivered()).extracting(ConsumerRecord::key).containsExactly("t1", "t2", "t3", "t4");
+        verify(taskRepository, times(4)).updateStatus(anyString(), eq("DELIVERED"), any());
+    }
+
+    @Test
+    void rolledBackTransactionKeepsItsEnvelopeToItself() throws Exception {
+        ScheduledTaskListener listener = listener(true);
+        Task a1 = task("a1");
+        Task crash = task("a2");
+        Task b1 = task("b1");
+        when(taskRepository.findAllByIdIn(anyList())).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            return ids.contains("b1") ? List.of(b1) : List.of(a1, crash);
+        });
+        CountDownLatch aBuffered = new CountDownLatch(1);
+        CountDownLatch bCommitted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            // a1 is already in A's envelope; let B run its whole transaction, then crash A
+            aBuffered.countDown();
+            bCommitted.await(30, TimeUnit.SECONDS);
+            throw new IllegalStateException("injected crash");
+        }).when(sharedPayloadStore).resolveForDelivery(argThat(task -> "a2".equals(task.getId())));
+
+        CompletableFuture<Void> batchA = CompletableFuture.runAsync(() -> runBatch(listener, List.of(a1, crash)));
+        assertThat(aBuffered.await(30, TimeUnit.SECONDS)).isTrue();
+        runBatch(listener, List.of(b1));
+        bCommitted.countDown();
+        assertThatThrownBy(batchA::join).hasMessageContaining("injected crash");
+
+        List<ConsumerRecord<String, String>> envelopes = delivered();
+        assertThat(envelopes).hasSize(1);
+        assertThat(envelopes.get(0).value()).contains("\"id\":\"b1\"").doesNotContain("\"id\":\"a1\"");
+        verify(taskRepository, timeout(5000)).updateStatus(eq("b1"), eq("DELIVERED"), any());
+        verify(taskRepository, never()).updateStatus(eq("a1"), anyString(), any());
+    }
+
+    @Test
+    void failedRecipientAbortsThePartialFanOut() {
+        ScheduledTaskListener listener = listener(false);
+        Task template = task("f1");
+        template.setTaskType(FanOutService.TASK_TYPE);
+        when(taskRepository.findAllByIdIn(anyList())).thenReturn(List.of(template));
+        TaskRecipients recipients = new TaskRecipients();
+        recipients.setTaskId("f1");
+        recipients.setRecipients(List.of("r1", "r2", "r3"));
+        when(taskRecipientsRepository.findChunk(eq("f1"), anyInt())).thenAnswer(invocation ->
+                invocation.<Integer>getArgument(1) == 0 ? recipients : null);
+        when(recipientOutcomeRepository.findByTaskId("f1", 1)).thenReturn(List.of());
+        doThrow(new IllegalStateException("injected crash"))
+                .when(sharedPayloadStore).resolveForDelivery(argThat(task -> "f1#r2".equals(task.getId())));
+
+        assertThatThrownBy(() -> runBatch(listener, List.of(template))).hasMessageContaining("injected crash");
+
+        assertThat(delivered()).isEmpty();
+        verify(outcomeBatch, never()).insert(anyList());
+        verify(taskRepository, never()).updateStatus(anyString(), anyString(), any());
+    }
+
+    private void runBatch(ScheduledTaskListener listener, List<Task> tasks) {
+        List<ConsumerRecord<String, ScheduledTaskRef>> records = new ArrayList<>();
+        for (Task task : tasks) {
+            records.add(new ConsumerRecord<>("scheduled-tasks", 0, records.size(), task.getId(),
+                    new ScheduledTaskRef(task.getId(), task.getTenant(), task.getScheduledAt(), null, null)));
+        }
+        transactionTemplate.executeWithoutResult(status -> listener.handleScheduledTaskMetadata(records));
+    }
+
+    private List<ConsumerRecord<String, String>> delivered() {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        KafkaTestUtils.getRecords(deliveredConsumer, Duration.ofSeconds(3)).forEach(records::add);
+        return records;
+    }
+
+    private ScheduledTaskListener listener(boolean envelopes) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        SchedulingLagRecorder lagRecorder = new SchedulingLagRecorder(meterRegistry, 10, 60_000);
+        DeliveryEnvelopeBatcher envelopeBatcher = new DeliveryEnvelopeBatcher(kafkaTemplate, meterRegistry, lagRecorder,
+                deliveredTopic, envelopes, 500, 900_000, 50, true);
+        FanOutService fanOutService = new FanOutService(taskRecipientsRepository, recipientOutcomeRepository,
+                taskRepository, cassandraOperations, meterRegistry, 1000, 1_000_000);
+        return new ScheduledTaskListener(taskRepository, kafkaTemplate, new TaskEventBus(), sharedPayloadStore,
+                deliveredTopic, false, mock(PayloadCache.class), false, 65536, envelopeBatcher, fanOutService,
+                mock(TaskSummaryRepository.class), mock(LaneDispatcher.class), false, "scheduled-tasks-medium",
+                "scheduled-tasks-low", "scheduled-tasks", mock(TenantFairShare.class), 1000,
+                mock(ConsumerFlowController.class), lagRecorder, mock(DeliveryLedger.class));
+    }
+
+    private static Task task(String id) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTenant("acme");
+        task.setStatus("CREATED");
+        task.setScheduledAt(1_700_000_000_000L);
+        task.setPayload("{\"n\":1}");
+        return task;
+    }
+}
@@ -0,0 +1,29 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.dto.SchedulingLagResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchedulingLagRecorderTest {
+
+    @Test
+    void onlyTheFirstTenantsGetTheirOwnTimersAndPercentiles() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SchedulingLagRecorder recorder = new SchedulingLagRecorder(meterRegistry, 1, 60_000);
+
+        recorder.record(SchedulingLagRecorder.Stage.FIRE, "acme", 10);
+        recorder.record(SchedulingLagRecorder.Stage.FIRE, "globex", 20);
+        recorder.record(SchedulingLagRecorder.Stage.FIRE, "initech", 30);
+        recorder.rotate();
+
+        SchedulingLagResponse report = recorder.report(null, null);
+        assertThat(report.getStages()).extracting(SchedulingLagResponse.StageLag::getTenant)
+                .containsExactly("acme", "other");
+        assertThat(report.getStages().get(1).getTotal().getCount()).isEqualTo(2);
+        assertThat(meterRegistry.find("taskscheduler_scheduling_lag_seconds").timers())
+                .extracting(timer -> timer.getId().getTag("tenant"))
+                .containsExactlyInAnyOrder("acme", "other");
+    }
+}
@@ -0,0 +1,77 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.model.SharedPayload;
+import com.taskscheduler.model.Task;
+import com.taskscheduler.repository.SharedPayloadRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SharedPayloadStoreTest {
+
+    private static final long RETENTION_MS = 3_600_000;
+
+    private final SharedPayloadRepository repository = mock(SharedPayloadRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SharedPayloadStore store = new SharedPayloadStore(repository,
+            new PayloadCompressor(List.of(new DeflatePayloadCodec()), meterRegistry, false, "deflate", 1024, 0.1),
+            meterRegistry, true, 16, RETENTION_MS, 16);
+
+    @Test
+    void rescheduleRewritesTheRowWithALongerTtl() {
+        long now = System.currentTimeMillis();
+        when(repository.findById("h1")).thenReturn(Optional.of(row("h1", now + RETENTION_MS)));
+
+        long movedTo = now + 86_400_000;
+        assertThat(store.extend("h1", movedTo)).isTrue();
+
+        verify(repository).insertWithTtl(eq("h1"), eq("payload"), isNull(), isNull(),
+                eq(movedTo + RETENTION_MS), anyInt());
+    }
+
+    @Test
+    void rowThatAlreadyOutlivesTheNewDueTimeIsNotRewritten() {
+        long now = System.currentTimeMillis();
+        when(repository.findById("h1")).thenReturn(Optional.of(row("h1", now + 10 * RETENTION_MS)));
+
+        assertThat(store.extend("h1", now + 1000)).isTrue();
+
+        verify(repository, never()).insertWithTtl(anyString(), any(), any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void expiredPayloadFailsTheDelivery() {
+        when(repository.findById("gone")).thenReturn(Optional.empty());
+        Task task = new Task();
+        task.setId("t1");
+        task.setPayloadHash("gone");
+
+        assertThat(store.extend("gone", System.currentTimeMillis())).isFalse();
+        assertThatThrownBy(() -> store.resolveForDelivery(task))
+                .isInstanceOf(SharedPayloadExpiredException.class)
+                .hasMessageContaining("gone");
+    }
+
+    private static SharedPayload row(String hash, long expiresAt) {
+        SharedPayload row = new SharedPayload();
+        row.setHash(hash);
+        row.setPayload("payload");
+        row.setExpiresAt(expiresAt);
+        return row;
+    }
+}
@@ -0,0 +1,92 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.dto.TaskEvent;
+import com.taskscheduler.repository.TaskStatsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.cassandra.CassandraConnectionFailureException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskStatsAggregatorTest {
+
+    private final TaskStatsRepository repository = mock(TaskStatsRepository.class);
+    private final TaskStatsAggregator aggregator =
+            new TaskStatsAggregator(new TaskEventBus(), repository, new SimpleMeterRegistry(), 50, 300_000);
+
+    @Test
+    void flushRacingWithEventsLosesNoIncrement() throws Exception {
+        AtomicLong flushed = new AtomicLong();
+        doAnswer(invocation -> flushed.addAndGet(invocation.getArgument(3)))
+                .when(repository).incrementCount(anyString(), anyLong(), anyString(), anyLong());
+        when(repository.findByTenantAndHourRange(anyString(), anyLong(), anyLong())).thenReturn(List.of());
+
+        int threads = 4;
+        int eventsPerThread = 50_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < eventsPerThread; i++) {
+                    aggregator.onEvent(event("acme"));
+                }
+                done.countDown();
+            }).start();
+        }
+        while (done.getCount() > 0) {
+            aggregator.flush();
+        }
+        aggregator.flush();
+
+        assertThat(flushed.get()).isEqualTo((long) threads * eventsPerThread);
+    }
+
+    @Test
+    void timedOutIncrementIsNotRetried() {
+        doThrow(new QueryTimeoutException("write timeout"))
+                .when(repository).incrementCount(anyString(), anyLong(), anyString(), anyLong());
+        aggregator.onEvent(event("acme"));
+
+        aggregator.flush();
+        aggregator.flush();
+
+        verify(repository, times(1)).incrementCount(eq("acme"), anyLong(), eq("CREATED"), eq(1L));
+    }
+
+    @Test
+    void failedIncrementIsKeptForTheNextFlush() {
+        doThrow(new CassandraConnectionFailureException(Map.of(), "no host", null))
+                .doNothing()
+                .when(repository).incrementCount(anyString(), anyLong(), anyString(), anyLong());
+        when(repository.findByTenantAndHourRange(anyString(), anyLong(), anyLong())).thenReturn(List.of());
+        aggregator.onEvent(event("acme"));
+
+        aggregator.flush();
+        aggregator.flush();
+
+        verify(repository, times(2)).incrementCount(eq("acme"), anyLong(), eq("CREATED"), eq(1L));
+    }
+
+    private static TaskEvent event(String tenant) {
+        TaskEvent event = new TaskEvent();
+        event.setType(TaskEvent.Type.CREATED);
+        event.setTenant(tenant);
+        event.setTimestamp(Instant.now());
+        return event;
+    }
+}
@@ -0,0 +1,87 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.dto.TaskEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tenants are client-supplied, so admission control forgets the ones that go quiet.
+ */
+class TenantAdmissionControlTest {
+
+    private final TaskEventBus taskEventBus = new TaskEventBus();
+    private final TokenRangeScanner tokenRangeScanner = mock(TokenRangeScanner.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void refilledRateBucketsAreEvicted() throws InterruptedException {
+        // 1000 per second with a burst of 1 refills within a millisecond
+        TenantAdmissionControl admission = admission(1000, 1);
+        admission.admit("acme");
+        admission.admit("globex");
+        assertThat(admission.trackedRateTenants()).isEqualTo(2);
+
+        Thread.sleep(5);
+        admission.evictIdleTenants(System.currentTimeMillis());
+
+        assertThat(admission.trackedRateTenants()).isZero();
+    }
+
+    @Test
+    void admittingTracksNoPendingCountAndDrainedCountsAreDroppedOnReconcile() {
+        TenantAdmissionControl admission = admission(1000, 1000);
+        admission.start();
+        for (int i = 0; i < 100; i++) {
+            admission.admit("tenant-" + i);
+        }
+        assertThat(trackedPendingTenants()).isZero();
+
+        taskEventBus.publish(event(TaskEvent.Type.CREATED, "acme"));
+        taskEventBus.publish(event(TaskEvent.Type.CREATED, "globex"));
+        taskEventBus.publish(event(TaskEvent.Type.DELIVERED, "globex"));
+        assertThat(trackedPendingTenants()).isEqualTo(2);
+
+        // The scan sees neither tenant's task, the acme create is newer than the scan
+        when(tokenRangeScanner.scanRows(any(), any())).thenAnswer(invocation -> {
+            taskEventBus.publish(event(TaskEvent.Type.CREATED, "acme"));
+            return new TokenRangeScanner.ScanResult();
+        });
+        admission.reconcile();
+
+        assertThat(trackedPendingTenants()).isEqualTo(1);
+        assertThat(admission.getPending("acme")).isEqualTo(1);
+        assertThat(admission.getPending("globex")).isZero();
+        admission.stop();
+    }
+
+    @Test
+    void overRateIsStillRejected() {
+        TenantAdmissionControl admission = admission(0.001, 1);
+        admission.admit("acme");
+
+        assertThatThrownBy(() -> admission.admit("acme")).isInstanceOf(TenantQuotaExceededException.class);
+    }
+
+    private TenantAdmissionControl admission(double createRate, int createBurst) {
+        return new TenantAdmissionControl(taskEventBus, tokenRangeScanner, meterRegistry, true,
+                createRate, createBurst, 1_000_000, 60, 20_000);
+    }
+
+    private double trackedPendingTenants() {
+        return meterRegistry.get("taskscheduler_admission_tenants").gauge().value();
+    }
+
+    private static TaskEvent event(TaskEvent.Type type, String tenant) {
+        TaskEvent event = new TaskEvent();
+        event.setType(type);
+        event.setTaskId("task-" + tenant);
+        event.setTenant(tenant);
+        return event;
+    }
+}
@@ -0,0 +1,53 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.dto.ScheduledTaskRef;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TenantFairShareTest {
+
+    @Test
+    void admitsByRoutingTenantWithoutDecodingRecords() {
+        TenantFairShare fairShare = new TenantFairShare(new SimpleMeterRegistry(), true, 1, 2, "", 50);
+
+        TenantFairShare.Admission admission = fairShare.admit(List.of(
+                ref("a1", "acme"), ref("a2", "acme"), ref("a3", "acme"), ref("g1", "globex")));
+
+        assertThat(admission.admitted()).extracting(ScheduledTaskRef::getId).containsExactly("a1", "g1", "a2");
+        assertThat(admission.heldBack()).extracting(ScheduledTaskRef::getId).containsExactly("a3");
+    }
+
+    @Test
+    void heldBackTimersKeepTheirFireOrder() {
+        TenantFairShare fairShare = new TenantFairShare(new SimpleMeterRegistry(), true, 1, 1, "", 50);
+
+        TenantFairShare.Admission admission = fairShare.admit(List.of(
+                ref("a1", "acme"), ref("a2", "acme"), ref("a3", "acme"), ref("a4", "acme")));
+
+        assertThat(admission.admitted()).extracting(ScheduledTaskRef::getId).containsExactly("a1");
+        assertThat(admission.heldBack()).extracting(ScheduledTaskRef::getId).containsExactly("a2", "a3", "a4");
+    }
+
+    @Test
+    void refilledBucketsAreEvicted() throws InterruptedException {
+        // 1000 per second with a burst of 1 refills within a millisecond
+        TenantFairShare fairShare = new TenantFairShare(new SimpleMeterRegistry(), true, 1000, 1, "", 50);
+        fairShare.admit(List.of(ref("a1", "acme"), ref("g1", "globex")));
+        assertThat(fairShare.trackedTenants()).isEqualTo(2);
+
+        Thread.sleep(5);
+        fairShare.evictIdleTenants(System.currentTimeMillis());
+
+        assertThat(fairShare.trackedTenants()).isZero();
+    }
+
+    private static ScheduledTaskRef ref(String id, String tenant) {
+        return new ScheduledTaskRef(id, tenant, 0L, null, raw -> {
+            throw new AssertionError("record decoded for " + id);
+        });
+    }
+}
@@ -0,0 +1,194 @@
+package com.taskscheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery of the timer store across restarts: what a restarted store holds and replays must be
+ * exactly the timers pending at shutdown, with the ids and tenants they were stored with, also
+ * when the tail of the active segment was torn.
+ */
+class TimerSegmentStoreTest {
+
+    private static final long AT = 1_792_368_000_000L;
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path dir;
+
+    private final List<TimerSegmentStore> opened = new ArrayList<>();
+
+    @AfterEach
+    void stopAll() {
+        opened.forEach(TimerSegmentStore::stop);
+    }
+
+    @Test
+    void restartRecoversLatestStateOfEveryTimer() throws IOException {
+        TimerSegmentStore store = open(8);
+        for (int i = 0; i < 200; i++) {
+            store.upsert("task-" + i, "tenant-" + i % 3, AT + i);
+        }
+        for (int i = 0; i < 200; i += 4) {
+            store.upsert("task-" + i, "tenant-" + i % 3, AT + 10_000 + i);
+        }
+        for (int i = 1; i < 200; i += 4) {
+            store.remove("task-" + i);
+        }
+        store.stop();
+
+        TimerSegmentStore restarted = open(8);
+        assertEquals(150, restarted.size());
+        assertEquals(AT + 10_000, restarted.scheduledAt("task-0"));
+        assertNull(restarted.scheduledAt("task-1"));
+        assertEquals(AT + 2, restarted.scheduledAt("task-2"));
+
+        Map<String, String> replayed = replay(restarted);
+        assertEquals(150, replayed.size());
+        assertEquals("tenant-2@" + (AT + 10_000 + 8), replayed.get("task-8"));
+        assertEquals("tenant-0@" + (AT + 3), replayed.get("task-3"));
+        assertTrue(replay(restarted).isEmpty(), "recovered timers are replayed once");
+    }
+
+    @Test
+    void restartAfterCompactionRecoversFromSnapshotAndLaterSegments() throws IOException {
+        TimerSegmentStore store = open(2);
+        for (int i = 0; i < 300; i++) {
+            store.upsert("task-" + i, "acme", AT + i);
+        }
+        for (int i = 0; i < 300; i += 2) {
+            store.remove("task-" + i);
+        }
+        store.compact();
+        assertEquals(1, files(".snap").size());
+        store.upsert("task-0", "acme", AT + 5_000);
+        store.remove("task-1");
+        store.stop();
+
+        TimerSegmentStore restarted = open(2);
+        assertEquals(150, restarted.size());
+        assertEquals(AT + 5_000, restarted.scheduledAt("task-0"));
+        assertNull(restarted.scheduledAt("task-1"));
+        assertEquals(AT + 299, restarted.scheduledAt("task-299"));
+
+        Map<String, String> replayed = replay(restarted);
+        assertEquals(150, replayed.size());
+        assertEquals("acme@" + (AT + 5_000), replayed.get("task-0"));
+        assertEquals("acme@" + (AT + 3), replayed.get("task-3"));
+    }
+
+    @Test
+    void compactionWaitsForTheReplay() throws IOException {
+        TimerSegmentStore store = open(2);
+        for (int i = 0; i < 300; i++) {
+            store.upsert("task-" + i, "acme", AT + i);
+        }
+        store.stop();
+
+        TimerSegmentStore restarted = open(2);
+        restarted.compact();
+        assertTrue(files(".snap").isEmpty());
+        assertEquals(300, replay(restarted).size());
+        restarted.compact();
+        assertEquals(1, files(".snap").size());
+    }
+
+    @Test
+    void tornTailDropsOnlyTheTornRecord() throws IOException {
+        TimerSegmentStore store = open(8);
+        store.upsert("task-a", "acme", AT);
+        store.upsert("task-b", "acme", AT + 1);
+        store.upsert("task-c", "acme", AT + 2);
+        store.stop();
+        int record = TimerSegmentStore.recordBytes(6, 4);
+        corrupt(lastSegment(), 2 * record + TimerSegmentStore.HEADER_BYTES, (byte) 'x');
+
+        TimerSegmentStore restarted = open(8);
+        assertEquals(AT, restarted.scheduledAt("task-a"));
+        assertEquals(AT + 1, restarted.scheduledAt("task-b"));
+        assertNull(restarted.scheduledAt("task-c"));
+        assertEquals(Map.of("task-a", "acme@" + AT, "task-b", "acme@" + (AT + 1)), replay(restarted));
+
+        restarted.upsert("task-d", "acme", AT + 3);
+        restarted.stop();
+
+        TimerSegmentStore again = open(8);
+        assertEquals(3, again.size());
+        assertEquals(AT + 3, again.scheduledAt("task-d"));
+        assertNull(again.scheduledAt("task-c"));
+    }
+
+    @Test
+    void zeroVersionEndsTheSegmentAndStaleRecordsBehindItAreWiped() throws IOException {
+        TimerSegmentStore store = open(8);
+        store.upsert("task-a", "acme", AT);
+        store.upsert("task-b", "acme", AT + 1);
+        store.upsert("task-c", "acme", AT + 2);
+        store.stop();
+        int record = TimerSegmentStore.recordBytes(6, 4);
+        for (int i = 0; i < Long.BYTES; i++) {
+            corrupt(lastSegment(), record + 8 + i, (byte) 0);
+        }
+
+        TimerSegmentStore restarted = open(8);
+        assertEquals(1, restarted.size());
+        // Lands where task-b was, with the version task-b had; task-c behind it must not come back
+        restarted.upsert("task-d", "acme", AT + 3);
+        restarted.stop();
+
+        TimerSegmentStore again = open(8);
+        assertEquals(2, again.size());
+        assertNull(again.scheduledAt("task-b"));
+        assertNull(again.scheduledAt("task-c"));
+        assertEquals(AT + 3, again.scheduledAt("task-d"));
+    }
+
+    private TimerSegmentStore open(int compactAfterSegments) throws IOException {
+        TimerSegmentStore store = new TimerSegmentStore(new TaskEventBus(), new SimpleMeterRegistry(), true,
+                dir.toString(), SEGMENT_BYTES, compactAfterSegments, 16, true);
+        store.start();
+        opened.add(store);
+        return store;
+    }
+
+    private static Map<String, String> replay(TimerSegmentStore store) throws IOException {
+        Map<String, String> replayed = new HashMap<>();
+        store.forEachRecoveredTimer((id, tenant, scheduledAt) -> replayed.put(id, tenant + "@" + scheduledAt));
+        return replayed;
+    }
+
+    private Path lastSegment() throws IOException {
+        List<Path> segments = files(".log");
+        return segments.get(segments.size() - 1);
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    private static void corrupt(Path file, long position, byte value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{value}), position);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.model.TaskMetaData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Timers recovered from disk go back to task-requests with the id, tenant and time they were
+ * stored with, once.
+ */
+class TimerStoreReplayTest {
+
+    private static final long AT = 1_792_368_000_000L;
+
+    @TempDir
+    Path dir;
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+
+    @Test
+    void recoveredTimersArePublishedToTaskRequests() throws IOException {
+        TimerSegmentStore store = store();
+        store.upsert("task-a", "acme", AT);
+        store.upsert("task-b", "globex", AT + 1);
+        store.upsert("task-b", "globex", AT + 2);
+        store.upsert("task-c", "acme", AT + 3);
+        store.remove("task-c");
+        store.stop();
+        when(kafkaTemplate.send(eq("task-requests"), any(String.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        TimerStoreReplay replay = replay(store());
+
+        assertEquals(2, replay.replay());
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate, times(2)).send(eq("task-requests"), any(String.class), sent.capture());
+        Map<String, TaskMetaData> byId = sent.getAllValues().stream()
+                .map(TaskMetaData.class::cast)
+                .collect(Collectors.toMap(TaskMetaData::getId, m -> m));
+        assertEquals("acme", byId.get("task-a").getTenant());
+        assertEquals(AT, byId.get("task-a").getScheduledAt());
+        assertEquals("globex", byId.get("task-b").getTenant());
+        assertEquals(AT + 2, byId.get("task-b").getScheduledAt());
+        assertEquals("CREATED", byId.get("task-b").getStatus());
+
+        assertEquals(0, replay.replay());
+    }
+
+    @Test
+    void failedSendsAreNotCountedAsReplayed() throws IOException {
+        TimerSegmentStore store = store();
+        store.upsert("task-a", "acme", AT);
+        store.upsert("task-b", "acme", AT + 1);
+        store.stop();
+        when(kafkaTemplate.send(eq("task-requests"), eq("task-a"), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(eq("task-requests"), eq("task-b"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertEquals(1, replay(store()).replay());
+    }
+
+    private TimerSegmentStore store() throws IOException {
+        TimerSegmentStore store = new TimerSegmentStore(new TaskEventBus(), new SimpleMeterRegistry(), true,
+                dir.toString(), 4096, 8, 16, true);
+        store.start();
+        return store;
+    }
+
+    private TimerStoreReplay replay(TimerSegmentStore store) {
+        return new TimerStoreReplay(store, kafkaTemplate, new SimpleMeterRegistry(), "task-requests", true, 0,
+                mock(ExecutorService.class));
+    }
+}
@@ -0,0 +1,21 @@
+package com.taskscheduler.service;
+
+import com.taskscheduler.model.Task;
+import com.taskscheduler.model.TaskMetaData;
+
+import java.util.List;
+
+/**
+ * Stand-in service for TracingAspectBenchmark: it lives in the service package so the aspect's
+ * pointcut matches it, and its calls mirror the per-task delivery and the daily batch publish.
+ */
+public class TracedCallsFixture {
+
+    public String deliver(Task task) {
+        return task.getId();
+    }
+
+    public int publishBatch(String tenant, List<TaskMetaData> batch) {
+        return batch.size();
+    }
+}